@@ -27,6 +27,7 @@ import de.hhu.bsinfo.dxutils.serialization.ObjectSizeUtil;
 
 import science.atlarge.graphalytics.configuration.ConfigurationUtil;
 import science.atlarge.graphalytics.configuration.GraphalyticsExecutionException;
+import science.atlarge.graphalytics.dxram.graph.data.DirectVertex;
 
 /**
  * Collection of configurable platform options.
@@ -41,10 +42,20 @@ public final class DxramConfiguration implements Importable, Exportable {
 	private static final String HOME_PATH_KEY = "platform.dxram.home";
 	private static final String NUM_MACHINES_KEY = "platform.dxram.num-machines";
 	private static final String NUM_THREADS_KEY = "platform.dxram.num-threads";
+	private static final String INLINE_NEIGHBORS_KEY = "platform.dxram.inline-neighbors";
+	private static final String PARTITION_STORE_KEY = "platform.dxram.partition-store";
+	private static final String COMPRESS_NEIGHBORS_KEY = "platform.dxram.compress-neighbors";
+	private static final String DIRECTION_OPTIMIZING_KEY = "platform.dxram.direction-optimizing";
+	private static final String LIVE_STATISTICS_KEY = "platform.dxram.live-statistics";
 
 	private String homePath;
 	private int numMachines = 1;
 	private int numThreads = 1;
+	private int inlineNeighbors = DirectVertex.DEFAULT_INLINE_NEIGHBORS;
+	private boolean partitionStore = false;
+	private boolean compressNeighbors = false;
+	private boolean directionOptimizing = true;
+	private boolean liveStatistics = true;
 
 	/**
 	 * Creates a new DxramConfiguration object to capture all platform parameters that are not specific to any algorithm.
@@ -94,6 +105,76 @@ public final class DxramConfiguration implements Importable, Exportable {
 		return numThreads;
 	}
 
+	/**
+	 * @param inlineNeighbors the max. number of neighbors stored inline in the vertex chunk
+	 */
+	public void setInlineNeighbors(int inlineNeighbors) {
+		this.inlineNeighbors = inlineNeighbors;
+	}
+
+	/**
+	 * @return the max. number of neighbors stored inline in the vertex chunk
+	 */
+	public int getInlineNeighbors() {
+		return inlineNeighbors;
+	}
+
+	/**
+	 * @param partitionStore true to store each partition in a few large chunks (CSR) instead of one chunk per vertex
+	 */
+	public void setPartitionStore(boolean partitionStore) {
+		this.partitionStore = partitionStore;
+	}
+
+	/**
+	 * @return true if each partition is stored in a few large chunks (CSR) instead of one chunk per vertex
+	 */
+	public boolean isPartitionStore() {
+		return partitionStore;
+	}
+
+	/**
+	 * @param compressNeighbors true to store the neighbor lists delta and varint encoded (partition store only)
+	 */
+	public void setCompressNeighbors(boolean compressNeighbors) {
+		this.compressNeighbors = compressNeighbors;
+	}
+
+	/**
+	 * @return true if the neighbor lists are stored delta and varint encoded (partition store only)
+	 */
+	public boolean isCompressNeighbors() {
+		return compressNeighbors;
+	}
+
+	/**
+	 * @param directionOptimizing true to switch BFS between top-down and bottom-up levels (undirected graphs only)
+	 */
+	public void setDirectionOptimizing(boolean directionOptimizing) {
+		this.directionOptimizing = directionOptimizing;
+	}
+
+	/**
+	 * @return true if BFS switches between top-down and bottom-up levels (undirected graphs only)
+	 */
+	public boolean isDirectionOptimizing() {
+		return directionOptimizing;
+	}
+
+	/**
+	 * @param liveStatistics true to print the BFS vertices/edges per second periodically while running
+	 */
+	public void setLiveStatistics(boolean liveStatistics) {
+		this.liveStatistics = liveStatistics;
+	}
+
+	/**
+	 * @return true if BFS prints the vertices/edges per second periodically while running
+	 */
+	public boolean isLiveStatistics() {
+		return liveStatistics;
+	}
+
 
 	public static DxramConfiguration parsePropertiesFile() {
 
@@ -126,12 +207,22 @@ public final class DxramConfiguration implements Importable, Exportable {
 			platformConfig.setNumThreads(1);
 		}
 
+		Integer inlineNeighbors = configuration.getInteger(INLINE_NEIGHBORS_KEY, null);
+		if (inlineNeighbors != null) {
+			platformConfig.setInlineNeighbors(inlineNeighbors);
+		}
+
+		platformConfig.setPartitionStore(configuration.getBoolean(PARTITION_STORE_KEY, false));
+		platformConfig.setCompressNeighbors(configuration.getBoolean(COMPRESS_NEIGHBORS_KEY, false));
+		platformConfig.setDirectionOptimizing(configuration.getBoolean(DIRECTION_OPTIMIZING_KEY, true));
+		platformConfig.setLiveStatistics(configuration.getBoolean(LIVE_STATISTICS_KEY, true));
+
 		return platformConfig;
 	}
 
 	@Override
 	public int sizeofObject() {
-		return ObjectSizeUtil.sizeofString(this.homePath) + (2 * Integer.BYTES);
+		return ObjectSizeUtil.sizeofString(this.homePath) + (3 * Integer.BYTES) + (4 * ObjectSizeUtil.sizeofBoolean());
 	}
 
 	@Override
@@ -139,13 +230,23 @@ public final class DxramConfiguration implements Importable, Exportable {
 		p_exporter.writeString(this.homePath);
 		p_exporter.writeInt(this.numMachines);
 		p_exporter.writeInt(this.numThreads);
+		p_exporter.writeInt(this.inlineNeighbors);
+		p_exporter.writeBoolean(this.partitionStore);
+		p_exporter.writeBoolean(this.compressNeighbors);
+		p_exporter.writeBoolean(this.directionOptimizing);
+		p_exporter.writeBoolean(this.liveStatistics);
 	}
 
 	@Override
 	public void importObject(Importer p_importer) {
 		this.homePath = p_importer.readString(this.homePath);
 		this.numMachines = p_importer.readInt(this.numMachines);
-		this.numMachines = p_importer.readInt(this.numThreads);
+		this.numThreads = p_importer.readInt(this.numThreads);
+		this.inlineNeighbors = p_importer.readInt(this.inlineNeighbors);
+		this.partitionStore = p_importer.readBoolean(this.partitionStore);
+		this.compressNeighbors = p_importer.readBoolean(this.compressNeighbors);
+		this.directionOptimizing = p_importer.readBoolean(this.directionOptimizing);
+		this.liveStatistics = p_importer.readBoolean(this.liveStatistics);
 	}
 
 }
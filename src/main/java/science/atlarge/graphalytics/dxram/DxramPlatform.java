@@ -47,16 +47,15 @@ import science.atlarge.graphalytics.dxram.job.DropAllChunksJob;
 import science.atlarge.graphalytics.dxram.job.DxramJob;
 import science.atlarge.graphalytics.dxram.job.GraphalyticsAbstractJob;
 import science.atlarge.graphalytics.dxram.job.LoadGraphJob;
+import science.atlarge.graphalytics.dxram.graph.load.oel.EdgeListSymmetrizer;
+import science.atlarge.graphalytics.dxram.graph.load.GraphLoadPartitionIndexTask;
+import science.atlarge.graphalytics.dxram.graph.load.oel.EdgeBalancedPartitioner;
+import science.atlarge.graphalytics.dxram.graph.load.oel.OrderedEdgeListCsrFile;
+import science.atlarge.graphalytics.dxram.graph.load.oel.VertexIndex;
 
-import java.util.Collections;
-import java.util.HashMap;
-import java.util.LinkedList;
 import java.util.List;
-import java.util.Map;
-import java.util.SortedSet;
-import java.util.TreeSet;
-import java.io.BufferedReader;
 import java.io.BufferedWriter;
+import java.io.IOException;
 import java.lang.management.ManagementFactory;
 import java.lang.management.RuntimeMXBean;
 import java.math.BigDecimal;
@@ -94,54 +93,14 @@ public class DxramPlatform implements Platform {
         String edgeFilePath = formattedGraph.getEdgeFilePath();
         if (!formattedGraph.isDirected()) {
             edgeFilePath += ".2";
-            final Map<Long, SortedSet<Long>> tmpEdges = new HashMap<Long, SortedSet<Long>>();
-
-            try (final BufferedReader br = Files.newBufferedReader(
-                    Paths.get(formattedGraph.getEdgeFilePath()),
-                    StandardCharsets.US_ASCII)) {
-                String line = br.readLine();
-                while (line != null) {
-                    String[] tmp = line.split("\\s");
-                    final long left = Long.parseLong(tmp[0]);
-                    final long right = Long.parseLong(tmp[1]);
-                    // TODO(later): handle properties payload, i.e. if tmp.length > 2
-                    
-                    if (!tmpEdges.containsKey(left)) {
-                        tmpEdges.put(left, new TreeSet<Long>());
-                    }
-                    if (!tmpEdges.containsKey(right)) {
-                        tmpEdges.put(right, new TreeSet<Long>());
-                    }
-
-                    tmpEdges.get(left).add(right);
-                    tmpEdges.get(right).add(left);
-                    line = br.readLine();
-                }
-            } catch (Exception e) {
-                throw new PlatformExecutionException("Failed to load the undirected graph!", e);
-            }
-            System.gc();
-
-            try (final BufferedWriter bw = Files.newBufferedWriter(
-                            Paths.get(edgeFilePath), StandardCharsets.US_ASCII,
-                            StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
-                
-
-                final LinkedList<Long> sortedLeft = new LinkedList<Long>(tmpEdges.keySet());
-                Collections.sort(sortedLeft);
-
-                while (!sortedLeft.isEmpty()) {
-                    final long left = sortedLeft.poll();
-                    for (long right : tmpEdges.remove(left)) {
-                        bw.write(String.valueOf(left) + " " + String.valueOf(right));
-                        bw.write('\n');
-                    }
-                }
+
+            try {
+                final long edgeCount = new EdgeListSymmetrizer().symmetrize(
+                        Paths.get(formattedGraph.getEdgeFilePath()), Paths.get(edgeFilePath));
+                LOG.info("Symmetrized undirected graph \"{}\" into {} directed edges.", formattedGraph.getName(), edgeCount);
             } catch (Exception e) {
                 throw new PlatformExecutionException("Failed to load the undirected graph!", e);
             }
-            tmpEdges.clear();
-            System.gc();
         }
 
         return new LoadedGraph(formattedGraph, formattedGraph.getVertexFilePath(), edgeFilePath);
@@ -153,20 +112,134 @@ public class DxramPlatform implements Platform {
 
     @Override
     public void prepare(RunSpecification runSpecification) throws Exception {
-        // create graph partition index file
+        // create graph partition index file, one partition per machine balanced by edge count
         final String gpiPath = runSpecification.getRuntimeSetup().getLoadedGraph().getVertexPath() + ".gpi";
+        final String vertexPath = runSpecification.getRuntimeSetup().getLoadedGraph().getVertexPath();
+        final String edgePath = runSpecification.getRuntimeSetup().getLoadedGraph().getEdgePath();
         final long cntVertices = runSpecification.getBenchmarkRun().getFormattedGraph().getNumberOfVertices();
-        final long cntEdges = runSpecification.getBenchmarkRun().getFormattedGraph().getNumberOfEdges();
+        final int numPartitions = Math.max(1, DxramConfiguration.parsePropertiesFile().getNumMachines());
+
+        if (!isPartitionIndexCurrent(Paths.get(gpiPath), Paths.get(vertexPath), Paths.get(edgePath), numPartitions)) {
+            writePartitionIndex(Paths.get(vertexPath), Paths.get(edgePath), Paths.get(gpiPath), cntVertices, numPartitions);
+        }
+
+        // create (or rebuild a stale) binary CSR cache, mapped by the loader instead of parsing the text files
+        if (!OrderedEdgeListCsrFile.isValid(vertexPath, edgePath)) {
+            try {
+                OrderedEdgeListCsrFile.build(vertexPath, edgePath);
+            } catch (IOException e) {
+                // not fatal, the loader falls back to the text files
+                LOG.warn("Failed to create the CSR cache for \"{}\": {}", edgePath, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Check if a graph partition index file can be reused: written with the current format version (including the
+     * vertex ids metadata), with the requested number of partitions and not older than the vertex and edge file.
+     *
+     * @param gpiPath path of the partition index file
+     * @param vertexPath path of the vertex file
+     * @param edgePath path of the ordered edge file
+     * @param numPartitions number of partitions
+     * @return true if the file is up to date, false if it is missing or has to be regenerated
+     * @throws IOException on reading errors
+     */
+    private static boolean isPartitionIndexCurrent(Path gpiPath, Path vertexPath, Path edgePath, int numPartitions)
+            throws IOException {
+        if (!Files.exists(gpiPath)) {
+            return false;
+        }
+
+        long modified = Files.getLastModifiedTime(gpiPath).toMillis();
+        if (Files.getLastModifiedTime(edgePath).toMillis() > modified ||
+                Files.getLastModifiedTime(vertexPath).toMillis() > modified) {
+            LOG.info("Graph partition index \"{}\" is older than the graph files, regenerating.", gpiPath);
+            return false;
+        }
+
+        int version = 0;
+        boolean ids = false;
+        int count = 0;
+        for (String line : Files.readAllLines(gpiPath, StandardCharsets.US_ASCII)) {
+            String[] tokens = line.split(",");
+            String key = tokens[0].trim();
+            if (key.isEmpty()) {
+                continue;
+            }
+
+            if (GraphLoadPartitionIndexTask.METADATA_VERSION.equals(key)) {
+                try {
+                    version = tokens.length > 1 ? Integer.parseInt(tokens[1].trim()) : 0;
+                } catch (NumberFormatException e) {
+                    version = 0;
+                }
+            } else if (GraphLoadPartitionIndexTask.METADATA_IDS.equals(key)) {
+                ids = true;
+            } else {
+                count++;
+            }
+        }
+
+        if (version != GraphLoadPartitionIndexTask.VERSION || !ids) {
+            LOG.info("Graph partition index \"{}\" has an outdated format, regenerating.", gpiPath);
+            return false;
+        }
+
+        return count == numPartitions;
+    }
+
+    /**
+     * Partition the ordered edge file by edge count and write the graph partition index file
+     * (one "id, vertices, edges, file offset" line per partition, followed by the version and vertex ids metadata).
+     *
+     * @param vertexPath path of the vertex file
+     * @param edgePath path of the ordered edge file
+     * @param gpiPath path of the partition index file to (over)write
+     * @param cntVertices number of vertices of the graph
+     * @param numPartitions number of partitions
+     * @throws IOException on reading or writing errors
+     */
+    private static void writePartitionIndex(Path vertexPath, Path edgePath, Path gpiPath, long cntVertices,
+            int numPartitions) throws IOException {
+        if (cntVertices > Integer.MAX_VALUE) {
+            throw new IOException(String.format("Graph with %d vertices exceeds the max. vertex count %d of the loader",
+                    cntVertices, Integer.MAX_VALUE));
+        }
 
-        if (Files.exists(Paths.get(gpiPath))) {
-            return;
+        // dense (sorted, contiguous) vertex ids let the loader skip the vertex id mapping
+        final long denseMinVertexId = VertexIndex.findDenseMinVertexId(vertexPath);
+        final VertexIndex index;
+        if (denseMinVertexId >= 0) {
+            index = VertexIndex.dense(denseMinVertexId, (int) cntVertices);
+        } else {
+            index = VertexIndex.read(vertexPath);
         }
 
-        try (BufferedWriter bw = Files.newBufferedWriter(
-                Paths.get(gpiPath), StandardCharsets.US_ASCII,
-                StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
-            bw.write("0, " + String.valueOf(cntVertices) + ", " + String.valueOf(cntEdges) + ", " + "0");
+        long start = System.currentTimeMillis();
+        EdgeBalancedPartitioner.Partition[] partitions = EdgeBalancedPartitioner.partition(index, edgePath, numPartitions);
+
+        try (BufferedWriter bw = Files.newBufferedWriter(gpiPath, StandardCharsets.US_ASCII,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            for (int i = 0; i < partitions.length; i++) {
+                bw.write(i + ", " + partitions[i].getVertexCount() + ", " + partitions[i].getEdgeCount() + ", " +
+                        partitions[i].getFileStartOffset());
+                bw.newLine();
+            }
+
+            bw.write(GraphLoadPartitionIndexTask.METADATA_VERSION + ", " + GraphLoadPartitionIndexTask.VERSION);
+            bw.newLine();
+
+            if (index.isDense()) {
+                bw.write(GraphLoadPartitionIndexTask.METADATA_IDS + ", " + GraphLoadPartitionIndexTask.METADATA_IDS_DENSE + ", " +
+                        denseMinVertexId + ", " + (denseMinVertexId + index.getVertexCount() - 1));
+            } else {
+                bw.write(GraphLoadPartitionIndexTask.METADATA_IDS + ", " + GraphLoadPartitionIndexTask.METADATA_IDS_SPARSE);
+            }
+            bw.newLine();
         }
+
+        LOG.info("Partitioned \"{}\" into {} partitions in {} ms.", edgePath, numPartitions, System.currentTimeMillis() - start);
     }
 
     @Override
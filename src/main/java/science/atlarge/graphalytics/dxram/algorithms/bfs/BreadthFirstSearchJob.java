@@ -17,7 +17,10 @@
 package science.atlarge.graphalytics.dxram.algorithms.bfs;
 
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardOpenOption;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -38,12 +41,17 @@ import science.atlarge.graphalytics.domain.algorithms.BreadthFirstSearchParamete
 import science.atlarge.graphalytics.execution.RunSpecification;
 import science.atlarge.graphalytics.dxram.DxramConfiguration;
 import science.atlarge.graphalytics.dxram.ProcTimeLog;
+import science.atlarge.graphalytics.dxram.graph.data.DirectVertex;
+import science.atlarge.graphalytics.dxram.graph.data.GraphPartitionIndex;
+import science.atlarge.graphalytics.dxram.graph.data.GraphPartitionStore;
 import science.atlarge.graphalytics.dxram.graph.data.GraphRootList;
-import science.atlarge.graphalytics.dxram.graph.data.Vertex;
+import science.atlarge.graphalytics.dxram.graph.data.VertexProperties;
 import science.atlarge.graphalytics.dxram.graph.load.GraphLoadBFSRootListTask;
 import science.atlarge.graphalytics.dxram.graph.load.GraphLoadOrderedEdgeListTask;
 import science.atlarge.graphalytics.dxram.graph.load.GraphLoadPartitionIndexTask;
 import science.atlarge.graphalytics.dxram.graph.load.oel.GraphalyticsOrderedEdgeList;
+import science.atlarge.graphalytics.dxram.graph.load.oel.VertexIdMap;
+import science.atlarge.graphalytics.dxram.graph.load.oel.VertexIndex;
 import science.atlarge.graphalytics.dxram.job.DxramJob;
 
 /**
@@ -56,6 +64,7 @@ public final class BreadthFirstSearchJob extends DxramJob {
 	private static final Logger LOG = LogManager.getLogger();
 
 	private final long sourceVertex;
+	private final boolean directed;
 	private transient GraphAlgorithmBFSTask bfsTask;
 	private transient GraphLoadPartitionIndexTask gpiTask;
 	private transient GraphLoadOrderedEdgeListTask oelTask;
@@ -71,6 +80,7 @@ public final class BreadthFirstSearchJob extends DxramJob {
 
 		AlgorithmParameters parameters = runSpecification.getBenchmarkRun().getAlgorithmParameters();
 		this.sourceVertex = ((BreadthFirstSearchParameters)parameters).getSourceVertex();
+		this.directed = runSpecification.getBenchmarkRun().getFormattedGraph().isDirected();
 	}
 
 	private void submitBFSTask() {
@@ -87,6 +97,10 @@ public final class BreadthFirstSearchJob extends DxramJob {
 
 		MasterSlaveComputeService ms = getService(MasterSlaveComputeService.class);
 		bfsTask = new GraphAlgorithmBFSTask();
+		// bottom-up levels need the incoming edges, i.e. the symmetrized edges of undirected graphs
+		bfsTask.setDirectionOptimizing(platformConfig.isDirectionOptimizing() && !directed);
+		bfsTask.setLiveStatistics(platformConfig.isLiveStatistics());
+		bfsTask.setOutputPath(outputPath);
 		TaskScript taskScript = new TaskScript(bfsTask);
 		ms.submitTaskScript(taskScript, (short)0, taskListener);
 
@@ -124,13 +138,78 @@ public final class BreadthFirstSearchJob extends DxramJob {
 		}
 	}
 
-	private void loadRootList() {
+	/**
+	 * Get the graph partition index stored by the GPI task.
+	 *
+	 * @return partition index of the graph
+	 */
+	private GraphPartitionIndex getPartitionIndex() {
+		NameserviceService nameserviceService = getService(NameserviceService.class);
+		ChunkService chunkService = getService(ChunkService.class);
+
+		long cid = nameserviceService.getChunkID(GraphLoadPartitionIndexTask.MS_PART_INDEX_IDENT + "0", 5000);
+		if (cid == ChunkID.INVALID_ID) {
+			throw new IllegalStateException("Graph partition index not found");
+		}
+
+		GraphPartitionIndex index = new GraphPartitionIndex();
+		index.setID(cid);
+		if (!chunkService.get().get(index)) {
+			throw new IllegalStateException("Getting the graph partition index failed");
+		}
+
+		return index;
+	}
+
+	/**
+	 * Get the chunk id of the source vertex in any partition.
+	 *
+	 * @param partitionIndex partition index of the graph
+	 * @return chunk id of the source vertex or VertexIdMap.NOT_FOUND
+	 */
+	private long findSourceVertex(GraphPartitionIndex partitionIndex) {
+		// partition loaded by this instance
+		VertexIdMap localMap = GraphalyticsOrderedEdgeList.VERTEX_ID_MAP;
+		if (localMap != null) {
+			long cid = localMap.getChunkId(sourceVertex);
+			if (cid != VertexIdMap.NOT_FOUND || partitionIndex.getTotalPartitionCount() == 1) {
+				return cid;
+			}
+		}
+
+		// other partitions: index of the vertex in the vertex file, mapped to the partition by the partition index
+		long index;
+		if (partitionIndex.hasDenseVertexIds()) {
+			index = sourceVertex - partitionIndex.getDenseMinVertexId();
+		} else {
+			try {
+				index = VertexIndex.read(Paths.get(vertexPath)).getIndex(sourceVertex);
+			} catch (IOException e) {
+				throw new UncheckedIOException("Reading the vertex file failed", e);
+			}
+		}
+
+		long cid = partitionIndex.rebaseGlobalVertexIdToLocalPartitionVertexId(index);
+		return cid == ChunkID.INVALID_ID ? VertexIdMap.NOT_FOUND : cid;
+	}
+
+	/**
+	 * Store the root list with the chunk id of the source vertex.
+	 *
+	 * @param partitionIndex partition index of the graph
+	 * @return true on success, false if the source vertex is unknown
+	 */
+	private boolean loadRootList(GraphPartitionIndex partitionIndex) {
 		NameserviceService nameserviceService = getService(NameserviceService.class);
 		ChunkService chunkService = getService(ChunkService.class);
 		ChunkLocalService chunkLocalService = getService(ChunkLocalService.class);
 
-		GraphRootList rootList = new GraphRootList(ChunkID.INVALID_ID,
-				new long[] { GraphalyticsOrderedEdgeList.VERTEX_ID_TO_CID.get(sourceVertex) }); // index starts with 0; offset per slave?
+		long rootCid = findSourceVertex(partitionIndex);
+		if (rootCid == VertexIdMap.NOT_FOUND) {
+			return false;
+		}
+
+		GraphRootList rootList = new GraphRootList(ChunkID.INVALID_ID, new long[] { rootCid });
 
         // store the root list for our current compute group
         if (chunkLocalService.createLocal().create(rootList) != 1) {
@@ -147,6 +226,7 @@ public final class BreadthFirstSearchJob extends DxramJob {
         		"Successfully loaded and stored root list, nameservice entry name %s:\n%s",
         		GraphLoadBFSRootListTask.MS_BFS_ROOTS + "0",
                 rootList);
+		return true;
 	}
 
 	private void loadOELTask() {
@@ -165,6 +245,10 @@ public final class BreadthFirstSearchJob extends DxramJob {
 		oelTask = new GraphLoadOrderedEdgeListTask();
 		oelTask.setLoadVertexPath(vertexPath);
 		oelTask.setLoadEdgePath(edgePath);
+		oelTask.setLoadThreadCount(platformConfig.getNumThreads());
+		oelTask.setInlineNeighbors(platformConfig.getInlineNeighbors());
+		oelTask.setPartitionStore(platformConfig.isPartitionStore());
+		oelTask.setCompressNeighbors(platformConfig.isCompressNeighbors());
 		TaskScript taskScript = new TaskScript(oelTask);
 		ms.submitTaskScript(taskScript, (short)0, taskListener);
 
@@ -176,6 +260,41 @@ public final class BreadthFirstSearchJob extends DxramJob {
 		}
 	}
 
+	/**
+	 * Merge the output parts written by the slaves (one per partition) into the output file.
+	 *
+	 * @param partCount number of parts
+	 */
+	private void mergeOutputParts(int partCount) {
+		// a missing part means the BFS failed on that slave, don't write an incomplete output
+		for (int i = 0; i < partCount; i++) {
+			if (!Files.exists(Paths.get(GraphAlgorithmBFSTask.getOutputPartPath(outputPath, i)))) {
+				throw new IllegalStateException(String.format("BFS output part %d of %s missing", i, outputPath));
+			}
+		}
+
+		try (OutputStream out = Files.newOutputStream(Paths.get(outputPath), StandardOpenOption.CREATE_NEW,
+				StandardOpenOption.WRITE)) {
+			for (int i = 0; i < partCount; i++) {
+				Path part = Paths.get(GraphAlgorithmBFSTask.getOutputPartPath(outputPath, i));
+				Files.copy(part, out);
+				Files.delete(part);
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException("Merging the output parts of " + outputPath + " failed", e);
+		}
+	}
+
+	/**
+	 * Release the vertex chunks pinned after loading and the partition store.
+	 */
+	private void releaseGraph() {
+		DirectVertex.setDepthColumn(null);
+		DirectVertex.unpinPartition();
+		GraphPartitionStore.release();
+		VertexProperties.release();
+	}
+
 	@Override
 	protected void run() {
 		LOG.error("RUN DXGraph-BFS algorithm...");
@@ -188,38 +307,21 @@ public final class BreadthFirstSearchJob extends DxramJob {
 		cls.reserveLocal().reserve(600000000);
 		// run task to load the graph partition index
 		submitGPITask();
-		// load graph into runner DXRAM instance
+		// load graph into the DXRAM instances of the slaves, one partition each
 		loadOELTask();
+		GraphPartitionIndex partitionIndex = getPartitionIndex();
 		// load root vertex into the temporary storage
-		loadRootList();
+		if (!loadRootList(partitionIndex)) {
+			releaseGraph();
+			throw new IllegalArgumentException(String.format("Source vertex %d not found in the graph", sourceVertex));
+		}
 		// run the BFSTask
 		// define runner as slave to run the task locally (debugging)
 		ProcTimeLog.start();
 		submitBFSTask();
 		ProcTimeLog.end();
-		// gather the results and create "expected" output
-		final StringBuilder output = new StringBuilder();
-
-		for (long vid : GraphalyticsOrderedEdgeList.VERTEX_ID_TO_CID.keySet()) {
-		    final long cid = GraphalyticsOrderedEdgeList.VERTEX_ID_TO_CID.get(vid);
-			Vertex v = new Vertex();
-			v.setID(cid);
-			cls.getLocal().get(v);
-			long depth = v.getDepth();
-			if (depth == -1) depth = Long.MAX_VALUE;
-			output.append(String.format("%d %d", vid, depth));
-			output.append('\n');
-			//LOG.info(String.format("Vertex %d has depth %d", vid, v.getUserData()));
-		}
-
-		try {
-            Files.write(
-                    Paths.get(outputPath),
-                    output.toString().getBytes(),
-                    StandardOpenOption.CREATE_NEW,
-                    StandardOpenOption.WRITE);
-        } catch (IOException e) {
-            LOG.error(e.getMessage());
-        }
+		releaseGraph();
+		// gather the results, every slave wrote the depths of its partition
+		mergeOutputParts(partitionIndex.getTotalPartitionCount());
 	}
 }
@@ -13,12 +13,25 @@
 
 package science.atlarge.graphalytics.dxram.algorithms.bfs;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.lang.management.GarbageCollectorMXBean;
 import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Phaser;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.LockSupport;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
@@ -28,7 +41,9 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import science.atlarge.graphalytics.dxram.graph.DXGraphMessageTypes;
+import science.atlarge.graphalytics.dxram.algorithms.bfs.front.AdaptiveFrontier;
 import science.atlarge.graphalytics.dxram.algorithms.bfs.front.ConcurrentBitVectorHybrid;
+import science.atlarge.graphalytics.dxram.algorithms.bfs.front.FrontierSlices;
 import science.atlarge.graphalytics.dxram.algorithms.bfs.messages.BFSMessages;
 import science.atlarge.graphalytics.dxram.algorithms.bfs.messages.BFSResultMessage;
 import science.atlarge.graphalytics.dxram.algorithms.bfs.messages.BFSTerminateMessage;
@@ -38,8 +53,12 @@ import science.atlarge.graphalytics.dxram.graph.data.BFSResult;
 import science.atlarge.graphalytics.dxram.graph.data.GraphPartitionIndex;
 import science.atlarge.graphalytics.dxram.graph.data.GraphRootList;
 import science.atlarge.graphalytics.dxram.graph.data.DirectVertex;
+import science.atlarge.graphalytics.dxram.graph.data.GraphPartitionStore;
+import science.atlarge.graphalytics.dxram.graph.data.Schema;
+import science.atlarge.graphalytics.dxram.graph.data.VertexProperties;
 import science.atlarge.graphalytics.dxram.graph.load.GraphLoadBFSRootListTask;
 import science.atlarge.graphalytics.dxram.graph.load.GraphLoadPartitionIndexTask;
+import science.atlarge.graphalytics.dxram.graph.load.oel.GraphalyticsOrderedEdgeList;
 
 import de.hhu.bsinfo.dxram.boot.BootService;
 import de.hhu.bsinfo.dxram.chunk.ChunkLocalService;
@@ -71,6 +90,16 @@ public class GraphAlgorithmBFSTask implements Task {
     private static final Logger LOGGER = LogManager.getFormatterLogger(GraphAlgorithmBFSTask.class.getSimpleName());
 
     private static final String MS_BARRIER_IDENT_0 = "BF0";
+    private static final int NEIGHBOR_BUFFER_SIZE = 1024;
+    private static final long ABORT_CHECK_INTERVAL_MS = 100;
+    // Beamer's heuristic: switch to bottom up once the frontier has more than 1/alpha of the unexplored edges,
+    // back to top down once it has less than 1/beta of all vertices
+    private static final int BEAMER_ALPHA = 14;
+    private static final int BEAMER_BETA = 24;
+    // longs per thread of the published statistics counters (vertex and edge count of a thread at the start). 128 bytes
+    // keep the slots of different threads on different cache lines without aligned array data and also out of the line
+    // pairs fetched by adjacent line prefetching
+    private static final int STATISTICS_STRIDE = 16;
 
     @Expose
     private String m_bfsRootNameserviceEntry = GraphLoadBFSRootListTask.MS_BFS_ROOTS + '0';
@@ -83,7 +112,13 @@ public class GraphAlgorithmBFSTask implements Task {
     @Expose
     private boolean m_markVertices = true;
     @Expose
+    private boolean m_directionOptimizing = false;
+    @Expose
+    private boolean m_liveStatistics = true;
+    @Expose
     private boolean m_abortBFSOnError = true;
+    @Expose
+    private String m_outputPath = "";
 
     private TaskContext m_ctx;
     private ChunkService m_chunkService;
@@ -95,6 +130,8 @@ public class GraphAlgorithmBFSTask implements Task {
 
     private short m_nodeId = NodeID.INVALID_ID;
     private GraphPartitionIndex m_graphPartitionIndex;
+    // depths of the local vertices (both storage modes), kept after the task for the output
+    private VertexProperties.Column m_depths;
 
     private BFS m_curBFS;
     private Lock m_signalLock = new ReentrantLock(false);
@@ -124,21 +161,66 @@ public class GraphAlgorithmBFSTask implements Task {
      *         Mark the actual vertices/data visited with the level. On false, we just remember if we have visited it
      * @param p_beamerMode
      *         Run the BFS algorithm with bottom up optimized mode (beamer). False to run top-down approach only
-     * @param p_beamerFormulaGraphEdgeDeg
-     *         Avg. edge degree of the graph (parameter on typical rmat generators). Used to determine top down or bottom up switching on beamer mode
      * @param p_abortBFSOnError
      *         Abort BFS execution on error or continue even on errors
      */
     public GraphAlgorithmBFSTask(final String p_bfsRootNameserviceEntry, final int p_vertexBatchSize, final int p_vertexMessageBatchSize,
-            final int p_numberOfThreadsPerNode, final boolean p_markVertices, final boolean p_abortBFSOnError) {
+            final int p_numberOfThreadsPerNode, final boolean p_markVertices, final boolean p_beamerMode, final boolean p_abortBFSOnError) {
         m_bfsRootNameserviceEntry = p_bfsRootNameserviceEntry;
         m_vertexBatchSize = p_vertexBatchSize;
         m_vertexMessageBatchSize = p_vertexMessageBatchSize;
         m_numberOfThreadsPerNode = p_numberOfThreadsPerNode;
         m_markVertices = p_markVertices;
+        m_directionOptimizing = p_beamerMode;
         m_abortBFSOnError = p_abortBFSOnError;
     }
 
+    /**
+     * Run the BFS algorithm with bottom up optimized mode (beamer). Requires the neighbor lists to contain the
+     * incoming edges as well, i.e. undirected graphs.
+     *
+     * @param p_beamerMode
+     *         False to run top-down approach only
+     */
+    public void setDirectionOptimizing(final boolean p_beamerMode) {
+        m_directionOptimizing = p_beamerMode;
+    }
+
+    /**
+     * Print the vertices/edges per second periodically while running BFS. The per second maximum and average in the
+     * result are available with live statistics only.
+     *
+     * @param p_liveStatistics
+     *         False to not run the statistics thread and not publish any counters while traversing
+     */
+    public void setLiveStatistics(final boolean p_liveStatistics) {
+        m_liveStatistics = p_liveStatistics;
+    }
+
+    /**
+     * Write the depths of the vertices of each partition to a part of the output, see getOutputPartPath.
+     *
+     * @param p_path
+     *         Path of the output, empty to not write any output
+     */
+    public void setOutputPath(final String p_path) {
+        m_outputPath = p_path;
+    }
+
+    /**
+     * Get the path of the output part written by a slave. The slaves write to the same directory,
+     * i.e. a shared file system for multiple nodes like for the graph files.
+     *
+     * @param p_outputPath
+     *         Path of the output
+     * @param p_slaveId
+     *         Id of the slave (= partition id)
+     * @return Path of the part of the slave
+     */
+    public static String getOutputPartPath(final String p_outputPath, final int p_slaveId) {
+        return p_outputPath + ".part" + p_slaveId;
+    }
+
     @Override
     public int execute(final TaskContext p_ctx) {
         m_ctx = p_ctx;
@@ -204,6 +286,21 @@ public class GraphAlgorithmBFSTask implements Task {
             return -2;
         }
 
+        VertexProperties properties = VertexProperties.get();
+        if (properties == null) {
+            // #if LOGGER >= ERROR
+            LOGGER.error("Vertex properties of the local partition not created, graph not loaded");
+            // #endif /* LOGGER >= ERROR */
+            return -6;
+        }
+
+        // depth column of the local vertices, all unvisited (-1)
+        Schema depthSchema = new Schema();
+        depthSchema.addEntry(DirectVertex.PROPERTY_DEPTH, Schema.Type.primitive(Schema.PrimitiveType.INT));
+        m_depths = properties.register(depthSchema)[0];
+        m_depths.fillInt(-1);
+        DirectVertex.setDepthColumn(m_depths);
+
         // get entry vertices for bfs
         long tmpStorageIdRootVertices = m_nameserviceService.getChunkID(m_bfsRootNameserviceEntry, 5000);
         if (tmpStorageIdRootVertices == ChunkID.INVALID_ID) {
@@ -308,9 +405,48 @@ public class GraphAlgorithmBFSTask implements Task {
 
         if (m_signalAbortTriggered) {
             return -5;
-        } else {
-            return 0;
         }
+
+        if (!m_outputPath.isEmpty() && !writeOutputPart()) {
+            return -7;
+        }
+
+        return 0;
+    }
+
+    /**
+     * Write the depths of the vertices of the local partition to the output part of this slave,
+     * one "<vertex id> <depth>" line per vertex. Unvisited vertices get the depth Long.MAX_VALUE.
+     *
+     * @return True on success, false on error
+     */
+    private boolean writeOutputPart() {
+        String path = getOutputPartPath(m_outputPath, m_ctx.getCtxData().getSlaveId());
+
+        try (BufferedWriter writer = Files.newBufferedWriter(Paths.get(path), StandardCharsets.US_ASCII)) {
+            GraphalyticsOrderedEdgeList.VERTEX_ID_MAP.forEach((p_vertexId, p_chunkId) -> {
+                long depth = DirectVertex.getDepth(p_chunkId);
+                if (depth == -1) {
+                    depth = Long.MAX_VALUE;
+                }
+
+                try {
+                    writer.write(Long.toString(p_vertexId));
+                    writer.write(' ');
+                    writer.write(Long.toString(depth));
+                    writer.newLine();
+                } catch (final IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (final IOException | UncheckedIOException e) {
+            // #if LOGGER >= ERROR
+            LOGGER.error("Writing output part %s failed: %s", path, e.getMessage());
+            // #endif /* LOGGER >= ERROR */
+            return false;
+        }
+
+        return true;
     }
 
     @Override
@@ -330,7 +466,8 @@ public class GraphAlgorithmBFSTask implements Task {
     public int sizeofObject() {
         return ObjectSizeUtil.sizeofString(m_bfsRootNameserviceEntry) +
                 3 * Integer.BYTES +
-                2 * ObjectSizeUtil.sizeofBoolean();
+                4 * ObjectSizeUtil.sizeofBoolean() +
+                ObjectSizeUtil.sizeofString(m_outputPath);
     }
 
     @Override
@@ -340,7 +477,10 @@ public class GraphAlgorithmBFSTask implements Task {
         p_exporter.writeInt(m_vertexMessageBatchSize);
         p_exporter.writeInt(m_numberOfThreadsPerNode);
         p_exporter.writeBoolean(m_markVertices);
+        p_exporter.writeBoolean(m_directionOptimizing);
+        p_exporter.writeBoolean(m_liveStatistics);
         p_exporter.writeBoolean(m_abortBFSOnError);
+        p_exporter.writeString(m_outputPath);
     }
 
     @Override
@@ -350,7 +490,10 @@ public class GraphAlgorithmBFSTask implements Task {
         m_vertexMessageBatchSize = p_importer.readInt(m_vertexMessageBatchSize);
         m_numberOfThreadsPerNode = p_importer.readInt(m_numberOfThreadsPerNode);
         m_markVertices = p_importer.readBoolean(m_markVertices);
+        m_directionOptimizing = p_importer.readBoolean(m_directionOptimizing);
+        m_liveStatistics = p_importer.readBoolean(m_liveStatistics);
         m_abortBFSOnError = p_importer.readBoolean(m_abortBFSOnError);
+        m_outputPath = p_importer.readString(m_outputPath);
     }
 
     /**
@@ -362,17 +505,24 @@ public class GraphAlgorithmBFSTask implements Task {
     private class BFS implements MessageReceiver {
         private BFSResult m_bfsLocalResult;
 
-        private ConcurrentBitVectorHybrid m_curFrontier;
-        private ConcurrentBitVectorHybrid m_nextFrontier;
+        private AdaptiveFrontier m_curFrontier;
+        private AdaptiveFrontier m_nextFrontier;
         private ConcurrentBitVectorHybrid m_visitedFrontier;
         private boolean m_markVisited;
 
         private BFSThread[] m_threads;
+        // parties: BFS threads and BFS.execute, phases alternate between the start and the end of a level
+        private Phaser m_levelPhaser;
+        // slices of the frontier (or visited vector on bottom up) of the current level claimed by the BFS threads
+        private FrontierSlices m_frontierSlices;
+        // null without live statistics
         private StatisticsThread m_statisticsThread;
 
         private SyncBFSFinished m_syncBFSFinished;
 
         private AtomicInteger m_bfsSlavesEmptyNextFrontiers = new AtomicInteger(0);
+        // thread running execute, unparked by the message handler once all slaves reported their next frontier
+        private volatile Thread m_executeThread;
         private volatile boolean m_terminateBfs = true;
         private ReentrantReadWriteLock m_remoteDelegatesForNextFrontier = new ReentrantReadWriteLock(false);
 
@@ -380,6 +530,10 @@ public class GraphAlgorithmBFSTask implements Task {
 
         private AtomicLong m_nextFrontVertices = new AtomicLong(0);
         private AtomicLong m_nextFrontEdges = new AtomicLong(0);
+        private AtomicLong m_visitedEdges = new AtomicLong(0);
+
+        // segments of high degree vertices claimed by the BFS threads independently
+        private HubSegmentQueue m_hubSegments = new HubSegmentQueue();
 
         /**
          * Constructor
@@ -415,8 +569,9 @@ public class GraphAlgorithmBFSTask implements Task {
          *         information with the graph.
          */
         void init(final long p_totalVertexCount, final boolean p_verticesMarkVisited) {
-            m_curFrontier = new ConcurrentBitVectorHybrid(p_totalVertexCount, 1);
-            m_nextFrontier = new ConcurrentBitVectorHybrid(p_totalVertexCount, 1);
+            // BFS threads have their own queues (writer id = thread id) while the frontiers are sparse
+            m_curFrontier = new AdaptiveFrontier(p_totalVertexCount, 1, m_numberOfThreadsPerNode);
+            m_nextFrontier = new AdaptiveFrontier(p_totalVertexCount, 1, m_numberOfThreadsPerNode);
             m_visitedFrontier = new ConcurrentBitVectorHybrid(p_totalVertexCount, 1);
 
             m_markVisited = p_verticesMarkVisited;
@@ -425,7 +580,9 @@ public class GraphAlgorithmBFSTask implements Task {
             m_networkService.registerReceiver(DXGraphMessageTypes.BFS_MESSAGES_TYPE, BFSMessages.SUBTYPE_BFS_TERMINATE_MESSAGE, this);
             m_networkService.registerReceiver(DXGraphMessageTypes.BFS_MESSAGES_TYPE, BFSMessages.SUBTYPE_BFS_RESULT_MESSAGE, this);
 
-            m_statisticsThread = new StatisticsThread();
+            if (m_liveStatistics) {
+                m_statisticsThread = new StatisticsThread(m_numberOfThreadsPerNode);
+            }
 
             m_syncBFSFinished = new SyncBFSFinished(m_ctx.getCtxData().getSlaveNodeIds(), m_ctx.getCtxData().getSlaveNodeIds()[m_ctx.getCtxData().getSlaveId()],
                     m_networkService);
@@ -435,9 +592,12 @@ public class GraphAlgorithmBFSTask implements Task {
             // #endif /* LOGGER >= INFO */
 
             m_threads = new BFSThread[m_numberOfThreadsPerNode];
+            m_levelPhaser = new Phaser(m_threads.length + 1);
+            m_frontierSlices = new FrontierSlices(m_threads.length);
             for (int i = 0; i < m_threads.length; i++) {
                 m_threads[i] = new BFSThread(i, m_vertexBatchSize, m_vertexMessageBatchSize, m_curFrontier, m_nextFrontier, m_visitedFrontier,
-                        m_statisticsThread.m_sharedVertexCounter, m_statisticsThread.m_sharedEdgeCounter, m_syncBFSFinished);
+                        m_statisticsThread != null ? m_statisticsThread.m_counters : null, m_syncBFSFinished, m_hubSegments,
+                        m_levelPhaser, m_frontierSlices);
                 m_threads[i].start();
             }
 
@@ -454,11 +614,19 @@ public class GraphAlgorithmBFSTask implements Task {
         void execute(final long p_entryVertex) {
             long numEdgesInNextFrontier;
 
+            m_executeThread = Thread.currentThread();
+
             // values to calculate top down <-> bottom up switching
             long fullGraphVertexCount = m_graphPartitionIndex.calcTotalVertexCount();
             long fullGraphEdgeCount = m_graphPartitionIndex.calcTotalEdgeCount();
             long fullGraphNextFrontVertexCount = 0;
             long fullGraphNextFrontEdgeCount = 0;
+            // edges of all vertices visited so far (gathered, same on all nodes)
+            long fullGraphVisitedEdgeCount = 0;
+            // edges of the root, known on the node owning it only, gathered with the first level
+            long unreportedVisitedEdges = 0;
+            // first level is always top down, all nodes decide on the gathered counts to run the same direction
+            boolean bottomUp = false;
 
             if (p_entryVertex != ChunkID.INVALID_ID) {
                 // #if LOGGER >= INFO
@@ -496,52 +664,59 @@ public class GraphAlgorithmBFSTask implements Task {
                 fullGraphNextFrontVertexCount++;
                 fullGraphNextFrontEdgeCount += numEdgesInNextFrontier;
                 m_bfsLocalResult.m_totalVisitedEdges += numEdgesInNextFrontier;
+                unreportedVisitedEdges = numEdgesInNextFrontier;
             }
 
-            m_curFrontier.popFrontReset();
+            m_curFrontier.seal(false);
 
             // root already done
             m_bfsLocalResult.m_totalBFSDepth++;
-            m_statisticsThread.start();
+            long startTime = System.currentTimeMillis();
+            if (m_statisticsThread != null) {
+                m_statisticsThread.start();
+            }
 
             while (true) {
                 LOGGER.info("BFS iteration %s, curFront size: %d, numEdgesInFrontier %d, vertex count %d, edge count %d",
-                        "TOP DOWN", fullGraphNextFrontVertexCount, fullGraphNextFrontEdgeCount, fullGraphVertexCount,
-                        fullGraphEdgeCount);
+                        bottomUp ? "BOTTOM UP" : "TOP DOWN", fullGraphNextFrontVertexCount, fullGraphNextFrontEdgeCount,
+                        fullGraphVertexCount, fullGraphEdgeCount);
+
+                // bottom up: process the vertices not visited, yet, instead of the current frontier
+                if (bottomUp) {
+                    m_frontierSlices.reset(m_visitedFrontier, true);
+                } else {
+                    m_frontierSlices.reset(m_curFrontier);
+                }
 
                 // kick off threads with current frontier
                 for (BFSThread thread : m_threads) {
                     // update current level for marking
                     thread.setCurrentBFSDepthLevel(m_bfsLocalResult.m_totalBFSDepth);
-                    thread.runIteration();
+                    thread.prepareIteration(bottomUp);
+                }
+
+                long levelStartNs = System.nanoTime();
+                m_levelPhaser.arriveAndAwaitAdvance();
+
+                // wait until threads are done with their current iteration
+                if (!awaitIterationFinished()) {
+                    return;
                 }
 
+                long levelTimeNs = System.nanoTime() - levelStartNs;
+
                 // reset local counter
                 numEdgesInNextFrontier = 0;
+                long maxThreadTimeNs = 0;
 
-                // wait actively until threads are done with their current iteration
-                {
-                    int t = 0;
-                    while (t < m_threads.length) {
-                        if (!m_threads[t].hasIterationFinished()) {
-                            try {
-                                Thread.sleep(2);
-                            } catch (final InterruptedException ignored) {
-                            }
-                            if (m_signalAbortTriggered) {
-                                return;
-                            }
-
-                            continue;
-                        }
-                        numEdgesInNextFrontier += m_threads[t].getEdgeCountNextFrontier();
-                        t++;
-                    }
+                for (BFSThread thread : m_threads) {
+                    numEdgesInNextFrontier += thread.getEdgeCountNextFrontier();
+                    maxThreadTimeNs = Math.max(maxThreadTimeNs, thread.getIterationTimeNs());
                 }
 
                 // #if LOGGER >= INFO
-                LOGGER.info("BFS Level %d finished, verts %d, edges %d so far visited/traversed", m_bfsLocalResult.m_totalBFSDepth,
-                        m_statisticsThread.getTotalVertexCount(), m_statisticsThread.getTotalEdgeCount());
+                LOGGER.info("BFS Level %d finished in %d us (slowest thread %d us), verts %d, edges %d so far visited/traversed",
+                        m_bfsLocalResult.m_totalBFSDepth, levelTimeNs / 1000, maxThreadTimeNs / 1000, getTotalVertexCount(), getTotalEdgeCount());
                 // #endif /* LOGGER >= INFO */
 
                 // --------------------------------
@@ -573,13 +748,15 @@ public class GraphAlgorithmBFSTask implements Task {
                 {
                     m_nextFrontVertices.addAndGet(m_nextFrontier.size());
                     m_nextFrontEdges.addAndGet(numEdgesInNextFrontier);
+                    m_visitedEdges.addAndGet(unreportedVisitedEdges);
 
                     // inform all other slaves about our next frontier size to determine termination
                     short ownId = m_ctx.getCtxData().getSlaveId();
                     short[] slavesNodeIds = m_ctx.getCtxData().getSlaveNodeIds();
                     for (int i = 0; i < slavesNodeIds.length; i++) {
                         if (i != ownId) {
-                            BFSTerminateMessage msg = new BFSTerminateMessage(slavesNodeIds[i], m_nextFrontier.size(), numEdgesInNextFrontier);
+                            BFSTerminateMessage msg = new BFSTerminateMessage(slavesNodeIds[i], m_nextFrontier.size(), numEdgesInNextFrontier,
+                                    unreportedVisitedEdges);
                             // System.out.println("<<<<< BFSTerminateMessage " + NodeID.toHexString(slavesNodeIds[i]));
                             try {
                                 m_networkService.sendMessage(msg);
@@ -598,14 +775,13 @@ public class GraphAlgorithmBFSTask implements Task {
                     // wait until everyone reported the next frontier state/termination
                     // System.out.println("!!!!! " + getSlaveNodeIds().length);
                     while (!m_bfsSlavesEmptyNextFrontiers.compareAndSet(m_ctx.getCtxData().getSlaveNodeIds().length - 1, 0)) {
-                        try {
-                            Thread.sleep(2);
-                        } catch (InterruptedException e) {
-                        }
+                        LockSupport.park(this);
                     }
 
                     fullGraphNextFrontVertexCount = m_nextFrontVertices.getAndSet(0);
                     fullGraphNextFrontEdgeCount = m_nextFrontEdges.getAndSet(0);
+                    fullGraphVisitedEdgeCount += m_visitedEdges.getAndSet(0);
+                    unreportedVisitedEdges = 0;
                 }
                 // --------------------------------
 
@@ -621,16 +797,29 @@ public class GraphAlgorithmBFSTask implements Task {
                 // reset for next run
                 m_terminateBfs = true;
 
+                if (m_directionOptimizing) {
+                    fullGraphVisitedEdgeCount += fullGraphNextFrontEdgeCount;
+
+                    if (!bottomUp) {
+                        long unexploredEdges = Math.max(0, fullGraphEdgeCount - fullGraphVisitedEdgeCount);
+                        bottomUp = fullGraphNextFrontEdgeCount > unexploredEdges / BEAMER_ALPHA;
+                    } else {
+                        bottomUp = fullGraphNextFrontVertexCount >= fullGraphVertexCount / BEAMER_BETA;
+                    }
+                }
+
                 // don't allow remote nodes to add delegates to our frontiers to avoid
                 // data race on frontier swap
                 m_remoteDelegatesForNextFrontier.writeLock().lock();
 
                 // all nodes are finished, frontier swap
-                ConcurrentBitVectorHybrid tmp = m_curFrontier;
+                AdaptiveFrontier tmp = m_curFrontier;
                 m_curFrontier = m_nextFrontier;
                 m_nextFrontier = tmp;
+                // merge the per thread queues once, bottom up looks up the parents in the current frontier and
+                // requires the bitmap
+                m_curFrontier.seal(bottomUp);
                 m_nextFrontier.reset();
-                m_curFrontier.popFrontReset();
                 m_visitedFrontier.popFrontReset();
 
                 // also swap the references of all threads!
@@ -649,10 +838,20 @@ public class GraphAlgorithmBFSTask implements Task {
                 m_bfsLocalResult.m_totalBFSDepth++;
             }
 
-            m_statisticsThread.shutdown();
-            try {
-                m_statisticsThread.join();
-            } catch (final InterruptedException ignored) {
+            m_bfsLocalResult.m_totalTimeMs = System.currentTimeMillis() - startTime;
+
+            if (m_statisticsThread != null) {
+                m_statisticsThread.shutdown();
+                try {
+                    m_statisticsThread.join();
+                } catch (final InterruptedException ignored) {
+                }
+
+                m_bfsLocalResult.m_maxTraversedVertsPerSecond = m_statisticsThread.getMaxVerticesVisitedPerSec();
+                m_bfsLocalResult.m_maxTraversedEdgesPerSecond = m_statisticsThread.getMaxEdgesTraversedPerSec();
+                m_bfsLocalResult.m_avgTraversedVertsPerSecond = m_statisticsThread.getAvgVerticesPerSec();
+                m_bfsLocalResult.m_avgTraversedEdgesPerSecond = m_statisticsThread.getAvgEdgesPerSec();
+                m_statisticsThread = null;
             }
 
             // collect further results
@@ -661,15 +860,59 @@ public class GraphAlgorithmBFSTask implements Task {
             m_bfsLocalResult.m_graphPartitionSizeVertices = m_graphPartitionIndex.getPartitionIndex(m_ctx.getCtxData().getSlaveId()).getVertexCount();
             m_bfsLocalResult.m_graphPartitionSizeEdges = m_graphPartitionIndex.getPartitionIndex(m_ctx.getCtxData().getSlaveId()).getEdgeCount();
             m_bfsLocalResult.m_totalVisitedVertices = m_visitedFrontier.size();
-            m_bfsLocalResult.m_totalVerticesTraversed = m_statisticsThread.getTotalVertexCount();
-            m_bfsLocalResult.m_totalEdgesTraversed = m_statisticsThread.getTotalEdgeCount();
-            m_bfsLocalResult.m_maxTraversedVertsPerSecond = m_statisticsThread.getMaxVerticesVisitedPerSec();
-            m_bfsLocalResult.m_maxTraversedEdgesPerSecond = m_statisticsThread.getMaxEdgesTraversedPerSec();
-            m_bfsLocalResult.m_avgTraversedVertsPerSecond = m_statisticsThread.getAvgVerticesPerSec();
-            m_bfsLocalResult.m_avgTraversedEdgesPerSecond = m_statisticsThread.getAvgEdgesPerSec();
-            m_bfsLocalResult.m_totalTimeMs = m_statisticsThread.getTotalTimeMs();
-
-            m_statisticsThread = null;
+            m_bfsLocalResult.m_totalVerticesTraversed = getTotalVertexCount();
+            m_bfsLocalResult.m_totalEdgesTraversed = getTotalEdgeCount();
+        }
+
+        /**
+         * Get the vertex visited count of all BFS threads. Exact between iterations only.
+         *
+         * @return Total vertex visited count
+         */
+        private long getTotalVertexCount() {
+            long count = 0;
+            for (BFSThread thread : m_threads) {
+                count += thread.getVertexCount();
+            }
+
+            return count;
+        }
+
+        /**
+         * Get the edge traversed count of all BFS threads. Exact between iterations only.
+         *
+         * @return Total edge traversed count
+         */
+        private long getTotalEdgeCount() {
+            long count = 0;
+            for (BFSThread thread : m_threads) {
+                count += thread.getEdgeCount();
+            }
+
+            return count;
+        }
+
+        /**
+         * Wait until all BFS threads finished the current iteration, i.e. the end of level phase is done.
+         *
+         * @return False if the BFS was aborted (signal or failed thread)
+         */
+        private boolean awaitIterationFinished() {
+            int phase = m_levelPhaser.arrive();
+
+            while (phase >= 0) {
+                try {
+                    m_levelPhaser.awaitAdvanceInterruptibly(phase, ABORT_CHECK_INTERVAL_MS, TimeUnit.MILLISECONDS);
+                    return !m_levelPhaser.isTerminated();
+                } catch (final TimeoutException ignored) {
+                    if (m_signalAbortTriggered) {
+                        return false;
+                    }
+                } catch (final InterruptedException ignored) {
+                }
+            }
+
+            return false;
         }
 
         /**
@@ -691,6 +934,9 @@ public class GraphAlgorithmBFSTask implements Task {
                 thread.exitThread();
             }
 
+            // release threads waiting for the next level
+            m_levelPhaser.forceTermination();
+
             // #if LOGGER >= DEBUG
             LOGGER.debug("Joining BFS threads...");
             // #endif /* LOGGER >= DEBUG */
@@ -742,7 +988,7 @@ public class GraphAlgorithmBFSTask implements Task {
             // this determines whether the message comes from a node running top down or bottom up approach
             if (p_message.getNumNeighborsInBatch() > 0) {
                 // bottom up approach
-                VerticesForNextFrontierMessage reply = new VerticesForNextFrontierMessage(p_message.getSource(), m_vertexBatchSize);
+                VerticesForNextFrontierMessage reply = new VerticesForNextFrontierMessage(p_message.getSource(), p_message.getNumVerticesInBatch());
                 long vertexId = p_message.getVertex();
                 long neighborId = p_message.getNeighbor();
                 while (vertexId != -1) {
@@ -827,50 +1073,53 @@ public class GraphAlgorithmBFSTask implements Task {
 
             m_nextFrontVertices.addAndGet(nextFrontVerts);
             m_nextFrontEdges.addAndGet(nextFrontEdges);
+            m_visitedEdges.addAndGet(p_message.getVisitedEdges());
 
-            m_bfsSlavesEmptyNextFrontiers.incrementAndGet();
+            if (m_bfsSlavesEmptyNextFrontiers.incrementAndGet() == m_ctx.getCtxData().getSlaveNodeIds().length - 1) {
+                LockSupport.unpark(m_executeThread);
+            }
         }
 
         /**
-         * Separate thread printing local statistics of the current BFS run periodically
+         * Separate thread printing local statistics of the current BFS run periodically. The BFS threads count
+         * locally and publish their counts to their own (padded) slots of the counters, aggregated by this thread.
          */
         class StatisticsThread extends Thread {
 
             private volatile boolean m_run = true;
-            private AtomicLong m_sharedVertexCounter;
-            private AtomicLong m_sharedEdgeCounter;
+            // per BFS thread: vertex visited count, edge traversed count, padding
+            private AtomicLongArray m_counters;
             private long m_maxVerticesPerSec;
             private long m_maxEdgesPerSec;
             private long m_avgVerticesPerSec;
             private long m_avgEdgesPerSec;
-            private long m_totalTimeMs;
 
             /**
              * Constructor
+             *
+             * @param p_threadCount
+             *         Number of BFS threads publishing counts
              */
-            StatisticsThread() {
-                m_sharedVertexCounter = new AtomicLong(0);
-                m_sharedEdgeCounter = new AtomicLong(0);
+            StatisticsThread(final int p_threadCount) {
+                m_counters = new AtomicLongArray(p_threadCount * STATISTICS_STRIDE);
                 m_maxVerticesPerSec = 0;
                 m_maxEdgesPerSec = 0;
             }
 
             /**
-             * Get the currently total vertex visited count.
+             * Sum up a counter of all BFS threads.
              *
-             * @return Current total vertex visited count.
+             * @param p_counter
+             *         Index of the counter in the slot of a thread
+             * @return Sum of the last published counts
              */
-            long getTotalVertexCount() {
-                return m_sharedVertexCounter.get();
-            }
+            private long sumCounters(final int p_counter) {
+                long sum = 0;
+                for (int i = p_counter; i < m_counters.length(); i += STATISTICS_STRIDE) {
+                    sum += m_counters.get(i);
+                }
 
-            /**
-             * Get the currently total edge traversed count.
-             *
-             * @return Current total edge traversed count.
-             */
-            long getTotalEdgeCount() {
-                return m_sharedEdgeCounter.get();
+                return sum;
             }
 
             /**
@@ -909,15 +1158,6 @@ public class GraphAlgorithmBFSTask implements Task {
                 return m_avgEdgesPerSec;
             }
 
-            /**
-             * Get the total running time in ms.
-             *
-             * @return Total running time.
-             */
-            long getTotalTimeMs() {
-                return m_totalTimeMs;
-            }
-
             /**
              * Shutdown the statistics thread.
              */
@@ -928,15 +1168,15 @@ public class GraphAlgorithmBFSTask implements Task {
 
             @Override
             public void run() {
-                long lastValueVertexCounter = m_sharedVertexCounter.get();
-                long lastValueEdgeCounter = m_sharedEdgeCounter.get();
+                long lastValueVertexCounter = sumCounters(0);
+                long lastValueEdgeCounter = sumCounters(1);
                 long avgCounter = 1;
                 long avgVertsSum = 0;
                 long avgEdgesSum = 0;
                 long startTime = System.currentTimeMillis();
                 while (m_run) {
-                    long valueVertexCounter = m_sharedVertexCounter.get();
-                    long valueEdgeCounter = m_sharedEdgeCounter.get();
+                    long valueVertexCounter = sumCounters(0);
+                    long valueEdgeCounter = sumCounters(1);
 
                     long verticesPerSec = valueVertexCounter - lastValueVertexCounter;
                     long edgesPerSec = valueEdgeCounter - lastValueEdgeCounter;
@@ -954,10 +1194,8 @@ public class GraphAlgorithmBFSTask implements Task {
                     m_avgVerticesPerSec = avgVertsSum / avgCounter;
                     m_avgEdgesPerSec = avgEdgesSum / avgCounter;
 
-                    m_totalTimeMs = System.currentTimeMillis() - startTime;
-
                     String str = "";
-                    str += "[Running time (ms): " + m_totalTimeMs + ']';
+                    str += "[Running time (ms): " + (System.currentTimeMillis() - startTime) + ']';
                     str += "[Vertices/sec: " + verticesPerSec + ']';
                     str += "[Edges/sec: " + edgesPerSec + ']';
                     str += "[MaxVerts/sec: " + m_maxVerticesPerSec + ']';
@@ -980,7 +1218,6 @@ public class GraphAlgorithmBFSTask implements Task {
                     try {
                         Thread.sleep(1000);
                     } catch (final InterruptedException ignored) {
-                        m_totalTimeMs = System.currentTimeMillis() - startTime;
                     }
                 }
             }
@@ -994,8 +1231,8 @@ public class GraphAlgorithmBFSTask implements Task {
 
         private int m_id = -1;
         private int m_vertexMessageBatchSize;
-        private ConcurrentBitVectorHybrid m_curFrontier;
-        private ConcurrentBitVectorHybrid m_nextFrontier;
+        private AdaptiveFrontier m_curFrontier;
+        private AdaptiveFrontier m_nextFrontier;
         private ConcurrentBitVectorHybrid m_visitedFrontier;
 
         private short m_nodeId;
@@ -1003,15 +1240,31 @@ public class GraphAlgorithmBFSTask implements Task {
         private int m_currentDepthLevel;
         private VerticesForNextFrontierMessage[] m_remoteMessages = new VerticesForNextFrontierMessage[NodeID.MAX_ID];
 
-        private volatile boolean m_runIteration;
+        // iteration parameters, published to the thread by the level phaser
+        private boolean m_bottomUpIteration;
         private volatile boolean m_exitThread;
-        private AtomicLong m_edgeCountNextFrontier = new AtomicLong(0);
+        private long m_edgeCountNextFrontier;
+        private long m_iterationTimeNs;
 
-        private AtomicLong m_sharedVertexCounter;
-        private AtomicLong m_sharedEdgeCounter;
+        private Phaser m_levelPhaser;
+        private FrontierSlices.Reader m_frontierReader;
+
+        // counted locally, published to the padded slot of the thread for the statistics thread (null if disabled)
+        private long m_vertexCount;
+        private long m_edgeCount;
+        private AtomicLongArray m_statisticsCounters;
+        private int m_statisticsSlot;
 
         private SyncBFSFinished m_syncBFSFinished;
 
+        private HubSegmentQueue m_hubSegments;
+
+        // reused for every vertex, no allocations when expanding vertices
+        private DirectVertex.NeighborCursor m_neighborCursor = new DirectVertex.NeighborCursor();
+        private long[] m_neighborBuffer = new long[NEIGHBOR_BUFFER_SIZE];
+        // store of the local partition (split neighbor lists), null if stored as one chunk per vertex
+        private GraphPartitionStore m_store = GraphPartitionStore.get();
+
         /**
          * Constructor
          *
@@ -1028,14 +1281,21 @@ public class GraphAlgorithmBFSTask implements Task {
          *         Shared instance with other threads of the next frontier
          * @param p_visitedFrontierShared
          *         Shared instance with other threads of the visited frontier.
-         * @param p_sharedVertexCounter
-         *         Shared instance with other threads to count visited vertices
-         * @param p_sharedEdgeCounter
-         *         Shared instance with other threads to count traversed edges
+         * @param p_statisticsCounters
+         *         Counters of the statistics thread to publish the vertex and edge counts to, null to not publish
+         * @param p_syncBFSFinished
+         *         Shared instance to sync the end of a BFS level with other nodes
+         * @param p_hubSegments
+         *         Shared queue of neighbor segments of high degree vertices
+         * @param p_levelPhaser
+         *         Shared phaser to start and finish the iterations (levels) with the other threads and BFS.execute
+         * @param p_frontierSlices
+         *         Shared slices of the vertices to process in the current iteration
          */
-        BFSThread(final int p_id, final int p_vertexBatchSize, final int p_vertexMessageBatchSize, final ConcurrentBitVectorHybrid p_curFrontierShared,
-                final ConcurrentBitVectorHybrid p_nextFrontierShared, final ConcurrentBitVectorHybrid p_visitedFrontierShared,
-                final AtomicLong p_sharedVertexCounter, final AtomicLong p_sharedEdgeCounter, final SyncBFSFinished p_syncBFSFinished) {
+        BFSThread(final int p_id, final int p_vertexBatchSize, final int p_vertexMessageBatchSize, final AdaptiveFrontier p_curFrontierShared,
+                final AdaptiveFrontier p_nextFrontierShared, final ConcurrentBitVectorHybrid p_visitedFrontierShared,
+                final AtomicLongArray p_statisticsCounters, final SyncBFSFinished p_syncBFSFinished,
+                final HubSegmentQueue p_hubSegments, final Phaser p_levelPhaser, final FrontierSlices p_frontierSlices) {
             super("BFSThread-" + p_id);
 
             m_id = p_id;
@@ -1052,10 +1312,14 @@ public class GraphAlgorithmBFSTask implements Task {
 //                // TODO m_vertexBatch[i].setWriteUserDataOnly(true);
 //            }
 
-            m_sharedVertexCounter = p_sharedVertexCounter;
-            m_sharedEdgeCounter = p_sharedEdgeCounter;
+            m_statisticsCounters = p_statisticsCounters;
+            m_statisticsSlot = p_id * STATISTICS_STRIDE;
 
             m_syncBFSFinished = p_syncBFSFinished;
+
+            m_hubSegments = p_hubSegments;
+            m_levelPhaser = p_levelPhaser;
+            m_frontierReader = new FrontierSlices.Reader(p_frontierSlices, p_id);
         }
 
         /**
@@ -1069,14 +1333,14 @@ public class GraphAlgorithmBFSTask implements Task {
         }
 
         /**
-         * Trigger running a single iteration until all vertices of the current frontier are processed.
+         * Prepare the next iteration, started by advancing the level phaser.
          *
          * @param p_bottomUpIteration
          *         BFS direction for this iteration
          */
-        void runIteration() {
-            m_edgeCountNextFrontier.set(0);
-            m_runIteration = true;
+        void prepareIteration(final boolean p_bottomUpIteration) {
+            m_edgeCountNextFrontier = 0;
+            m_bottomUpIteration = p_bottomUpIteration;
         }
 
         /**
@@ -1085,29 +1349,47 @@ public class GraphAlgorithmBFSTask implements Task {
          * @return Edge count of the the vertices added to the next frontier.
          */
         long getEdgeCountNextFrontier() {
-            return m_edgeCountNextFrontier.get();
+            return m_edgeCountNextFrontier;
         }
 
         /**
-         * Check if the currently running iteration has finished.
+         * Get the number of vertices visited by this thread so far.
          *
-         * @return True if finished, false if still running.
+         * @return Vertex visited count
          */
-        boolean hasIterationFinished() {
-            return !m_runIteration;
+        long getVertexCount() {
+            return m_vertexCount;
+        }
+
+        /**
+         * Get the number of edges traversed by this thread so far.
+         *
+         * @return Edge traversed count
+         */
+        long getEdgeCount() {
+            return m_edgeCount;
+        }
+
+        /**
+         * Get the time the thread spent on the last iteration (until it ran out of work).
+         *
+         * @return Time in ns
+         */
+        long getIterationTimeNs() {
+            return m_iterationTimeNs;
         }
 
         /**
          * Trigger a frontier swap. Swap cur and next to prepare for next iteration.
          */
         void triggerFrontierSwap() {
-            ConcurrentBitVectorHybrid tmp = m_curFrontier;
+            AdaptiveFrontier tmp = m_curFrontier;
             m_curFrontier = m_nextFrontier;
             m_nextFrontier = tmp;
         }
 
         /**
-         * Trigger thread exit.
+         * Trigger thread exit, the thread exits on the next phase or termination of the level phaser.
          */
         void exitThread() {
             m_exitThread = true;
@@ -1115,56 +1397,78 @@ public class GraphAlgorithmBFSTask implements Task {
 
         @Override
         public void run() {
-            boolean enterIdle = false;
-            while (true) {
-                do {
-                    if (m_exitThread) {
-                        return;
-                    }
+            // phases of the level phaser alternate between the start and the end of a level
+            while (m_levelPhaser.arriveAndAwaitAdvance() >= 0 && !m_exitThread) {
+                long start = System.nanoTime();
+                boolean success = runIteration();
+                m_iterationTimeNs = System.nanoTime() - start;
+
+                if (!success) {
+                    // don't leave BFS.execute and the other threads waiting for this one, the run is aborted
+                    m_levelPhaser.forceTermination();
+                    return;
+                }
 
-                    if (enterIdle) {
-                        enterIdle = false;
-                        m_runIteration = false;
-                    }
+                m_levelPhaser.arriveAndAwaitAdvance();
+            }
+        }
 
-                    if (!m_runIteration) {
-                        try {
-                            Thread.sleep(2);
-                        } catch (final InterruptedException ignored) {
-                        }
+        /**
+         * Run a single iteration until all vertices of the current frontier (or all unvisited vertices on bottom up)
+         * are processed.
+         *
+         * @return False if sending a message failed and the BFS has to be aborted
+         */
+        private boolean runIteration() {
+            m_frontierReader.reset();
+            boolean bottomUp = m_bottomUpIteration;
+
+            while (true) {
+                publishStatistics();
+
+                // help processing segments of high degree vertices first
+                HubSegment segment = m_hubSegments.poll();
+                if (segment != null) {
+                    m_neighborCursor.openSegment(segment.m_vertex, segment.m_address, segment.m_index, segment.m_neighborsLength);
+                    boolean processed = processNeighbors(segment.m_vertex);
+                    m_hubSegments.complete();
+                    if (!processed) {
+                        return false;
                     }
-                } while (!m_runIteration);
 
-                // --------------------------------------------------
+                    continue;
+                }
 
-                int validVertsInBatch = 0;
+                // --------------------------------------------------
 
-                m_curFrontier.popFrontLock();
-                for (int i = 0; i < m_vertexBatch.length; i++) {
-                    long tmp = m_curFrontier.popFront();
-                    if (tmp != -1) {
-                        m_vertexBatch[i] = ChunkID.getChunkID(m_nodeId, tmp);
-                        validVertsInBatch++;
-                    } else {
-                        if (validVertsInBatch == 0) {
-                            enterIdle = true;
-                            break;
-                        }
-                        m_vertexBatch[i] = ChunkID.INVALID_ID;
-                    }
+                // claim (or steal) slices of the frontier lock free, local ids are turned into chunk ids in place
+                int validVertsInBatch = m_frontierReader.read(m_vertexBatch);
+                for (int i = 0; i < validVertsInBatch; i++) {
+                    m_vertexBatch[i] = ChunkID.getChunkID(m_nodeId, m_vertexBatch[i]);
                 }
-                m_curFrontier.popFrontUnlock();
 
                 // --------------------------------------------------
 
                 if (validVertsInBatch == 0) {
+                    // frontier is empty but other threads might still queue or process segments,
+                    // wait for new segments or the last one to complete
+                    if (m_hubSegments.hasPending()) {
+                        m_hubSegments.awaitChange(ABORT_CHECK_INTERVAL_MS);
+                        if (m_levelPhaser.isTerminated()) {
+                            // aborted by another thread
+                            return false;
+                        }
+
+                        continue;
+                    }
+
                     // make sure to send out remaining messages which have not reached the
                     // batch size, yet (because they will never reach it in this round)
                     short[] slaveNodeIds = m_ctx.getCtxData().getSlaveNodeIds();
                     for (short slaveNodeId : slaveNodeIds) {
                         if (slaveNodeId != m_nodeId) {
                             VerticesForNextFrontierMessage msg = m_remoteMessages[slaveNodeId & 0xFFFF];
-                            if (msg != null && msg.getBatchSize() > 0) {
+                            if (msg != null && msg.getNumVerticesInBatch() > 0) {
                                 try {
                                     m_networkService.sendMessage(msg);
                                 } catch (final NetworkException e) {
@@ -1173,7 +1477,7 @@ public class GraphAlgorithmBFSTask implements Task {
                                     // #endif /* LOGGER >= ERROR */
                                     if (m_abortBFSOnError) {
                                         m_ctx.getSignalInterface().sendSignalToMaster(Signal.SIGNAL_ABORT);
-                                        return;
+                                        return false;
                                     }
                                 }
 
@@ -1185,8 +1489,8 @@ public class GraphAlgorithmBFSTask implements Task {
                         }
                     }
 
-                    // we are done, go to start
-                    continue;
+                    // we are done with this iteration
+                    return true;
                 }
 
                 // --------------------------------------------------
@@ -1199,7 +1503,7 @@ public class GraphAlgorithmBFSTask implements Task {
 //                    // #endif /* LOGGER >= ERROR */
 //                    if (m_abortBFSOnError) {
 //                        m_ctx.getSignalInterface().sendSignalToMaster(Signal.SIGNAL_ABORT);
-//                        return;
+//                        return false;
 //                    }
 //                }
 
@@ -1214,90 +1518,479 @@ public class GraphAlgorithmBFSTask implements Task {
                         continue;
                     }
 
-                    m_sharedVertexCounter.incrementAndGet();
-
-                    long[] neighbours = DirectVertex.getNeighbors(m_vertexBatch[i]);
-                    long vertexLocalId = ChunkID.getLocalID(m_vertexBatch[i]);
-                    for (long neighbour : neighbours) {
-                        // check if neighbors are valid, otherwise something's not ok with the data
-                        if (neighbour == ChunkID.INVALID_ID) {
-                            // #if LOGGER >= WARN
-                            LOGGER.warn("Invalid neighbor found on vertex %d", m_vertexBatch[i]);
-                            // #endif /* LOGGER >= WARN */
-                            continue;
+                    if (bottomUp) {
+                        if (!processBottomUp(m_vertexBatch[i])) {
+                            return false;
                         }
 
-                        // don't allow access to the index chunk
-                        if (ChunkID.getLocalID(neighbour) == 0) {
-                            // #if LOGGER >= WARN
-                            LOGGER.warn("Neighbor id refers to index chunk 0x%X, vertex %d", neighbour, m_vertexBatch[i]);
-                            // #endif /* LOGGER >= WARN */
-                            continue;
+                        continue;
+                    }
+
+                    m_vertexCount++;
+
+                    int neighborsLength = m_neighborCursor.open(m_vertexBatch[i]);
+                    if (DirectVertex.isSegmented(neighborsLength)) {
+                        // high degree vertex: queue its segments to have them processed by all threads
+                        long[] segments = DirectVertex.getNeighborSegments(m_vertexBatch[i]);
+                        if (segments.length > 0) {
+                            m_hubSegments.add(m_vertexBatch[i], segments, neighborsLength);
+
+                            // segments of split lists cover the local section, the remote section is processed here
+                            if (!m_neighborCursor.isSplit()) {
+                                continue;
+                            }
+
+                            m_neighborCursor.skipLocal();
                         }
+                    }
 
-                        m_sharedEdgeCounter.incrementAndGet();
+                    if (!processNeighbors(m_vertexBatch[i])) {
+                        return false;
+                    }
+                }
+            }
+        }
 
-                        // sort by remote and local vertices
-                        short neighborCreatorId = ChunkID.getCreatorID(neighbour);
-                        long neighborLocalId = ChunkID.getLocalID(neighbour);
+        /**
+         * Publish the local counts to the statistics thread, once per batch or segment. Written by this thread
+         * only, no atomic update required.
+         */
+        private void publishStatistics() {
+            if (m_statisticsCounters != null) {
+                m_statisticsCounters.lazySet(m_statisticsSlot, m_vertexCount);
+                m_statisticsCounters.lazySet(m_statisticsSlot + 1, m_edgeCount);
+            }
+        }
 
-                        if (neighborCreatorId != m_nodeId) {
-                            // delegate to remote, fill message buffers until they are full -> send
-                            VerticesForNextFrontierMessage msg = m_remoteMessages[neighborCreatorId & 0xFFFF];
-                            if (msg == null) {
-                                msg = new VerticesForNextFrontierMessage(neighborCreatorId, m_vertexMessageBatchSize);
+        /**
+         * Process the remaining neighbors of the opened neighbor cursor in chunks of the reused buffer.
+         *
+         * @param p_vertex
+         *         Chunk id of the vertex
+         * @return False if sending a message failed and the BFS has to be aborted
+         */
+        private boolean processNeighbors(final long p_vertex) {
+            if (m_neighborCursor.isSplit()) {
+                return processSplitNeighbors();
+            }
 
-                                m_remoteMessages[neighborCreatorId & 0xFFFF] = msg;
-                            }
+            int count;
+            while ((count = m_neighborCursor.readInto(m_neighborBuffer, 0)) > 0) {
+                if (!processNeighbors(p_vertex, m_neighborBuffer, count)) {
+                    m_neighborCursor.close();
+                    return false;
+                }
+            }
 
-                            // add vertex to message batch
-                            if (!msg.addVertex(neighbour)) {
-                                // neighbor does not fit anymore, full
-                                try {
-                                    m_networkService.sendMessage(msg);
-                                } catch (final NetworkException e) {
-                                    // #if LOGGER >= ERROR
-                                    LOGGER.error("Sending vertex message to node 0x%X failed", neighborCreatorId);
-                                    // #endif /* LOGGER >= ERROR */
-                                    if (m_abortBFSOnError) {
-                                        m_ctx.getSignalInterface().sendSignalToMaster(Signal.SIGNAL_ABORT);
-                                        return;
-                                    }
-                                }
+            // release the vertex of an inline neighbor list
+            m_neighborCursor.close();
+            return true;
+        }
 
-                                m_syncBFSFinished.incrementSentVertexMsgCountLocal();
+        /**
+         * Process the remaining neighbors of the opened split neighbor list: local ids go to the next frontier
+         * directly, remote neighbors are appended group-wise to the message of their node.
+         *
+         * @return False if sending a message failed and the BFS has to be aborted
+         */
+        private boolean processSplitNeighbors() {
+            int count;
+            while ((count = m_neighborCursor.readLocalInto(m_neighborBuffer, 0)) > 0) {
+                m_edgeCount += count;
+                processLocalNeighbors(m_neighborBuffer, count);
+            }
 
-                                // re-use messages
-                                msg.reset();
-                                m_remoteMessages[msg.getDestination() & 0xFFFF] = msg;
-                                msg.addVertex(neighbour);
+            while (m_neighborCursor.nextRemoteGroup() > 0) {
+                VerticesForNextFrontierMessage msg = getRemoteMessage(m_neighborCursor.getRemoteNode());
+
+                while ((count = m_neighborCursor.readRemoteInto(m_neighborBuffer, 0)) > 0) {
+                    m_edgeCount += count;
+
+                    int added = msg.addVertices(m_neighborBuffer, 0, count);
+                    while (added < count) {
+                        // message full, send and re-use it
+                        if (!sendVertexMessage(msg)) {
+                            m_neighborCursor.close();
+                            return false;
+                        }
+
+                        added += msg.addVertices(m_neighborBuffer, added, count - added);
+                    }
+                }
+            }
+
+            m_neighborCursor.close();
+            return true;
+        }
+
+        /**
+         * Add unvisited local vertices to the next frontier.
+         *
+         * @param p_localIds
+         *         Buffer with the local ids of the vertices
+         * @param p_count
+         *         Number of local ids in the buffer
+         */
+        private void processLocalNeighbors(final long[] p_localIds, final int p_count) {
+            for (int i = 0; i < p_count; i++) {
+                long localId = p_localIds[i];
+
+                // mark visited and add to next if not visited so far
+                if (m_visitedFrontier.pushBack(localId)) {
+                    m_nextFrontier.pushBack(localId, m_id);
+                    m_depths.setInt(localId, m_currentDepthLevel);
+
+                    // num of edges for calculating bottom up <-> top down switching formula
+                    m_edgeCountNextFrontier += m_store.getNeighborsLengthLocal(localId);
+                }
+            }
+        }
+
+        /**
+         * Bottom up: check the neighbors of a vertex not visited, yet, for a parent in the current frontier. Local
+         * neighbors are checked directly, stopping at the first parent found. Remote neighbors are sent to their
+         * nodes paired with the vertex, the nodes reply with the vertex (for their next frontier) if the neighbor
+         * is in their current frontier.
+         *
+         * @param p_vertex
+         *         Chunk id of the vertex
+         * @return False if sending a message failed and the BFS has to be aborted
+         */
+        private boolean processBottomUp(final long p_vertex) {
+            long localId = ChunkID.getLocalID(p_vertex);
+
+            // visited by a reply of a remote node in the meantime
+            if (m_visitedFrontier.contains(localId)) {
+                return true;
+            }
+
+            m_vertexCount++;
+
+            int neighborsLength = m_neighborCursor.open(p_vertex);
+            int count;
+
+            if (m_neighborCursor.isSplit()) {
+                while ((count = m_neighborCursor.readLocalInto(m_neighborBuffer, 0)) > 0) {
+                    for (int i = 0; i < count; i++) {
+                        if (m_curFrontier.contains(m_neighborBuffer[i])) {
+                            m_edgeCount += i + 1;
+                            m_neighborCursor.close();
+                            markBottomUp(p_vertex, neighborsLength);
+                            return true;
+                        }
+                    }
+
+                    m_edgeCount += count;
+                }
+
+                while (m_neighborCursor.nextRemoteGroup() > 0) {
+                    VerticesForNextFrontierMessage msg = getRemoteMessage(m_neighborCursor.getRemoteNode());
+
+                    while ((count = m_neighborCursor.readRemoteInto(m_neighborBuffer, 0)) > 0) {
+                        m_edgeCount += count;
+
+                        for (int i = 0; i < count; i++) {
+                            if (!addBottomUpRequest(msg, p_vertex, m_neighborBuffer[i])) {
+                                m_neighborCursor.close();
+                                return false;
                             }
-                        } else {
-                            // mark visited and add to next if not visited so far
-                            if (m_visitedFrontier.pushBack(neighborLocalId)) {
-                                m_nextFrontier.pushBack(neighborLocalId);
+                        }
+                    }
+                }
+
+                m_neighborCursor.close();
+                return true;
+            }
+
+            // local and remote neighbors are mixed, remote ones are requested as they come up
+            while ((count = m_neighborCursor.readInto(m_neighborBuffer, 0)) > 0) {
+                for (int i = 0; i < count; i++) {
+                    long neighbour = m_neighborBuffer[i];
+                    if (neighbour == ChunkID.INVALID_ID || ChunkID.getLocalID(neighbour) == 0) {
+                        continue;
+                    }
+
+                    m_edgeCount++;
+
+                    short neighborCreatorId = ChunkID.getCreatorID(neighbour);
+                    if (neighborCreatorId == m_nodeId) {
+                        if (m_curFrontier.contains(ChunkID.getLocalID(neighbour))) {
+                            m_neighborCursor.close();
+                            markBottomUp(p_vertex, neighborsLength);
+                            return true;
+                        }
+                    } else if (!addBottomUpRequest(getRemoteMessage(neighborCreatorId), p_vertex, neighbour)) {
+                        m_neighborCursor.close();
+                        return false;
+                    }
+                }
+            }
+
+            m_neighborCursor.close();
+            return true;
+        }
+
+        /**
+         * Mark a vertex with a parent in the current frontier visited and add it to the next frontier.
+         *
+         * @param p_vertex
+         *         Chunk id of the vertex
+         * @param p_neighborsLength
+         *         Number of neighbors of the vertex
+         */
+        private void markBottomUp(final long p_vertex, final int p_neighborsLength) {
+            long localId = ChunkID.getLocalID(p_vertex);
+
+            if (m_visitedFrontier.pushBack(localId)) {
+                m_nextFrontier.pushBack(localId, m_id);
+                DirectVertex.setDepth(p_vertex, m_currentDepthLevel);
+
+                // num of edges for calculating bottom up <-> top down switching formula
+                m_edgeCountNextFrontier += p_neighborsLength;
+            }
+        }
+
+        /**
+         * Add a vertex and a remote neighbor (potential parent) to a bottom up message, sending it if full.
+         *
+         * @param p_msg
+         *         Message of the node storing the neighbor
+         * @param p_vertex
+         *         Chunk id of the (local) vertex
+         * @param p_neighbor
+         *         Chunk id of the remote neighbor
+         * @return False if sending failed and the BFS has to be aborted
+         */
+        private boolean addBottomUpRequest(final VerticesForNextFrontierMessage p_msg, final long p_vertex, final long p_neighbor) {
+            // vertices and neighbors are added pairwise, both buffers are full at the same time
+            if (!p_msg.addVertex(p_vertex)) {
+                if (!sendVertexMessage(p_msg)) {
+                    return false;
+                }
+
+                p_msg.addVertex(p_vertex);
+            }
+
+            p_msg.addNeighbor(p_neighbor);
+            return true;
+        }
+
+        /**
+         * Get the (re-used) message to a remote node, created on first use.
+         *
+         * @param p_nodeId
+         *         Node id of the destination
+         * @return Message to fill
+         */
+        private VerticesForNextFrontierMessage getRemoteMessage(final short p_nodeId) {
+            VerticesForNextFrontierMessage msg = m_remoteMessages[p_nodeId & 0xFFFF];
+            if (msg == null) {
+                msg = new VerticesForNextFrontierMessage(p_nodeId, m_vertexMessageBatchSize);
+
+                m_remoteMessages[p_nodeId & 0xFFFF] = msg;
+            }
+
+            return msg;
+        }
+
+        /**
+         * Send a full vertex message and reset it for re-use.
+         *
+         * @param p_msg
+         *         Message to send
+         * @return False if sending failed and the BFS has to be aborted
+         */
+        private boolean sendVertexMessage(final VerticesForNextFrontierMessage p_msg) {
+            try {
+                m_networkService.sendMessage(p_msg);
+            } catch (final NetworkException e) {
+                // #if LOGGER >= ERROR
+                LOGGER.error("Sending vertex message to node 0x%X failed", p_msg.getDestination());
+                // #endif /* LOGGER >= ERROR */
+                if (m_abortBFSOnError) {
+                    m_ctx.getSignalInterface().sendSignalToMaster(Signal.SIGNAL_ABORT);
+                    return false;
+                }
+            }
+
+            m_syncBFSFinished.incrementSentVertexMsgCountLocal();
+
+            // re-use messages
+            p_msg.reset();
+            return true;
+        }
+
+        /**
+         * Process the neighbors of a vertex (or a segment of them): delegate remote neighbors to their nodes and add
+         * unvisited local neighbors to the next frontier.
+         *
+         * @param p_vertex
+         *         Chunk id of the vertex
+         * @param p_neighbours
+         *         Buffer with the neighbors to process
+         * @param p_count
+         *         Number of neighbors in the buffer
+         * @return False if sending a message failed and the BFS has to be aborted
+         */
+        private boolean processNeighbors(final long p_vertex, final long[] p_neighbours, final int p_count) {
+            for (int i = 0; i < p_count; i++) {
+                long neighbour = p_neighbours[i];
+
+                // check if neighbors are valid, otherwise something's not ok with the data
+                if (neighbour == ChunkID.INVALID_ID) {
+                    // #if LOGGER >= WARN
+                    LOGGER.warn("Invalid neighbor found on vertex %d", p_vertex);
+                    // #endif /* LOGGER >= WARN */
+                    continue;
+                }
+
+                // don't allow access to the index chunk
+                if (ChunkID.getLocalID(neighbour) == 0) {
+                    // #if LOGGER >= WARN
+                    LOGGER.warn("Neighbor id refers to index chunk 0x%X, vertex %d", neighbour, p_vertex);
+                    // #endif /* LOGGER >= WARN */
+                    continue;
+                }
+
+                m_edgeCount++;
+
+                // sort by remote and local vertices
+                short neighborCreatorId = ChunkID.getCreatorID(neighbour);
+                long neighborLocalId = ChunkID.getLocalID(neighbour);
+
+                if (neighborCreatorId != m_nodeId) {
+                    // delegate to remote, fill message buffers until they are full -> send
+                    VerticesForNextFrontierMessage msg = getRemoteMessage(neighborCreatorId);
+
+                    // add vertex to message batch
+                    if (!msg.addVertex(neighbour)) {
+                        // neighbor does not fit anymore, full
+                        if (!sendVertexMessage(msg)) {
+                            return false;
+                        }
+
+                        msg.addVertex(neighbour);
+                    }
+                } else {
+                    // mark visited and add to next if not visited so far
+                    if (m_visitedFrontier.pushBack(neighborLocalId)) {
+                        m_nextFrontier.pushBack(neighborLocalId, m_id);
 
 //                                Vertex neighbour_vertex = new Vertex();
 //                                neighbour_vertex.setID(neighbour);
 //                                m_chunkService.get().get(neighbour_vertex);
-                                DirectVertex.setDepth(neighbour, m_currentDepthLevel);
+                        DirectVertex.setDepth(neighbour, m_currentDepthLevel);
 //                                if (m_markVertices && !m_chunkService.put().put(neighbour_vertex)) {
 //                                    LOGGER.error("Marking vertex 0x%X failed", vertexLocalId);
 //                                }
 
-                                // read num of edges for calculating bottom up <-> top down switching formula
-                                int numEdges = DirectVertex.getNeighborsLength(neighbour);
-                                if (numEdges != -1) {
-                                    m_edgeCountNextFrontier.addAndGet(numEdges);
-                                } else {
-                                    LOGGER.error("Could not read num neighbors field of vertex 0x%X", neighbour);
-                                }
-                            }
+                        // read num of edges for calculating bottom up <-> top down switching formula
+                        int numEdges = DirectVertex.getNeighborsLength(neighbour);
+                        if (numEdges != -1) {
+                            m_edgeCountNextFrontier += numEdges;
+                        } else {
+                            LOGGER.error("Could not read num neighbors field of vertex 0x%X", neighbour);
                         }
-                        
                     }
                 }
             }
+
+            return true;
+        }
+    }
+
+    /**
+     * Queue of the segments of high degree vertices. Threads running out of frontier vertices wait for new
+     * segments to help with or for the last pending segment to complete instead of polling.
+     */
+    private static final class HubSegmentQueue {
+        private final ConcurrentLinkedQueue<HubSegment> m_queue = new ConcurrentLinkedQueue<>();
+        // queued or currently processed segments
+        private final AtomicInteger m_pending = new AtomicInteger(0);
+        // threads waiting in awaitChange, signalling is skipped without waiters
+        private final AtomicInteger m_waiting = new AtomicInteger(0);
+        private final ReentrantLock m_lock = new ReentrantLock(false);
+        private final Condition m_changed = m_lock.newCondition();
+
+        /**
+         * Queue the segments of a vertex.
+         *
+         * @param p_vertex
+         *         Chunk id of the vertex
+         * @param p_segments
+         *         Addresses of the neighbor segments
+         * @param p_neighborsLength
+         *         Total number of neighbors of the vertex
+         */
+        void add(final long p_vertex, final long[] p_segments, final int p_neighborsLength) {
+            m_pending.addAndGet(p_segments.length);
+            for (int i = 0; i < p_segments.length; i++) {
+                m_queue.add(new HubSegment(p_vertex, p_segments[i], i, p_neighborsLength));
+            }
+
+            signalWaiting();
+        }
+
+        HubSegment poll() {
+            return m_queue.poll();
+        }
+
+        /**
+         * Mark a polled segment processed.
+         */
+        void complete() {
+            if (m_pending.decrementAndGet() == 0) {
+                signalWaiting();
+            }
+        }
+
+        boolean hasPending() {
+            return m_pending.get() > 0;
+        }
+
+        /**
+         * Wait until segments are queued, the last pending segment completes or the timeout elapses.
+         *
+         * @param p_timeoutMs
+         *         Max. time to wait in ms
+         */
+        void awaitChange(final long p_timeoutMs) {
+            m_lock.lock();
+            m_waiting.incrementAndGet();
+            try {
+                if (m_queue.isEmpty() && m_pending.get() > 0) {
+                    m_changed.await(p_timeoutMs, TimeUnit.MILLISECONDS);
+                }
+            } catch (final InterruptedException ignored) {
+            } finally {
+                m_waiting.decrementAndGet();
+                m_lock.unlock();
+            }
+        }
+
+        private void signalWaiting() {
+            if (m_waiting.get() > 0) {
+                m_lock.lock();
+                m_changed.signalAll();
+                m_lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Segment of the neighbor list of a high degree vertex, processed as a separate work unit.
+     */
+    private static final class HubSegment {
+        private final long m_vertex;
+        private final long m_address;
+        private final int m_index;
+        private final int m_neighborsLength;
+
+        private HubSegment(final long p_vertex, final long p_address, final int p_index, final int p_neighborsLength) {
+            m_vertex = p_vertex;
+            m_address = p_address;
+            m_index = p_index;
+            m_neighborsLength = p_neighborsLength;
         }
     }
 }
@@ -16,6 +16,7 @@ package science.atlarge.graphalytics.dxram.algorithms.bfs;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
 
 import science.atlarge.graphalytics.dxram.graph.DXGraphMessageTypes;
 import science.atlarge.graphalytics.dxram.algorithms.bfs.messages.BFSLevelFinishedMessage;
@@ -34,6 +35,8 @@ public class SyncBFSFinished implements MessageReceiver {
     private NetworkService m_networkService;
 
     private volatile boolean m_signalAbortExecution;
+    // waits in execute, woken by the last level finished message of a token or on abort
+    private volatile Thread m_executeThread;
 
     // TODO i think this can be non volatile without breaking anything -> test
     private volatile int m_token;
@@ -93,6 +96,7 @@ public class SyncBFSFinished implements MessageReceiver {
 
     void signalAbortExecution() {
         m_signalAbortExecution = true;
+        LockSupport.unpark(m_executeThread);
     }
 
     boolean execute() {
@@ -103,6 +107,7 @@ public class SyncBFSFinished implements MessageReceiver {
         // figure that out in iteration i - 1 i.e. messages of the next evaluation phase i
         // overtake messages of the phase i - 1 when processing them in the message handler
         m_token = 0;
+        m_executeThread = Thread.currentThread();
 
         while (true) {
             // inform all other slaves we are done, this might need multiple tries
@@ -134,16 +139,13 @@ public class SyncBFSFinished implements MessageReceiver {
                 }
             }
 
-            // busy wait until everyone is done
+            // wait until everyone is done, the handler unparks us on the last message
             while (true) {
                 if (m_bfsSlavesLevelFinishedCounter[m_token].compareAndSet(m_nodeIDs.length - 1, 0)) {
                     break;
                 }
 
-                try {
-                    Thread.sleep(2);
-                } catch (final InterruptedException ignored) {
-                }
+                LockSupport.park(this);
 
                 if (m_signalAbortExecution) {
                     return false;
@@ -210,6 +212,8 @@ public class SyncBFSFinished implements MessageReceiver {
         // main thread is unlocking
         if (m_bfsSlavesLevelFinishedCounter[p_message.getToken()].incrementAndGet() != m_nodeIDs.length - 1) {
             m_finishedCounterLock[p_message.getToken()].release();
+        } else {
+            LockSupport.unpark(m_executeThread);
         }
     }
 }
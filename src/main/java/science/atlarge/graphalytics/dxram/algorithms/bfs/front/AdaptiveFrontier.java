@@ -0,0 +1,286 @@
+/*
+ * Copyright (C) 2019 Heinrich-Heine-Universitaet Duesseldorf, Institute of Computer Science, Department Operating Systems
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package science.atlarge.graphalytics.dxram.algorithms.bfs.front;
+
+import java.util.Arrays;
+
+/**
+ * Frontier switching between a sparse and a dense representation, keeping the cost of a level proportional to the
+ * frontier size. Elements are always appended to a queue per writer (BulkFifoNaive, no duplicate check), so
+ * writers don't share any cache lines or counters while filling. On seal (end of the level filling the frontier),
+ * the representation is chosen by the density of the frontier and the queues are merged once: sparse, into a
+ * single array, dense, into a bitmap which is zeroed on demand only.
+ * <p>
+ * The lists are filled concurrently (one thread per writer id, a shared writer for all others), then sealed and
+ * read. Elements must not be pushed twice (e.g. only after a successful push to a visited vector).
+ */
+public class AdaptiveFrontier implements FrontierList {
+    // dense once more than one out of DENSE_FRACTION elements are set, i.e. a word of the bitmap per element
+    public static final int DENSE_FRACTION = 64;
+
+    private static final int SPARSE_BULK_SIZE = 64 * 1024;
+
+    private final ConcurrentBitVectorHybrid m_bitmap;
+    // bits were set since the bitmap was zeroed last
+    private boolean m_bitmapDirty;
+
+    // one queue per writer, the last one is shared by all other threads
+    private final BulkFifoNaive[] m_queues;
+    private long[] m_elements = new long[0];
+    private int m_elementCount;
+    private int m_popPos;
+
+    private volatile boolean m_dense;
+
+    /**
+     * Constructor
+     * @param p_maxElementCount
+     *            Specify the maximum number of elements.
+     * @param p_offset
+     *            Offset applied to the vertex IDs (i.e. what's the first vertex id)
+     * @param p_writerCount
+     *            Number of writers with their own queue (writer ids 0 to count - 1)
+     */
+    public AdaptiveFrontier(final long p_maxElementCount, final long p_offset, final int p_writerCount) {
+        m_bitmap = new ConcurrentBitVectorHybrid(p_maxElementCount, p_offset);
+        m_queues = new BulkFifoNaive[p_writerCount + 1];
+        for (int i = 0; i < m_queues.length; i++) {
+            m_queues[i] = new BulkFifoNaive(SPARSE_BULK_SIZE);
+        }
+    }
+
+    /**
+     * Push back a value of a writer with its own queue.
+     * @param p_val
+     *            Value to add.
+     * @param p_writerId
+     *            Id of the writer (thread), only one thread per id
+     * @return True (no duplicate check)
+     */
+    public boolean pushBack(final long p_val, final int p_writerId) {
+        return m_queues[p_writerId].pushBack(p_val);
+    }
+
+    /**
+     * Push back a value of a writer without its own queue (shared queue).
+     * @param p_val
+     *            Value to add.
+     * @return True (no duplicate check)
+     */
+    @Override
+    public boolean pushBack(final long p_val) {
+        BulkFifoNaive shared = m_queues[m_queues.length - 1];
+        synchronized (shared) {
+            return shared.pushBack(p_val);
+        }
+    }
+
+    /**
+     * Check if a value is set. Linear search on sealed sparse lists, seal dense to look up values.
+     * @param p_val
+     *            Value to check.
+     * @return True if this value is available in the list.
+     */
+    @Override
+    public boolean contains(final long p_val) {
+        if (m_dense) {
+            return m_bitmap.contains(p_val);
+        }
+
+        for (int i = 0; i < m_elementCount; i++) {
+            if (m_elements[i] == p_val) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    @Override
+    public long capacity() {
+        return m_bitmap.capacity();
+    }
+
+    @Override
+    public long size() {
+        if (m_dense) {
+            return m_bitmap.size();
+        }
+
+        long size = m_elementCount;
+        for (BulkFifoNaive queue : m_queues) {
+            size += queue.size();
+        }
+
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * Clear the frontier for filling it. Not thread safe.
+     */
+    @Override
+    public void reset() {
+        for (BulkFifoNaive queue : m_queues) {
+            queue.reset();
+        }
+        m_elementCount = 0;
+        m_popPos = 0;
+        m_dense = false;
+    }
+
+    /**
+     * Finish filling the frontier and choose the representation for reading it. Not thread safe.
+     * @param p_forceDense
+     *            True to use the bitmap regardless of the size, e.g. to look up values with contains
+     */
+    public void seal(final boolean p_forceDense) {
+        long size = size();
+        boolean dense = p_forceDense || size > m_bitmap.capacity() / DENSE_FRACTION;
+
+        if (m_dense) {
+            if (!dense) {
+                gatherBitmap();
+            }
+        } else if (dense) {
+            clearBitmap();
+
+            // elements of an earlier sparse seal
+            for (int i = 0; i < m_elementCount; i++) {
+                m_bitmap.pushBack(m_elements[i]);
+            }
+            m_elementCount = 0;
+
+            for (BulkFifoNaive queue : m_queues) {
+                long count = queue.size();
+                for (long i = 0; i < count; i++) {
+                    m_bitmap.pushBack(queue.popFront());
+                }
+                queue.reset();
+            }
+        } else {
+            gatherQueues();
+        }
+
+        m_dense = dense;
+        m_popPos = 0;
+        m_bitmap.popFrontReset();
+    }
+
+    /**
+     * Check the representation of the frontier.
+     * @return True if stored in the bitmap, false if stored as (sealed) array
+     */
+    public boolean isDense() {
+        return m_dense;
+    }
+
+    /**
+     * Get the bitmap of a dense frontier.
+     * @return Bitmap
+     */
+    public ConcurrentBitVectorHybrid getBitmap() {
+        return m_bitmap;
+    }
+
+    /**
+     * Get the elements of a sealed sparse frontier.
+     * @return Array with the elements, valid up to the element count
+     */
+    public long[] getElements() {
+        return m_elements;
+    }
+
+    /**
+     * Get the number of elements of a sealed sparse frontier.
+     * @return Number of elements in the array
+     */
+    public int getElementCount() {
+        return m_elementCount;
+    }
+
+    /**
+     * Remove an element from a sealed frontier. Not thread safe on sparse frontiers, lock dense ones with the
+     * popFront lock of the bitmap.
+     * @return Element removed or -1 if empty.
+     */
+    @Override
+    public long popFront() {
+        if (m_dense) {
+            return m_bitmap.popFront();
+        }
+
+        if (m_popPos == m_elementCount) {
+            return -1;
+        }
+
+        return m_elements[m_popPos++];
+    }
+
+    /**
+     * Zero the bitmap if any bits were set since the last time.
+     */
+    private void clearBitmap() {
+        if (m_bitmapDirty) {
+            m_bitmap.reset();
+        }
+        m_bitmapDirty = true;
+    }
+
+    /**
+     * Move the elements of the queues to the element array.
+     */
+    private void gatherQueues() {
+        long size = size();
+        if (m_elements.length < size) {
+            m_elements = Arrays.copyOf(m_elements, (int) Math.max(size, m_elements.length * 2L));
+        }
+
+        for (BulkFifoNaive queue : m_queues) {
+            long count = queue.size();
+            for (long i = 0; i < count; i++) {
+                m_elements[m_elementCount++] = queue.popFront();
+            }
+            queue.reset();
+        }
+    }
+
+    /**
+     * Copy the elements of the bitmap to the element array.
+     */
+    private void gatherBitmap() {
+        long size = m_bitmap.size();
+        if (m_elements.length < size) {
+            m_elements = new long[(int) Math.max(size, m_elements.length * 2L)];
+        }
+
+        m_elementCount = 0;
+        for (int i = 0; i < m_bitmap.getWordCount(); i++) {
+            if (i % ConcurrentBitVectorHybrid.REGION_WORDS == 0 && m_bitmap.isRegionEmpty(i / ConcurrentBitVectorHybrid.REGION_WORDS)) {
+                i += ConcurrentBitVectorHybrid.REGION_WORDS - 1;
+                continue;
+            }
+
+            long bits = m_bitmap.getWord(i);
+            while (bits != 0) {
+                m_elements[m_elementCount++] = ((long) i << 6) + Long.numberOfTrailingZeros(bits) + m_bitmap.getOffset();
+                bits &= bits - 1;
+            }
+        }
+    }
+}
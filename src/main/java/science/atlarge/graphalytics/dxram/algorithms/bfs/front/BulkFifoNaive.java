@@ -58,7 +58,10 @@ public class BulkFifoNaive implements FrontierList {
                 m_chainedFifo = Arrays.copyOf(m_chainedFifo, m_chainedFifo.length + MS_BULK_BLOCK_GROWTH);
             }
 
-            m_chainedFifo[m_blockBack] = new long[m_bulkSize];
+            // reuse the blocks of earlier fills after a reset
+            if (m_chainedFifo[m_blockBack] == null) {
+                m_chainedFifo[m_blockBack] = new long[m_bulkSize];
+            }
             m_posBack = 0;
         }
 
@@ -89,7 +92,7 @@ public class BulkFifoNaive implements FrontierList {
 
             curBlock++;
             curPos = 0;
-        } while (curBlock < m_blockBack);
+        } while (curBlock <= m_blockBack);
 
         return false;
     }
@@ -106,7 +109,7 @@ public class BulkFifoNaive implements FrontierList {
         } else {
             int size = 0;
             size += m_bulkSize - m_posFront;
-            size += m_bulkSize * (m_blockBack - m_blockFront + 1);
+            size += m_bulkSize * (m_blockBack - m_blockFront - 1);
             size += m_posBack;
             return size;
         }
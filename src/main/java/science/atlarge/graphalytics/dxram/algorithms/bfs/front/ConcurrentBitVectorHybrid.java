@@ -16,6 +16,7 @@ package science.atlarge.graphalytics.dxram.algorithms.bfs.front;
 import java.util.Random;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.concurrent.locks.ReentrantLock;
 
 /**
@@ -25,14 +26,22 @@ import java.util.concurrent.locks.ReentrantLock;
  * variant.
  * Using a lock free implementation for adding vertices and a
  * lock'd variant for removing vertices from the vector.
+ * A summary level with a bit per region of REGION_WORDS words (4096 elements)
+ * marks the regions with elements, which are skipped by popFront and reset
+ * otherwise. Elements are extracted a word at a time.
  * @author Stefan Nothaas, stefan.nothaas@hhu.de, 23.03.2016
  */
 public class ConcurrentBitVectorHybrid implements FrontierList {
+    public static final int REGION_WORDS = 64;
+    private static final int REGION_SHIFT = 6;
+
     private long m_maxElementCount;
     private long m_offset;
     private AtomicLongArray m_vector;
+    private AtomicLongArray m_summary;
 
-    private AtomicLong m_count = new AtomicLong(0);
+    // striped, set by many threads concurrently but read at level barriers only
+    private LongAdder m_count = new LongAdder();
     private AtomicLong m_itPos = new AtomicLong(0);
     private AtomicLong m_posCount = new AtomicLong(0);
     private AtomicLong m_posCountInverse = new AtomicLong(0);
@@ -50,6 +59,8 @@ public class ConcurrentBitVectorHybrid implements FrontierList {
         m_maxElementCount = p_maxElementCount;
         m_offset = p_offset;
         m_vector = new AtomicLongArray((int) ((p_maxElementCount / 64L) + 1L));
+        int regions = (m_vector.length() + REGION_WORDS - 1) >>> REGION_SHIFT;
+        m_summary = new AtomicLongArray((regions + 63) >>> 6);
         m_posCountInverse.set(m_maxElementCount);
     }
 
@@ -124,7 +135,8 @@ public class ConcurrentBitVectorHybrid implements FrontierList {
                 if (!m_vector.compareAndSet(index, val, val | tmp)) {
                     continue;
                 }
-                m_count.incrementAndGet();
+                markRegion(index);
+                m_count.increment();
                 return true;
             }
 
@@ -144,14 +156,51 @@ public class ConcurrentBitVectorHybrid implements FrontierList {
         return m_maxElementCount;
     }
 
+    /**
+     * Get the offset applied to the elements (i.e. the element of the first bit).
+     * @return Offset
+     */
+    public long getOffset() {
+        return m_offset;
+    }
+
+    /**
+     * Get the number of 64 bit words of the vector.
+     * @return Number of words
+     */
+    public int getWordCount() {
+        return m_vector.length();
+    }
+
+    /**
+     * Get a word of the vector, e.g. to scan it without the popFront lock.
+     * @param p_index
+     *            Index of the word
+     * @return Bits of the elements p_index * 64 to p_index * 64 + 63
+     */
+    public long getWord(final int p_index) {
+        return m_vector.get(p_index);
+    }
+
+    /**
+     * Check if a region (words p_region * REGION_WORDS to p_region * REGION_WORDS + REGION_WORDS - 1) has no
+     * elements. Not reliable for regions currently being filled.
+     * @param p_region
+     *            Index of the region
+     * @return True if no element of the region is set
+     */
+    public boolean isRegionEmpty(final int p_region) {
+        return (m_summary.get(p_region >>> 6) & (1L << (p_region & 63))) == 0;
+    }
+
     @Override
     public long size() {
-        return m_count.get();
+        return m_count.sum();
     }
 
     @Override
     public boolean isEmpty() {
-        return m_count.get() == 0;
+        return m_count.sum() == 0;
     }
 
     @Override
@@ -159,9 +208,22 @@ public class ConcurrentBitVectorHybrid implements FrontierList {
         m_itPos.set(0);
         m_posCount.set(0);
         m_posCountInverse.set(m_maxElementCount);
-        m_count.set(0);
-        for (int i = 0; i < m_vector.length(); i++) {
-            m_vector.set(i, 0);
+        m_count.reset();
+
+        // zero the regions with elements, only
+        for (int i = 0; i < m_summary.length(); i++) {
+            long regions = m_summary.get(i);
+            while (regions != 0) {
+                int region = (i << 6) + Long.numberOfTrailingZeros(regions);
+                regions &= regions - 1;
+
+                int end = Math.min((region + 1) << REGION_SHIFT, m_vector.length());
+                for (int j = region << REGION_SHIFT; j < end; j++) {
+                    m_vector.set(j, 0);
+                }
+            }
+
+            m_summary.set(i, 0);
         }
     }
 
@@ -181,15 +243,22 @@ public class ConcurrentBitVectorHybrid implements FrontierList {
         }
 
         long itPos = m_itPos.get();
-        while (true) {
-            if ((m_vector.get((int) (itPos / 64L)) & (1L << (itPos % 64L))) != 0) {
+        while (itPos < m_maxElementCount) {
+            int word = (int) (itPos >>> 6);
+            long bits = m_vector.get(word) & (-1L << (itPos & 63));
+            if (bits != 0) {
+                itPos = ((long) word << 6) + Long.numberOfTrailingZeros(bits);
                 m_itPos.set(itPos + 1);
 
                 return itPos + m_offset;
             }
 
-            itPos++;
+            itPos = nextWordPosition(word);
         }
+
+        m_itPos.set(itPos);
+        m_posCount.set(0);
+        return -1;
     }
 
     /**
@@ -198,8 +267,9 @@ public class ConcurrentBitVectorHybrid implements FrontierList {
      */
     public void popFrontReset() {
         m_itPos.set(0);
-        m_posCount.set(m_count.get());
-        m_posCountInverse.set(m_maxElementCount - m_count.get());
+        long count = m_count.sum();
+        m_posCount.set(count);
+        m_posCountInverse.set(m_maxElementCount - count);
     }
 
     /**
@@ -212,16 +282,28 @@ public class ConcurrentBitVectorHybrid implements FrontierList {
             return -1;
         }
 
+        // elements pushed concurrently (after popFrontReset) are skipped, don't scan past the end
         long itPos = m_itPos.get();
-        while (true) {
-            if ((m_vector.get((int) (itPos / 64L)) & (1L << (itPos % 64L))) == 0) {
+        while (itPos < m_maxElementCount) {
+            int word = (int) (itPos >>> 6);
+            long bits = ~m_vector.get(word) & (-1L << (itPos & 63));
+            if (bits != 0) {
+                itPos = ((long) word << 6) + Long.numberOfTrailingZeros(bits);
+                if (itPos >= m_maxElementCount) {
+                    break;
+                }
+
                 m_itPos.set(itPos + 1);
 
                 return itPos + m_offset;
             }
 
-            itPos++;
+            itPos = (long) (word + 1) << 6;
         }
+
+        m_itPos.set(itPos);
+        m_posCountInverse.set(0);
+        return -1;
     }
 
     /**
@@ -232,6 +314,38 @@ public class ConcurrentBitVectorHybrid implements FrontierList {
         m_popFrontLock.unlock();
     }
 
+    /**
+     * Mark the region of a word as having elements.
+     * @param p_wordIndex
+     *            Index of the word an element was set in
+     */
+    private void markRegion(final int p_wordIndex) {
+        int region = p_wordIndex >>> REGION_SHIFT;
+        int index = region >>> 6;
+        long bit = 1L << (region & 63);
+
+        long val = m_summary.get(index);
+        while ((val & bit) == 0 && !m_summary.compareAndSet(index, val, val | bit)) {
+            val = m_summary.get(index);
+        }
+    }
+
+    /**
+     * Get the position to continue a scan for set bits after an empty word,
+     * skipping the rest of its region if the region has no elements.
+     * @param p_word
+     *            Index of the (empty) word
+     * @return Position of the next word to scan
+     */
+    private long nextWordPosition(final int p_word) {
+        int region = p_word >>> REGION_SHIFT;
+        if (isRegionEmpty(region)) {
+            return (long) (region + 1) << (REGION_SHIFT + 6);
+        }
+
+        return (long) (p_word + 1) << 6;
+    }
+
     @Override
     public String toString() {
         return "[m_count " + m_count + ", m_itPos " + m_itPos + "]";
@@ -0,0 +1,263 @@
+/*
+ * Copyright (C) 2019 Heinrich-Heine-Universitaet Duesseldorf, Institute of Computer Science, Department Operating Systems
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package science.atlarge.graphalytics.dxram.algorithms.bfs.front;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Lock free partitioning of a bit vector frontier for multiple threads. On reset (level start), the words of the
+ * vector are split into slices of SLICE_WORDS words and every thread gets a contiguous range of them. Threads claim
+ * the slices of their range with an atomic cursor and steal slices from the ranges of other threads when done.
+ * The vector must not be reset or swapped while the slices are read, but elements can be pushed concurrently
+ * (e.g. the visited vector on bottom up, read inverse). Sealed sparse frontiers are split into slices of
+ * SLICE_ELEMENTS elements of their element array.
+ */
+public class FrontierSlices {
+    // a slice is a region of the summary level of the vector, skipped if empty
+    public static final int SLICE_WORDS = ConcurrentBitVectorHybrid.REGION_WORDS;
+    public static final int SLICE_ELEMENTS = 1024;
+
+    // ints per cursor, keeps the cursors of different threads on different cache lines
+    private static final int CURSOR_STRIDE = 16;
+
+    private final int m_threadCount;
+    private final AtomicIntegerArray m_cursors;
+    private final int[] m_ends;
+
+    private volatile ConcurrentBitVectorHybrid m_vector;
+    private volatile boolean m_inverse;
+    // elements of a sparse frontier, null if reading a vector
+    private volatile long[] m_elements;
+    private volatile int m_elementCount;
+
+    /**
+     * Constructor
+     * @param p_threadCount
+     *            Number of threads reading the slices
+     */
+    public FrontierSlices(final int p_threadCount) {
+        m_threadCount = p_threadCount;
+        m_cursors = new AtomicIntegerArray(p_threadCount * CURSOR_STRIDE);
+        m_ends = new int[p_threadCount];
+    }
+
+    /**
+     * Split a vector into slices for the next level. Not thread safe, call before the threads start reading.
+     * @param p_vector
+     *            Vector to read
+     * @param p_inverse
+     *            True to read the elements not set (up to the capacity), false to read the elements set
+     */
+    public void reset(final ConcurrentBitVectorHybrid p_vector, final boolean p_inverse) {
+        assignSlices((p_vector.getWordCount() + SLICE_WORDS - 1) / SLICE_WORDS);
+
+        m_elements = null;
+        m_inverse = p_inverse;
+        m_vector = p_vector;
+    }
+
+    /**
+     * Split a sealed frontier into slices for the next level, reading its bitmap or its element array. Not thread
+     * safe, call before the threads start reading.
+     * @param p_frontier
+     *            Sealed frontier to read
+     */
+    public void reset(final AdaptiveFrontier p_frontier) {
+        if (p_frontier.isDense()) {
+            reset(p_frontier.getBitmap(), false);
+            return;
+        }
+
+        assignSlices((p_frontier.getElementCount() + SLICE_ELEMENTS - 1) / SLICE_ELEMENTS);
+
+        m_vector = null;
+        m_elementCount = p_frontier.getElementCount();
+        m_elements = p_frontier.getElements();
+    }
+
+    /**
+     * Assign contiguous ranges of slices to the threads.
+     * @param p_sliceCount
+     *            Total number of slices
+     */
+    private void assignSlices(final int p_sliceCount) {
+        int slicesPerThread = (p_sliceCount + m_threadCount - 1) / m_threadCount;
+
+        for (int i = 0; i < m_threadCount; i++) {
+            m_cursors.set(i * CURSOR_STRIDE, Math.min(i * slicesPerThread, p_sliceCount));
+            m_ends[i] = Math.min((i + 1) * slicesPerThread, p_sliceCount);
+        }
+    }
+
+    /**
+     * Claim the next slice of a thread's range or steal one from another thread.
+     * @param p_threadId
+     *            Id of the claiming thread (0 to thread count - 1)
+     * @return Index of the slice or -1 if all slices are claimed
+     */
+    int claim(final int p_threadId) {
+        for (int i = 0; i < m_threadCount; i++) {
+            int thread = (p_threadId + i) % m_threadCount;
+            int index = thread * CURSOR_STRIDE;
+
+            // check first to not push the cursors of drained ranges any further
+            if (m_cursors.get(index) < m_ends[thread]) {
+                int slice = m_cursors.getAndIncrement(index);
+                if (slice < m_ends[thread]) {
+                    return slice;
+                }
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Per thread reader of the slices, reading a slice word by word (or element by element if sparse).
+     */
+    public static final class Reader {
+        private final FrontierSlices m_slices;
+        private final int m_threadId;
+
+        private ConcurrentBitVectorHybrid m_vector;
+        private boolean m_inverse;
+        private long[] m_elements;
+        private int m_elementCount;
+        private int m_position;
+        private int m_positionEnd;
+        private int m_word;
+        private int m_sliceEnd;
+        private long m_bits;
+
+        /**
+         * Constructor
+         * @param p_slices
+         *            Slices to read
+         * @param p_threadId
+         *            Id of the thread using this reader (0 to thread count - 1)
+         */
+        public Reader(final FrontierSlices p_slices, final int p_threadId) {
+            m_slices = p_slices;
+            m_threadId = p_threadId;
+        }
+
+        /**
+         * Start reading the slices of the current level (reset of the slices).
+         */
+        public void reset() {
+            m_elements = m_slices.m_elements;
+            m_elementCount = m_slices.m_elementCount;
+            m_position = 0;
+            m_positionEnd = 0;
+            m_vector = m_slices.m_vector;
+            m_inverse = m_slices.m_inverse;
+            m_word = 0;
+            m_sliceEnd = 0;
+            m_bits = 0;
+        }
+
+        /**
+         * Read the next elements, claiming or stealing slices as necessary.
+         * @param p_buffer
+         *            Buffer to read the elements (with the offset of the vector applied) into
+         * @return Number of elements read, 0 if all slices are done
+         */
+        public int read(final long[] p_buffer) {
+            if (m_elements != null) {
+                return readElements(p_buffer);
+            }
+
+            int count = 0;
+
+            while (count < p_buffer.length) {
+                if (m_bits == 0) {
+                    if (!nextWord()) {
+                        break;
+                    }
+
+                    continue;
+                }
+
+                int bit = Long.numberOfTrailingZeros(m_bits);
+                m_bits &= m_bits - 1;
+                p_buffer[count++] = ((long) (m_word - 1) << 6) + bit + m_vector.getOffset();
+            }
+
+            return count;
+        }
+
+        /**
+         * Read the next elements of a sparse frontier.
+         * @param p_buffer
+         *            Buffer to read the elements into
+         * @return Number of elements read, 0 if all slices are done
+         */
+        private int readElements(final long[] p_buffer) {
+            int count = 0;
+
+            while (count < p_buffer.length) {
+                if (m_position == m_positionEnd) {
+                    int slice = m_slices.claim(m_threadId);
+                    if (slice == -1) {
+                        break;
+                    }
+
+                    m_position = slice * SLICE_ELEMENTS;
+                    m_positionEnd = Math.min(m_position + SLICE_ELEMENTS, m_elementCount);
+                }
+
+                int length = Math.min(m_positionEnd - m_position, p_buffer.length - count);
+                System.arraycopy(m_elements, m_position, p_buffer, count, length);
+                m_position += length;
+                count += length;
+            }
+
+            return count;
+        }
+
+        /**
+         * Load the next word, of the current or a newly claimed slice.
+         * @return False if all slices are done
+         */
+        private boolean nextWord() {
+            if (m_word == m_sliceEnd) {
+                int slice;
+                do {
+                    slice = m_slices.claim(m_threadId);
+                    if (slice == -1) {
+                        return false;
+                    }
+                } while (!m_inverse && m_vector.isRegionEmpty(slice));
+
+                m_word = slice * SLICE_WORDS;
+                m_sliceEnd = Math.min(m_word + SLICE_WORDS, m_vector.getWordCount());
+            }
+
+            long word = m_vector.getWord(m_word);
+            if (m_inverse) {
+                word = ~word;
+
+                // don't return the unused bits of the last word
+                long remaining = m_vector.capacity() - ((long) m_word << 6);
+                if (remaining < Long.SIZE) {
+                    word &= remaining > 0 ? (1L << remaining) - 1 : 0;
+                }
+            }
+
+            m_bits = word;
+            m_word++;
+            return true;
+        }
+    }
+}
@@ -93,14 +93,17 @@ public class HalfConcurrentBitVector implements FrontierList {
     @Override
     public long popFront() {
         while (m_count.get() > 0) {
-            if ((m_vector.get((int) (m_itPos / 64L)) & (1L << m_itPos % 64L)) != 0) {
-                long tmp = m_itPos;
-                m_itPos++;
+            // next set bit of the current word, a word at a time
+            int index = (int) (m_itPos >>> 6);
+            long bits = m_vector.get(index) & (-1L << (m_itPos & 63));
+            if (bits != 0) {
+                long tmp = ((long) index << 6) + Long.numberOfTrailingZeros(bits);
+                m_itPos = tmp + 1;
                 m_count.decrementAndGet();
                 return tmp;
             }
 
-            m_itPos++;
+            m_itPos = (long) (index + 1) << 6;
         }
 
         return -1;
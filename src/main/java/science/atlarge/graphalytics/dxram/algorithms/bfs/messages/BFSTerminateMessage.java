@@ -26,6 +26,7 @@ import de.hhu.bsinfo.dxnet.core.AbstractMessageImporter;
 public class BFSTerminateMessage extends Message {
     private long m_frontierNextVerices;
     private long m_frontierNextEdges;
+    private long m_visitedEdges;
 
     /**
      * Creates an instance of BFSTerminateMessage.
@@ -44,12 +45,16 @@ public class BFSTerminateMessage extends Message {
      *         Total number of vertices in the next frontier.
      * @param p_frontierNextEdges
      *         Total number of edges in the next frontier
+     * @param p_visitedEdges
+     *         Number of edges of vertices visited before the next frontier and not reported, yet (e.g. the root)
      */
-    public BFSTerminateMessage(final short p_destination, final long p_frontierNextVertices, final long p_frontierNextEdges) {
+    public BFSTerminateMessage(final short p_destination, final long p_frontierNextVertices, final long p_frontierNextEdges,
+            final long p_visitedEdges) {
         super(p_destination, DXGraphMessageTypes.BFS_MESSAGES_TYPE, BFSMessages.SUBTYPE_BFS_TERMINATE_MESSAGE);
 
         m_frontierNextVerices = p_frontierNextVertices;
         m_frontierNextEdges = p_frontierNextEdges;
+        m_visitedEdges = p_visitedEdges;
     }
 
     /**
@@ -70,20 +75,31 @@ public class BFSTerminateMessage extends Message {
         return m_frontierNextEdges;
     }
 
+    /**
+     * Get the number of edges of vertices visited before the next frontier, not reported with a previous message.
+     *
+     * @return Number of edges
+     */
+    public long getVisitedEdges() {
+        return m_visitedEdges;
+    }
+
     @Override
     protected final void writePayload(final AbstractMessageExporter p_exporter) {
         p_exporter.writeLong(m_frontierNextVerices);
         p_exporter.writeLong(m_frontierNextEdges);
+        p_exporter.writeLong(m_visitedEdges);
     }
 
     @Override
     protected final void readPayload(final AbstractMessageImporter p_importer) {
         m_frontierNextVerices = p_importer.readLong(m_frontierNextVerices);
         m_frontierNextEdges = p_importer.readLong(m_frontierNextEdges);
+        m_visitedEdges = p_importer.readLong(m_visitedEdges);
     }
 
     @Override
     protected final int getPayloadLength() {
-        return 2 * Long.BYTES;
+        return 3 * Long.BYTES;
     }
 }
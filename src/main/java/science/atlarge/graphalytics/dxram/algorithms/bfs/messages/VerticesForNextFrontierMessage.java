@@ -116,6 +116,26 @@ public class VerticesForNextFrontierMessage extends Message {
         return true;
     }
 
+    /**
+     * Add multiple vertices to the batch, as many as fit
+     *
+     * @param p_vertices
+     *         Buffer with the vertices to add
+     * @param p_offset
+     *         Offset in the buffer to start at
+     * @param p_count
+     *         Number of vertices to add
+     * @return Number of vertices added, less than p_count if the batch is full
+     */
+    public int addVertices(final long[] p_vertices, final int p_offset, final int p_count) {
+        int count = Math.min(p_count, m_vertexIDs.length - m_numOfVertices);
+
+        System.arraycopy(p_vertices, p_offset, m_vertexIDs, m_vertexPos, count);
+        m_vertexPos += count;
+        m_numOfVertices += count;
+        return count;
+    }
+
     /**
      * Add a neighbor to the batch (optional to vertices)
      *
@@ -139,7 +159,7 @@ public class VerticesForNextFrontierMessage extends Message {
      * @return Valid vertex id if successful, -1 if batch is empty.
      */
     public long getVertex() {
-        if (m_vertexIDs.length == m_vertexPos) {
+        if (m_vertexPos >= m_numOfVertices) {
             return -1;
         }
 
@@ -152,7 +172,7 @@ public class VerticesForNextFrontierMessage extends Message {
      * @return Valid neighbor id if successful, -1 if batch is empty
      */
     public long getNeighbor() {
-        if (m_neighborIDs.length == m_neighborPos) {
+        if (m_neighborPos >= m_numOfNeighbors) {
             return -1;
         }
 
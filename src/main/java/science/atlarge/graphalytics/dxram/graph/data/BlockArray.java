@@ -0,0 +1,227 @@
+/*
+ * Copyright (C) 2019 Heinrich-Heine-Universitaet Duesseldorf, Institute of Computer Science, Department Operating Systems
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package science.atlarge.graphalytics.dxram.graph.data;
+
+import java.util.Arrays;
+
+import de.hhu.bsinfo.dxram.chunk.ChunkLocalService;
+import de.hhu.bsinfo.dxram.chunk.ChunkService;
+
+/**
+ * Off-heap array of fixed size entries (1, 2, 4 or 8 bytes) split into pinned local block chunks of (max.)
+ * BLOCK_SIZE bytes, created on demand (ensureCapacity). Accessors are not bounds checked. Thread safe for
+ * different entries.
+ */
+final class BlockArray {
+
+    private static final int BLOCK_SHIFT = 22;
+    static final int BLOCK_SIZE = 1 << BLOCK_SHIFT;
+    private static final int FILL_BUFFER_SIZE = 1 << 16;
+
+    private final ChunkLocalService m_chunkLocalService;
+    private final ChunkService m_chunkService;
+
+    private final int m_entryShift;
+    private final int m_indexShift;
+    private final long m_indexMask;
+    private final long m_capacity;
+    private final long[] m_addresses;
+    private final long[] m_cids;
+    private int m_blockCount;
+
+    /**
+     * Constructor, no chunks are created.
+     *
+     * @param p_chunkLocalService
+     *         ChunkLocalService to create, pin and access the block chunks
+     * @param p_chunkService
+     *         ChunkService to remove the block chunks
+     * @param p_capacity
+     *         Max. number of entries
+     * @param p_entrySize
+     *         Size of an entry in bytes, power of two up to 8
+     */
+    BlockArray(final ChunkLocalService p_chunkLocalService, final ChunkService p_chunkService, final long p_capacity,
+            final int p_entrySize) {
+        if (Integer.bitCount(p_entrySize) != 1 || p_entrySize > Long.BYTES) {
+            throw new IllegalArgumentException("Invalid entry size " + p_entrySize);
+        }
+
+        m_chunkLocalService = p_chunkLocalService;
+        m_chunkService = p_chunkService;
+        m_entryShift = Integer.numberOfTrailingZeros(p_entrySize);
+        m_indexShift = BLOCK_SHIFT - m_entryShift;
+        m_indexMask = (1L << m_indexShift) - 1;
+        m_capacity = p_capacity;
+
+        int blocks = (int) ((p_capacity + m_indexMask) >>> m_indexShift);
+        m_addresses = new long[blocks];
+        m_cids = new long[blocks];
+    }
+
+    /**
+     * Create the block chunks to hold the given number of entries.
+     *
+     * @param p_entries
+     *         Number of entries
+     */
+    synchronized void ensureCapacity(final long p_entries) {
+        if (p_entries > m_capacity) {
+            throw new IllegalStateException(String.format("Capacity of block array exceeded: %d > %d", p_entries, m_capacity));
+        }
+
+        long[] cid = new long[1];
+        while ((long) m_blockCount << m_indexShift < p_entries) {
+            long entries = Math.min(m_indexMask + 1, m_capacity - ((long) m_blockCount << m_indexShift));
+            int created = m_chunkLocalService.createLocal().create(cid, 1, (int) entries << m_entryShift);
+            if (created != 1) {
+                throw new RuntimeException("Failed to create a new chunk!");
+            }
+
+            m_addresses[m_blockCount] = m_chunkLocalService.pinningLocal().pin(cid[0]).getAddress();
+            m_cids[m_blockCount] = cid[0];
+            m_blockCount++;
+        }
+    }
+
+    /**
+     * Unpin and remove all block chunks.
+     */
+    synchronized void release() {
+        if (m_blockCount == 0) {
+            return;
+        }
+
+        for (int i = 0; i < m_blockCount; i++) {
+            m_chunkLocalService.pinningLocal().unpinCID(m_cids[i]);
+        }
+        m_chunkService.remove().remove(Arrays.copyOf(m_cids, m_blockCount));
+        m_blockCount = 0;
+    }
+
+    /**
+     * Zero all entries of the created block chunks.
+     */
+    synchronized void clear() {
+        byte[] zeros = new byte[FILL_BUFFER_SIZE];
+        for (int i = 0; i < m_blockCount; i++) {
+            int size = getBlockEntries(i) << m_entryShift;
+            for (int offset = 0; offset < size; offset += zeros.length) {
+                m_chunkLocalService.rawWriteLocal().write(m_addresses[i], offset, zeros, 0, Math.min(zeros.length, size - offset));
+            }
+        }
+    }
+
+    /**
+     * Set all entries of the created block chunks of an array of 4 byte entries, one bulk write per buffer.
+     *
+     * @param p_value
+     *         Value to set
+     */
+    synchronized void fillInt(final int p_value) {
+        int[] buffer = new int[FILL_BUFFER_SIZE / Integer.BYTES];
+        Arrays.fill(buffer, p_value);
+        for (int i = 0; i < m_blockCount; i++) {
+            int entries = getBlockEntries(i);
+            for (int pos = 0; pos < entries; pos += buffer.length) {
+                m_chunkLocalService.rawWriteLocal().write(m_addresses[i], pos * Integer.BYTES, buffer, 0, Math.min(buffer.length, entries - pos));
+            }
+        }
+    }
+
+    /**
+     * Set all entries of the created block chunks of an array of 8 byte entries, one bulk write per buffer.
+     *
+     * @param p_value
+     *         Value to set
+     */
+    synchronized void fillLong(final long p_value) {
+        long[] buffer = new long[FILL_BUFFER_SIZE / Long.BYTES];
+        Arrays.fill(buffer, p_value);
+        for (int i = 0; i < m_blockCount; i++) {
+            int entries = getBlockEntries(i);
+            for (int pos = 0; pos < entries; pos += buffer.length) {
+                m_chunkLocalService.rawWriteLocal().write(m_addresses[i], pos * Long.BYTES, buffer, 0, Math.min(buffer.length, entries - pos));
+            }
+        }
+    }
+
+    /**
+     * Get the number of entries of a block, the last block may be smaller.
+     */
+    private int getBlockEntries(final int p_block) {
+        return (int) Math.min(m_indexMask + 1, m_capacity - ((long) p_block << m_indexShift));
+    }
+
+    int getBlockCount() {
+        return m_blockCount;
+    }
+
+    long getCapacity() {
+        return m_capacity;
+    }
+
+    /**
+     * Get the address of the block chunk of an entry.
+     */
+    long getAddress(final long p_index) {
+        return m_addresses[(int) (p_index >>> m_indexShift)];
+    }
+
+    /**
+     * Get the offset of an entry in its block chunk.
+     */
+    int getOffset(final long p_index) {
+        return (int) (p_index & m_indexMask) << m_entryShift;
+    }
+
+    /**
+     * Get the number of entries from the index to the end of its block.
+     */
+    int getRemaining(final long p_index) {
+        return (int) (m_indexMask + 1 - (p_index & m_indexMask));
+    }
+
+    byte readByte(final long p_index) {
+        return m_chunkLocalService.rawReadLocal().readByte(getAddress(p_index), getOffset(p_index));
+    }
+
+    void writeByte(final long p_index, final byte p_value) {
+        m_chunkLocalService.rawWriteLocal().writeByte(getAddress(p_index), getOffset(p_index), p_value);
+    }
+
+    short readShort(final long p_index) {
+        return m_chunkLocalService.rawReadLocal().readShort(getAddress(p_index), getOffset(p_index));
+    }
+
+    void writeShort(final long p_index, final short p_value) {
+        m_chunkLocalService.rawWriteLocal().writeShort(getAddress(p_index), getOffset(p_index), p_value);
+    }
+
+    int readInt(final long p_index) {
+        return m_chunkLocalService.rawReadLocal().readInt(getAddress(p_index), getOffset(p_index));
+    }
+
+    void writeInt(final long p_index, final int p_value) {
+        m_chunkLocalService.rawWriteLocal().writeInt(getAddress(p_index), getOffset(p_index), p_value);
+    }
+
+    long readLong(final long p_index) {
+        return m_chunkLocalService.rawReadLocal().readLong(getAddress(p_index), getOffset(p_index));
+    }
+
+    void writeLong(final long p_index, final long p_value) {
+        m_chunkLocalService.rawWriteLocal().writeLong(getAddress(p_index), getOffset(p_index), p_value);
+    }
+}
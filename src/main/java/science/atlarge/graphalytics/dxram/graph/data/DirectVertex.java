@@ -13,6 +13,9 @@
 
 package science.atlarge.graphalytics.dxram.graph.data;
 
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
 import de.hhu.bsinfo.dxmem.core.Address;
 import de.hhu.bsinfo.dxmem.data.ChunkID;
 import de.hhu.bsinfo.dxram.chunk.ChunkLocalService;
@@ -29,11 +32,35 @@ public final class DirectVertex implements AutoCloseable {
     private static final int OFFSET_NEIGHBORS_LENGTH = 4;
     private static final int OFFSET_NEIGHBORS_CID = 8;
     private static final int OFFSET_NEIGHBORS_ADDR = 16;
+    // short neighbor lists are stored inline, replacing the neighbors cid and addr
+    private static final int OFFSET_NEIGHBORS_INLINE = 8;
+    private static final int HEADER_SIZE = OFFSET_NEIGHBORS_ADDR + Long.BYTES;
+
+    // set in the neighbors length field if the list is stored in a separate chunk
+    private static final int NEIGHBORS_EXTERNAL_FLAG = 0x80000000;
+    private static final int NEIGHBORS_LENGTH_MASK = 0x7FFFFFFF;
+
+    public static final int DEFAULT_INLINE_NEIGHBORS = 8;
+    // name of the vertex property (int) holding the depths, see setDepthColumn
+    public static final String PROPERTY_DEPTH = "depth";
+    private static int INLINE_NEIGHBORS = DEFAULT_INLINE_NEIGHBORS;
+
+    // neighbor lists longer than this are split into linked segments (separate chunks) of this size
+    public static final int SEGMENT_SIZE = 1 << 16;
+    private static final int OFFSET_SEGMENT_NEXT_CID = 0;
+    private static final int OFFSET_SEGMENT_NEXT_ADDR = 8;
+    private static final int SEGMENT_HEADER_SIZE = Long.BYTES + Long.BYTES; // next segment (cid + addr)
 
     private static boolean INITIALIZED = false;
     private static ChunkLocalService CHUNK_LOCAL_SERVICE = null;
     private static ChunkService CHUNK_SERVICE = null;
 
+    // addresses of the pinned vertex chunks of the local partition, index is the local id
+    private static volatile long[] PINNED_ADDRESSES = null;
+    private static short PINNED_NODE_ID;
+    // depths of the vertices of the local partition (both storage modes), null to use the depth of the vertex chunk
+    private static volatile VertexProperties.Column DEPTH_COLUMN = null;
+
     public static void init(ServiceProvider p_accessor) {
         if (!INITIALIZED) {
             CHUNK_LOCAL_SERVICE = p_accessor.getService(ChunkLocalService.class);
@@ -42,11 +69,96 @@ public final class DirectVertex implements AutoCloseable {
         }
     }
 
+    /**
+     * Pin all vertex chunks of the local partition (local ids 1 to p_vertexCount) once and cache their addresses.
+     * The static accessors then read and write these vertices at the cached address without pinning and unpinning
+     * on every call. Call unpinPartition before removing the vertices.
+     *
+     * @param p_nodeId
+     *         Node id of the partition (current node)
+     * @param p_vertexCount
+     *         Number of vertices of the partition
+     */
+    public static void pinPartition(final short p_nodeId, final long p_vertexCount) {
+        unpinPartition();
+
+        long[] addresses = new long[(int) p_vertexCount + 1];
+        addresses[0] = Address.INVALID;
+        for (int i = 1; i < addresses.length; i++) {
+            addresses[i] = CHUNK_LOCAL_SERVICE.pinningLocal().pin(ChunkID.getChunkID(p_nodeId, i)).getAddress();
+        }
+
+        PINNED_NODE_ID = p_nodeId;
+        PINNED_ADDRESSES = addresses;
+    }
+
+    /**
+     * Unpin the vertex chunks pinned by pinPartition, if any.
+     */
+    public static void unpinPartition() {
+        long[] addresses = PINNED_ADDRESSES;
+        if (addresses == null) {
+            return;
+        }
+
+        PINNED_ADDRESSES = null;
+        for (int i = 1; i < addresses.length; i++) {
+            CHUNK_LOCAL_SERVICE.pinningLocal().unpinCID(ChunkID.getChunkID(PINNED_NODE_ID, i));
+        }
+    }
+
+    /**
+     * Set the column holding the depths of the vertices of the local partition, registered by the algorithm as
+     * PROPERTY_DEPTH. The depth accessors use the column for all vertices of the partition, the depth stored in
+     * the vertex chunk is only used for vertices outside the partition. Reset (null) before releasing the column.
+     *
+     * @param p_depths
+     *         Int column of the vertex properties of the local partition or null
+     */
+    public static void setDepthColumn(final VertexProperties.Column p_depths) {
+        DEPTH_COLUMN = p_depths;
+    }
+
+    /**
+     * Set the max. number of neighbors stored inline in the vertex chunk. Longer lists are stored in a separate
+     * chunk. Applies to vertices created afterwards.
+     *
+     * @param p_inlineNeighbors
+     *         Max. number of inline neighbors, 0 to always use a separate chunk
+     */
+    public static void setInlineNeighbors(final int p_inlineNeighbors) {
+        if (p_inlineNeighbors < 0 || p_inlineNeighbors > SEGMENT_SIZE) {
+            throw new IllegalArgumentException("Invalid number of inline neighbors: " + p_inlineNeighbors);
+        }
+
+        INLINE_NEIGHBORS = p_inlineNeighbors;
+    }
+
+    public static int getInlineNeighbors() {
+        return INLINE_NEIGHBORS;
+    }
+
     public static int size() {
         return Integer.BYTES + // depth
                 Integer.BYTES + Long.BYTES + Long.BYTES; // neighbors (length + cid + addr)
     }
 
+    /**
+     * Get the size of a vertex chunk with the given number of neighbors. The chunk always has room for the cid
+     * and addr of a separate neighbors chunk, lists up to the inline limit are stored in the chunk itself.
+     *
+     * @param p_neighborsLength
+     *         Number of neighbors
+     * @return Size of the vertex chunk in bytes
+     */
+    public static int size(final int p_neighborsLength) {
+        if (p_neighborsLength > INLINE_NEIGHBORS) {
+            return HEADER_SIZE;
+        }
+
+        return Math.max(HEADER_SIZE, OFFSET_NEIGHBORS_INLINE + Long.BYTES * p_neighborsLength);
+    }
+
     public static long create() {
         long[] cid = new long[1];
         int created = CHUNK_LOCAL_SERVICE.createLocal().create(cid, 1, size());
@@ -57,8 +169,6 @@ public final class DirectVertex implements AutoCloseable {
         long address = CHUNK_LOCAL_SERVICE.pinningLocal().pin(cid[0]).getAddress();
         CHUNK_LOCAL_SERVICE.rawWriteLocal().writeInt(address, OFFSET_DEPTH, -1);
         CHUNK_LOCAL_SERVICE.rawWriteLocal().writeInt(address, OFFSET_NEIGHBORS_LENGTH, 0);
-        CHUNK_LOCAL_SERVICE.rawWriteLocal().writeLong(address, OFFSET_NEIGHBORS_CID, ChunkID.INVALID_ID);
-        CHUNK_LOCAL_SERVICE.rawWriteLocal().writeLong(address, OFFSET_NEIGHBORS_ADDR, Address.INVALID);
         CHUNK_LOCAL_SERVICE.pinningLocal().unpinCID(cid[0]);
         return cid[0];
     }
@@ -74,68 +184,41 @@ public final class DirectVertex implements AutoCloseable {
             long address = CHUNK_LOCAL_SERVICE.pinningLocal().pin(cids[i]).getAddress();
             CHUNK_LOCAL_SERVICE.rawWriteLocal().writeInt(address, OFFSET_DEPTH, -1);
             CHUNK_LOCAL_SERVICE.rawWriteLocal().writeInt(address, OFFSET_NEIGHBORS_LENGTH, 0);
-            CHUNK_LOCAL_SERVICE.rawWriteLocal().writeLong(address, OFFSET_NEIGHBORS_CID, ChunkID.INVALID_ID);
-            CHUNK_LOCAL_SERVICE.rawWriteLocal().writeLong(address, OFFSET_NEIGHBORS_ADDR, Address.INVALID);
-            CHUNK_LOCAL_SERVICE.pinningLocal().unpinCID(cids[i]);            
+            CHUNK_LOCAL_SERVICE.pinningLocal().unpinCID(cids[i]);
         }
         return cids;
     }
 
     public static long create(final Vertex p_vertex) {
         long[] cid = new long[1];
-        int created = CHUNK_LOCAL_SERVICE.createLocal().create(cid, 1, size());
+        int size = size(p_vertex.getNeighbors().length);
+        int created = CHUNK_LOCAL_SERVICE.createLocal().create(cid, 1, size);
         if (created != 1) {
             throw new RuntimeException("Failed to create a new chunk!");
         }
         // initialize with default values
         long address = CHUNK_LOCAL_SERVICE.pinningLocal().pin(cid[0]).getAddress();
         CHUNK_LOCAL_SERVICE.rawWriteLocal().writeInt(address, OFFSET_DEPTH, p_vertex.getDepth());
-        CHUNK_LOCAL_SERVICE.rawWriteLocal().writeInt(address, OFFSET_NEIGHBORS_LENGTH, p_vertex.getNeighbors().length);
-        if (p_vertex.getNeighbors().length == 0) {
-            CHUNK_LOCAL_SERVICE.rawWriteLocal().writeLong(address, OFFSET_NEIGHBORS_CID, ChunkID.INVALID_ID);
-            CHUNK_LOCAL_SERVICE.rawWriteLocal().writeLong(address, OFFSET_NEIGHBORS_ADDR, Address.INVALID);
-        } else {
-            long [] newCID = new long[1];
-            created = CHUNK_LOCAL_SERVICE.createLocal().create(newCID, 1, Long.BYTES * p_vertex.getNeighbors().length);
-            if (created != 1) {
-                throw new RuntimeException("Failed to create a new chunk!");
-            }
-            CHUNK_LOCAL_SERVICE.rawWriteLocal().writeLong(address, OFFSET_NEIGHBORS_CID, newCID[0]);
-            long address2 = CHUNK_LOCAL_SERVICE.pinningLocal().pin(newCID[0]).getAddress();
-            CHUNK_LOCAL_SERVICE.rawWriteLocal().writeLong(address, OFFSET_NEIGHBORS_ADDR, address2);
-            CHUNK_LOCAL_SERVICE.rawWriteLocal().writeLongArray(address2, 0, p_vertex.getNeighbors());
-        }
+        writeNeighbors(address, p_vertex.getNeighbors(), size);
         CHUNK_LOCAL_SERVICE.pinningLocal().unpinCID(cid[0]);
         return cid[0];
     }
 
     public static long[] create(final Vertex[] p_vertices) {
         long[] cids = new long[p_vertices.length];
-        int created = CHUNK_LOCAL_SERVICE.createLocal().create(cids, p_vertices.length, size());
+        // single size for all chunks, large enough for the longest inline list
+        int size = HEADER_SIZE;
+        for (int i = 0; i < p_vertices.length; i++) {
+            size = Math.max(size, size(p_vertices[i].getNeighbors().length));
+        }
+        int created = CHUNK_LOCAL_SERVICE.createLocal().create(cids, p_vertices.length, size);
         if (created != p_vertices.length) {
             throw new RuntimeException(String.format("Failed to create %d chunks!", p_vertices.length));
         }
-        // initialize with default values
-        for (int i = 0; i < p_vertices.length; i++) {
-            long address = CHUNK_LOCAL_SERVICE.pinningLocal().pin(cids[i]).getAddress();
-            CHUNK_LOCAL_SERVICE.rawWriteLocal().writeInt(address, OFFSET_DEPTH, p_vertices[i].getDepth());
-            CHUNK_LOCAL_SERVICE.rawWriteLocal().writeInt(address, OFFSET_NEIGHBORS_LENGTH, p_vertices[i].getNeighbors().length);
-            if (p_vertices[i].getNeighbors().length == 0) {
-                CHUNK_LOCAL_SERVICE.rawWriteLocal().writeLong(address, OFFSET_NEIGHBORS_CID, ChunkID.INVALID_ID);
-                CHUNK_LOCAL_SERVICE.rawWriteLocal().writeLong(address, OFFSET_NEIGHBORS_ADDR, 0);
-            } else {
-                long [] newCID = new long[1];
-                created = CHUNK_LOCAL_SERVICE.createLocal().create(newCID, 1, Long.BYTES * p_vertices[i].getNeighbors().length);
-                if (created != 1) {
-                    throw new RuntimeException("Failed to create a new chunk!");
-                }
-                CHUNK_LOCAL_SERVICE.rawWriteLocal().writeLong(address, OFFSET_NEIGHBORS_CID, newCID[0]);
-                long address2 = CHUNK_LOCAL_SERVICE.pinningLocal().pin(newCID[0]).getAddress();
-                CHUNK_LOCAL_SERVICE.rawWriteLocal().writeLong(address, OFFSET_NEIGHBORS_ADDR, address2);
-                CHUNK_LOCAL_SERVICE.rawWriteLocal().writeLongArray(address2, 0, p_vertices[i].getNeighbors());
-            }
-            CHUNK_LOCAL_SERVICE.pinningLocal().unpinCID(cids[i]);            
-        }
+
+        int[] sizes = new int[p_vertices.length];
+        Arrays.fill(sizes, size);
+        writeBatch(p_vertices, cids, sizes);
         return cids;
     }
 
@@ -144,33 +227,63 @@ public final class DirectVertex implements AutoCloseable {
         int[] sizes = new int[p_vertices.length];
         for (int i = 0; i < p_vertices.length; i++) {
             cids[i] = p_vertices[i].getID();
-            sizes[i] = size();
+            sizes[i] = size(p_vertices[i].getNeighbors().length);
         }
         int created = CHUNK_LOCAL_SERVICE.createReservedLocal().create(cids, cids.length, sizes);
         if (created != p_vertices.length) {
             throw new RuntimeException(String.format("Failed to create %d chunks!", p_vertices.length));
         }
-        // initialize with default values
-        for (int i = 0; i < p_vertices.length; i++) {
-            long address = CHUNK_LOCAL_SERVICE.pinningLocal().pin(cids[i]).getAddress();
-            CHUNK_LOCAL_SERVICE.rawWriteLocal().writeInt(address, OFFSET_DEPTH, p_vertices[i].getDepth());
-            CHUNK_LOCAL_SERVICE.rawWriteLocal().writeInt(address, OFFSET_NEIGHBORS_LENGTH, p_vertices[i].getNeighbors().length);
-            if (p_vertices[i].getNeighbors().length == 0) {
-                CHUNK_LOCAL_SERVICE.rawWriteLocal().writeLong(address, OFFSET_NEIGHBORS_CID, ChunkID.INVALID_ID);
-                CHUNK_LOCAL_SERVICE.rawWriteLocal().writeLong(address, OFFSET_NEIGHBORS_ADDR, 0);
-            } else {
-                long [] newCID = new long[1];
-                created = CHUNK_LOCAL_SERVICE.createLocal().create(newCID, 1, Long.BYTES * p_vertices[i].getNeighbors().length);
-                if (created != 1) {
-                    throw new RuntimeException("Failed to create a new chunk!");
-                }
-                CHUNK_LOCAL_SERVICE.rawWriteLocal().writeLong(address, OFFSET_NEIGHBORS_CID, newCID[0]);
-                long address2 = CHUNK_LOCAL_SERVICE.pinningLocal().pin(newCID[0]).getAddress();
-                CHUNK_LOCAL_SERVICE.rawWriteLocal().writeLong(address, OFFSET_NEIGHBORS_ADDR, address2);
-                CHUNK_LOCAL_SERVICE.rawWriteLocal().writeLongArray(address2, 0, p_vertices[i].getNeighbors());
-            }
-            CHUNK_LOCAL_SERVICE.pinningLocal().unpinCID(cids[i]);            
+
+        writeBatch(p_vertices, cids, sizes);
+        return cids;
+    }
+
+    /**
+     * Create the vertex chunks of a batch with their (reserved) ids taken from the batch. The depth of the vertices
+     * is initialized to -1.
+     *
+     * @param p_batch
+     *         Vertices to create, ids and neighbors rebased to chunk ids
+     * @return Chunk ids of the created vertices
+     */
+    public static long[] createReserved(final VertexBatch p_batch) {
+        int count = p_batch.getCount();
+        long[] cids = new long[count];
+        int[] sizes = new int[count];
+        for (int i = 0; i < count; i++) {
+            cids[i] = p_batch.getId(i);
+            sizes[i] = size(p_batch.getNeighborsLength(i));
+        }
+        int created = CHUNK_LOCAL_SERVICE.createReservedLocal().create(cids, count, sizes);
+        if (created != count) {
+            throw new RuntimeException(String.format("Failed to create %d chunks!", count));
+        }
+
+        int chunkCount = 0;
+        for (int i = 0; i < count; i++) {
+            chunkCount += getNeighborsChunkCount(p_batch.getNeighborsLength(i), sizes[i]);
+        }
+
+        int[] neighborsSizes = new int[chunkCount];
+        int pos = 0;
+        for (int i = 0; i < count; i++) {
+            pos = getNeighborsChunkSizes(p_batch.getNeighborsLength(i), sizes[i], neighborsSizes, pos);
+        }
+
+        long[] neighborsCids = createNeighborsChunks(neighborsSizes);
+        long[] neighborsAddresses = pinChunks(neighborsCids);
+        long[] addresses = pinChunks(cids);
+
+        long[] neighbors = p_batch.getNeighbors();
+        pos = 0;
+        for (int i = 0; i < count; i++) {
+            CHUNK_LOCAL_SERVICE.rawWriteLocal().writeInt(addresses[i], OFFSET_DEPTH, -1);
+            pos = writeNeighbors(addresses[i], neighbors, p_batch.getNeighborsStart(i), p_batch.getNeighborsLength(i), sizes[i],
+                    neighborsCids, neighborsAddresses, pos);
         }
+
+        unpinChunks(cids);
+
         return cids;
     }
 
@@ -185,11 +298,7 @@ public final class DirectVertex implements AutoCloseable {
 
     public static void remove(final long p_cid) {
         long address = CHUNK_LOCAL_SERVICE.pinningLocal().pin(p_cid).getAddress();
-        int neighborsLength = CHUNK_LOCAL_SERVICE.rawReadLocal().readInt(address, OFFSET_NEIGHBORS_LENGTH);
-        if (neighborsLength > 0) {
-            long neighborsCID = CHUNK_LOCAL_SERVICE.rawReadLocal().readInt(address, OFFSET_NEIGHBORS_CID);
-            CHUNK_SERVICE.remove().remove(neighborsCID);
-        }
+        removeNeighbors(address);
         CHUNK_LOCAL_SERVICE.pinningLocal().unpinCID(p_cid);
 
         int removed = CHUNK_SERVICE.remove().remove(p_cid);
@@ -201,11 +310,7 @@ public final class DirectVertex implements AutoCloseable {
     public static void remove(final long[] p_cids) {
         for (int i = 0; i < p_cids.length; i++) {
             long address = CHUNK_LOCAL_SERVICE.pinningLocal().pin(p_cids[i]).getAddress();
-            int neighborsLength = CHUNK_LOCAL_SERVICE.rawReadLocal().readInt(address, OFFSET_NEIGHBORS_LENGTH);
-            if (neighborsLength > 0) {
-                long neighborsCID = CHUNK_LOCAL_SERVICE.rawReadLocal().readInt(address, OFFSET_NEIGHBORS_CID);
-                CHUNK_SERVICE.remove().remove(neighborsCID);
-            }
+            removeNeighbors(address);
             CHUNK_LOCAL_SERVICE.pinningLocal().unpinCID(p_cids[i]);
         }
         int removed = CHUNK_SERVICE.remove().remove(p_cids);
@@ -215,64 +320,456 @@ public final class DirectVertex implements AutoCloseable {
     }
 
     public static int getDepth(final long p_cid) {
-        long address = CHUNK_LOCAL_SERVICE.pinningLocal().pin(p_cid).getAddress();
+        VertexProperties.Column depths = DEPTH_COLUMN;
+        if (depths != null && depths.contains(p_cid)) {
+            return depths.getInt(ChunkID.getLocalID(p_cid));
+        }
+
+        checkDepthInChunk(p_cid);
+        long address = pinVertex(p_cid);
         int depth = CHUNK_LOCAL_SERVICE.rawReadLocal().readInt(address, OFFSET_DEPTH);
-        CHUNK_LOCAL_SERVICE.pinningLocal().unpinCID(p_cid);
+        unpinVertex(p_cid);
         return depth;
     }
 
     public static void setDepth(final long p_cid, final int p_depth) {
-        long address = CHUNK_LOCAL_SERVICE.pinningLocal().pin(p_cid).getAddress();
+        VertexProperties.Column depths = DEPTH_COLUMN;
+        if (depths != null && depths.contains(p_cid)) {
+            depths.setInt(ChunkID.getLocalID(p_cid), p_depth);
+            return;
+        }
+
+        checkDepthInChunk(p_cid);
+        long address = pinVertex(p_cid);
         CHUNK_LOCAL_SERVICE.rawWriteLocal().writeInt(address, OFFSET_DEPTH, p_depth);
-        CHUNK_LOCAL_SERVICE.pinningLocal().unpinCID(p_cid);
+        unpinVertex(p_cid);
     }
 
     public static int getNeighborsLength(final long p_cid) {
-        long address = CHUNK_LOCAL_SERVICE.pinningLocal().pin(p_cid).getAddress();
-        return CHUNK_LOCAL_SERVICE.rawReadLocal().readInt(address, OFFSET_NEIGHBORS_LENGTH);
+        GraphPartitionStore store = getStore(p_cid);
+        if (store != null) {
+            return store.getNeighborsLength(p_cid);
+        }
+
+        long address = pinVertex(p_cid);
+        int count = CHUNK_LOCAL_SERVICE.rawReadLocal().readInt(address, OFFSET_NEIGHBORS_LENGTH) & NEIGHBORS_LENGTH_MASK;
+        unpinVertex(p_cid);
+        return count;
     }
 
     // TODO getNeighbor(index)
     public static long[] getNeighbors(final long p_cid) {
-        long address = CHUNK_LOCAL_SERVICE.pinningLocal().pin(p_cid).getAddress();
-        int count = CHUNK_LOCAL_SERVICE.rawReadLocal().readInt(address, OFFSET_NEIGHBORS_LENGTH);
+        GraphPartitionStore store = getStore(p_cid);
+        if (store != null) {
+            return store.getNeighbors(p_cid);
+        }
 
-        if (count == 0) {
-            CHUNK_LOCAL_SERVICE.pinningLocal().unpinCID(p_cid);
+        long address = pinVertex(p_cid);
+        long[] neighbors = readNeighbors(address);
+        unpinVertex(p_cid);
+        return neighbors;
+    }
+
+    /**
+     * Check if a neighbor list of the given length is stored as linked segments.
+     *
+     * @param p_neighborsLength
+     *         Number of neighbors
+     * @return True if split into segments of SEGMENT_SIZE neighbors
+     */
+    public static boolean isSegmented(final int p_neighborsLength) {
+        return p_neighborsLength > SEGMENT_SIZE;
+    }
+
+    /**
+     * Get the number of segments of a neighbor list.
+     *
+     * @param p_neighborsLength
+     *         Number of neighbors
+     * @return Number of segments, 1 for (non empty) lists which are not segmented
+     */
+    public static int getSegmentCount(final int p_neighborsLength) {
+        return (int) (((long) p_neighborsLength + SEGMENT_SIZE - 1) / SEGMENT_SIZE);
+    }
+
+    /**
+     * Get the addresses of the (pinned) neighbor segments of a high degree vertex. The segments can be read
+     * independently, e.g. by multiple threads, using readSegment or NeighborCursor.openSegment. For vertices of the
+     * GraphPartitionStore, the segments are ranges of its neighbors array and can only be read with the cursor.
+     *
+     * @param p_cid
+     *         Chunk id of the vertex
+     * @return Addresses (or store positions) of all segments in list order, empty if the neighbor list is not segmented
+     */
+    public static long[] getNeighborSegments(final long p_cid) {
+        GraphPartitionStore store = getStore(p_cid);
+        if (store != null) {
+            return store.getNeighborSegments(p_cid);
+        }
+
+        long address = pinVertex(p_cid);
+        int count = CHUNK_LOCAL_SERVICE.rawReadLocal().readInt(address, OFFSET_NEIGHBORS_LENGTH) & NEIGHBORS_LENGTH_MASK;
+
+        if (!isSegmented(count)) {
+            unpinVertex(p_cid);
             return new long[0];
         }
 
-        long address2 = CHUNK_LOCAL_SERVICE.rawReadLocal().readLong(address, OFFSET_NEIGHBORS_ADDR);
-        CHUNK_LOCAL_SERVICE.pinningLocal().unpinCID(p_cid);
-        return CHUNK_LOCAL_SERVICE.rawReadLocal().readLongArray(address2, 0, count);
+        long[] segments = new long[getSegmentCount(count)];
+        segments[0] = CHUNK_LOCAL_SERVICE.rawReadLocal().readLong(address, OFFSET_NEIGHBORS_ADDR);
+        unpinVertex(p_cid);
+
+        for (int i = 1; i < segments.length; i++) {
+            segments[i] = CHUNK_LOCAL_SERVICE.rawReadLocal().readLong(segments[i - 1], OFFSET_SEGMENT_NEXT_ADDR);
+        }
+
+        return segments;
+    }
+
+    /**
+     * Read the neighbors of a single segment.
+     *
+     * @param p_segmentAddress
+     *         Address of the segment (see getNeighborSegments)
+     * @param p_segmentIndex
+     *         Index of the segment in the neighbor list
+     * @param p_neighborsLength
+     *         Total number of neighbors of the vertex
+     * @return Neighbors stored in the segment
+     */
+    public static long[] readSegment(final long p_segmentAddress, final int p_segmentIndex, final int p_neighborsLength) {
+        int count = Math.min(SEGMENT_SIZE, p_neighborsLength - p_segmentIndex * SEGMENT_SIZE);
+        return CHUNK_LOCAL_SERVICE.rawReadLocal().readLongArray(p_segmentAddress, SEGMENT_HEADER_SIZE, count);
+    }
+
+    /**
+     * Call a consumer for every neighbor of a vertex, reading straight from the vertex or neighbors chunk(s) without
+     * copying the list to a new array.
+     *
+     * @param p_cid
+     *         Chunk id of the vertex
+     * @param p_consumer
+     *         Consumer to call for every neighbor
+     */
+    public static void forEachNeighbor(final long p_cid, final LongConsumer p_consumer) {
+        NeighborCursor cursor = new NeighborCursor();
+        cursor.open(p_cid);
+        while (cursor.hasNext()) {
+            p_consumer.accept(cursor.next());
+        }
+        cursor.close();
     }
 
     public static void setNeighbors(final long p_cid, final long[] p_neighbors) {
         long address = CHUNK_LOCAL_SERVICE.pinningLocal().pin(p_cid).getAddress();
+        int capacity = getChunkCapacity(address);
         // remove old array
-        long cid = CHUNK_LOCAL_SERVICE.rawReadLocal().readLong(address, OFFSET_NEIGHBORS_CID);
-        CHUNK_LOCAL_SERVICE.pinningLocal().unpinCID(cid);
-        CHUNK_SERVICE.remove().remove(cid);
+        removeNeighbors(address);
         // set new array
-        CHUNK_LOCAL_SERVICE.rawWriteLocal().writeInt(address, OFFSET_NEIGHBORS_LENGTH, p_neighbors.length);
-        if (p_neighbors.length == 0) {
-            CHUNK_LOCAL_SERVICE.rawWriteLocal().writeLong(address, OFFSET_NEIGHBORS_CID, ChunkID.INVALID_ID);
-            CHUNK_LOCAL_SERVICE.rawWriteLocal().writeLong(address, OFFSET_NEIGHBORS_ADDR, Address.INVALID);
-        } else {
-            // TODO: fix dxram API, for now this workaround
-            long [] newCID = new long[1];
-            int created = CHUNK_LOCAL_SERVICE.createLocal().create(newCID, 1, Long.BYTES * p_neighbors.length);
-            if (created != 1) {
-                throw new RuntimeException("Failed to create a new chunk!");
-            }
-            CHUNK_LOCAL_SERVICE.rawWriteLocal().writeLong(address, OFFSET_NEIGHBORS_CID, newCID[0]);
-            long address2 = CHUNK_LOCAL_SERVICE.pinningLocal().pin(newCID[0]).getAddress();
-            CHUNK_LOCAL_SERVICE.rawWriteLocal().writeLong(address, OFFSET_NEIGHBORS_ADDR, address2);
-            CHUNK_LOCAL_SERVICE.rawWriteLocal().writeLongArray(address2, 0, p_neighbors);
-        }
+        writeNeighbors(address, p_neighbors, capacity);
         CHUNK_LOCAL_SERVICE.pinningLocal().unpinCID(p_cid);
     }
 
+    /**
+     * Vertices of the partition store have no chunk to keep the depth in, the depth column is required.
+     */
+    private static void checkDepthInChunk(final long p_cid) {
+        if (getStore(p_cid) != null) {
+            throw new IllegalStateException(String.format("No depth column registered for vertex 0x%X of the partition store", p_cid));
+        }
+    }
+
+    /**
+     * Get the partition store if the vertex is stored there instead of its own chunk.
+     */
+    private static GraphPartitionStore getStore(final long p_cid) {
+        GraphPartitionStore store = GraphPartitionStore.get();
+        return store != null && store.contains(p_cid) ? store : null;
+    }
+
+    /**
+     * Get the address of a vertex chunk, cached if the vertex belongs to the pinned partition. Otherwise, the chunk
+     * is pinned and must be unpinned with unpinVertex.
+     */
+    private static long pinVertex(final long p_cid) {
+        long address = getPinnedAddress(p_cid);
+        if (address != Address.INVALID) {
+            return address;
+        }
+
+        return CHUNK_LOCAL_SERVICE.pinningLocal().pin(p_cid).getAddress();
+    }
+
+    private static void unpinVertex(final long p_cid) {
+        if (getPinnedAddress(p_cid) == Address.INVALID) {
+            CHUNK_LOCAL_SERVICE.pinningLocal().unpinCID(p_cid);
+        }
+    }
+
+    private static long getPinnedAddress(final long p_cid) {
+        long[] addresses = PINNED_ADDRESSES;
+        if (addresses == null || ChunkID.getCreatorID(p_cid) != PINNED_NODE_ID) {
+            return Address.INVALID;
+        }
+
+        long localId = ChunkID.getLocalID(p_cid);
+        return localId < addresses.length ? addresses[(int) localId] : Address.INVALID;
+    }
+
+    /**
+     * Get the (min.) size of an existing vertex chunk derived from its current neighbors layout. Vertex chunks are
+     * never resized, a new neighbor list is only stored inline if it fits.
+     */
+    private static int getChunkCapacity(final long p_address) {
+        int length = CHUNK_LOCAL_SERVICE.rawReadLocal().readInt(p_address, OFFSET_NEIGHBORS_LENGTH);
+        if ((length & NEIGHBORS_EXTERNAL_FLAG) != 0) {
+            return HEADER_SIZE;
+        }
+
+        return Math.max(HEADER_SIZE, OFFSET_NEIGHBORS_INLINE + Long.BYTES * length);
+    }
+
+    /**
+     * Write depth and neighbors of a batch of created vertex chunks. The neighbors chunks of all vertices of the
+     * batch are created with a single call, all chunks of the batch are pinned before and the vertex chunks unpinned
+     * after a single write pass over the batch.
+     */
+    private static void writeBatch(final Vertex[] p_vertices, final long[] p_cids, final int[] p_chunkSizes) {
+        int chunkCount = 0;
+        for (int i = 0; i < p_vertices.length; i++) {
+            chunkCount += getNeighborsChunkCount(p_vertices[i].getNeighbors().length, p_chunkSizes[i]);
+        }
+
+        int[] sizes = new int[chunkCount];
+        int pos = 0;
+        for (int i = 0; i < p_vertices.length; i++) {
+            pos = getNeighborsChunkSizes(p_vertices[i].getNeighbors().length, p_chunkSizes[i], sizes, pos);
+        }
+
+        long[] neighborsCids = createNeighborsChunks(sizes);
+        long[] neighborsAddresses = pinChunks(neighborsCids);
+        long[] addresses = pinChunks(p_cids);
+
+        pos = 0;
+        for (int i = 0; i < p_vertices.length; i++) {
+            CHUNK_LOCAL_SERVICE.rawWriteLocal().writeInt(addresses[i], OFFSET_DEPTH, p_vertices[i].getDepth());
+            long[] neighbors = p_vertices[i].getNeighbors();
+            pos = writeNeighbors(addresses[i], neighbors, 0, neighbors.length, p_chunkSizes[i], neighborsCids, neighborsAddresses, pos);
+        }
+
+        unpinChunks(p_cids);
+    }
+
+    /**
+     * Check if a neighbor list is stored in the vertex chunk itself: up to the inline limit and if the chunk has
+     * room for it.
+     */
+    private static boolean isInline(final int p_neighborsLength, final int p_chunkSize) {
+        return p_neighborsLength <= INLINE_NEIGHBORS && OFFSET_NEIGHBORS_INLINE + Long.BYTES * p_neighborsLength <= p_chunkSize;
+    }
+
+    /**
+     * Get the number of neighbors chunks of a neighbor list: none if inline, one or one per segment.
+     */
+    private static int getNeighborsChunkCount(final int p_neighborsLength, final int p_chunkSize) {
+        if (isInline(p_neighborsLength, p_chunkSize)) {
+            return 0;
+        }
+
+        return isSegmented(p_neighborsLength) ? getSegmentCount(p_neighborsLength) : 1;
+    }
+
+    /**
+     * Add the sizes of the neighbors chunks of a neighbor list (in list order).
+     *
+     * @return Position in the sizes array behind the added sizes
+     */
+    private static int getNeighborsChunkSizes(final int p_neighborsLength, final int p_chunkSize, final int[] p_sizes, final int p_pos) {
+        int pos = p_pos;
+        if (isInline(p_neighborsLength, p_chunkSize)) {
+            return pos;
+        }
+
+        if (!isSegmented(p_neighborsLength)) {
+            p_sizes[pos++] = Long.BYTES * p_neighborsLength;
+            return pos;
+        }
+
+        for (int start = 0; start < p_neighborsLength; start += SEGMENT_SIZE) {
+            p_sizes[pos++] = SEGMENT_HEADER_SIZE + Long.BYTES * Math.min(SEGMENT_SIZE, p_neighborsLength - start);
+        }
+
+        return pos;
+    }
+
+    /**
+     * Write the neighbor list of a vertex, creating its neighbors chunks. See writeNeighbors with created chunks.
+     */
+    private static void writeNeighbors(final long p_address, final long[] p_neighbors, final int p_chunkSize) {
+        int[] sizes = new int[getNeighborsChunkCount(p_neighbors.length, p_chunkSize)];
+        getNeighborsChunkSizes(p_neighbors.length, p_chunkSize, sizes, 0);
+        long[] cids = createNeighborsChunks(sizes);
+        writeNeighbors(p_address, p_neighbors, 0, p_neighbors.length, p_chunkSize, cids, pinChunks(cids), 0);
+    }
+
+    /**
+     * Write the neighbor list of a vertex. Lists up to the inline limit are stored in the vertex chunk itself
+     * (if it has room for them), longer lists as a single (pinned) chunk, lists exceeding SEGMENT_SIZE as linked
+     * segments which also lifts the size limit of a single chunk. The neighbors chunks are pinned by the caller and
+     * stay pinned.
+     *
+     * @param p_address
+     *         Address of the vertex chunk
+     * @param p_neighbors
+     *         Array with the neighbors to write
+     * @param p_from
+     *         Position of the first neighbor in p_neighbors
+     * @param p_length
+     *         Number of neighbors to write
+     * @param p_chunkSize
+     *         Size of the vertex chunk
+     * @param p_neighborsCids
+     *         Created neighbors chunks (see getNeighborsChunkSizes)
+     * @param p_neighborsAddresses
+     *         Addresses of the pinned neighbors chunks
+     * @param p_pos
+     *         Position of the first neighbors chunk of this list in p_neighborsCids
+     * @return Position in p_neighborsCids behind the chunks used for this list
+     */
+    private static int writeNeighbors(final long p_address, final long[] p_neighbors, final int p_from, final int p_length,
+            final int p_chunkSize, final long[] p_neighborsCids, final long[] p_neighborsAddresses, final int p_pos) {
+        if (isInline(p_length, p_chunkSize)) {
+            CHUNK_LOCAL_SERVICE.rawWriteLocal().writeInt(p_address, OFFSET_NEIGHBORS_LENGTH, p_length);
+            CHUNK_LOCAL_SERVICE.rawWriteLocal().write(p_address, OFFSET_NEIGHBORS_INLINE, p_neighbors, p_from, p_length);
+            return p_pos;
+        }
+
+        CHUNK_LOCAL_SERVICE.rawWriteLocal().writeInt(p_address, OFFSET_NEIGHBORS_LENGTH, p_length | NEIGHBORS_EXTERNAL_FLAG);
+
+        if (!isSegmented(p_length)) {
+            long cid = p_neighborsCids[p_pos];
+            long address = p_neighborsAddresses[p_pos];
+            CHUNK_LOCAL_SERVICE.rawWriteLocal().writeLong(p_address, OFFSET_NEIGHBORS_CID, cid);
+            CHUNK_LOCAL_SERVICE.rawWriteLocal().writeLong(p_address, OFFSET_NEIGHBORS_ADDR, address);
+            CHUNK_LOCAL_SERVICE.rawWriteLocal().write(address, 0, p_neighbors, p_from, p_length);
+            return p_pos + 1;
+        }
+
+        // every segment links to its successor
+        int segments = getSegmentCount(p_length);
+        for (int i = 0; i < segments; i++) {
+            int start = i * SEGMENT_SIZE;
+            int end = Math.min(start + SEGMENT_SIZE, p_length);
+            boolean last = i == segments - 1;
+            long address = p_neighborsAddresses[p_pos + i];
+            long nextCid = last ? ChunkID.INVALID_ID : p_neighborsCids[p_pos + i + 1];
+            long nextAddress = last ? Address.INVALID : p_neighborsAddresses[p_pos + i + 1];
+
+            CHUNK_LOCAL_SERVICE.rawWriteLocal().writeLong(address, OFFSET_SEGMENT_NEXT_CID, nextCid);
+            CHUNK_LOCAL_SERVICE.rawWriteLocal().writeLong(address, OFFSET_SEGMENT_NEXT_ADDR, nextAddress);
+            CHUNK_LOCAL_SERVICE.rawWriteLocal().write(address, SEGMENT_HEADER_SIZE, p_neighbors, p_from + start, end - start);
+        }
+
+        CHUNK_LOCAL_SERVICE.rawWriteLocal().writeLong(p_address, OFFSET_NEIGHBORS_CID, p_neighborsCids[p_pos]);
+        CHUNK_LOCAL_SERVICE.rawWriteLocal().writeLong(p_address, OFFSET_NEIGHBORS_ADDR, p_neighborsAddresses[p_pos]);
+        return p_pos + segments;
+    }
+
+    /**
+     * Read the full neighbor list of a vertex, inline or starting at the first neighbors chunk (or segment).
+     */
+    private static long[] readNeighbors(final long p_address) {
+        int length = CHUNK_LOCAL_SERVICE.rawReadLocal().readInt(p_address, OFFSET_NEIGHBORS_LENGTH);
+        int count = length & NEIGHBORS_LENGTH_MASK;
+
+        if (count == 0) {
+            return new long[0];
+        }
+
+        if ((length & NEIGHBORS_EXTERNAL_FLAG) == 0) {
+            return CHUNK_LOCAL_SERVICE.rawReadLocal().readLongArray(p_address, OFFSET_NEIGHBORS_INLINE, count);
+        }
+
+        long address = CHUNK_LOCAL_SERVICE.rawReadLocal().readLong(p_address, OFFSET_NEIGHBORS_ADDR);
+        if (!isSegmented(count)) {
+            return CHUNK_LOCAL_SERVICE.rawReadLocal().readLongArray(address, 0, count);
+        }
+
+        long[] neighbors = new long[count];
+        for (int start = 0; start < count; start += SEGMENT_SIZE) {
+            long[] segment = CHUNK_LOCAL_SERVICE.rawReadLocal().readLongArray(address, SEGMENT_HEADER_SIZE,
+                    Math.min(SEGMENT_SIZE, count - start));
+            System.arraycopy(segment, 0, neighbors, start, segment.length);
+            address = CHUNK_LOCAL_SERVICE.rawReadLocal().readLong(address, OFFSET_SEGMENT_NEXT_ADDR);
+        }
+
+        return neighbors;
+    }
+
+    /**
+     * Unpin and remove the neighbors chunk (or all segments) of a vertex. Nothing to do for inline lists.
+     */
+    private static void removeNeighbors(final long p_address) {
+        int length = CHUNK_LOCAL_SERVICE.rawReadLocal().readInt(p_address, OFFSET_NEIGHBORS_LENGTH);
+        if ((length & NEIGHBORS_EXTERNAL_FLAG) == 0) {
+            return;
+        }
+
+        int count = length & NEIGHBORS_LENGTH_MASK;
+
+        long cid = CHUNK_LOCAL_SERVICE.rawReadLocal().readLong(p_address, OFFSET_NEIGHBORS_CID);
+        long address = CHUNK_LOCAL_SERVICE.rawReadLocal().readLong(p_address, OFFSET_NEIGHBORS_ADDR);
+        boolean segmented = isSegmented(count);
+
+        while (cid != ChunkID.INVALID_ID) {
+            long nextCid = segmented ? CHUNK_LOCAL_SERVICE.rawReadLocal().readLong(address, OFFSET_SEGMENT_NEXT_CID) : ChunkID.INVALID_ID;
+            long nextAddress = segmented ? CHUNK_LOCAL_SERVICE.rawReadLocal().readLong(address, OFFSET_SEGMENT_NEXT_ADDR) : Address.INVALID;
+
+            CHUNK_LOCAL_SERVICE.pinningLocal().unpinCID(cid);
+            CHUNK_SERVICE.remove().remove(cid);
+
+            cid = nextCid;
+            address = nextAddress;
+        }
+    }
+
+    /**
+     * Create neighbors chunks of different sizes with a single call (reserved chunk ids).
+     */
+    private static long[] createNeighborsChunks(final int[] p_sizes) {
+        if (p_sizes.length == 0) {
+            return new long[0];
+        }
+
+        long[] cids = CHUNK_LOCAL_SERVICE.reserveLocal().reserve(p_sizes.length);
+        int created = CHUNK_LOCAL_SERVICE.createReservedLocal().create(cids, cids.length, p_sizes);
+        if (created != p_sizes.length) {
+            throw new RuntimeException(String.format("Failed to create %d chunks!", p_sizes.length));
+        }
+
+        return cids;
+    }
+
+    /**
+     * Pin a batch of chunks.
+     *
+     * @return Addresses of the pinned chunks
+     */
+    private static long[] pinChunks(final long[] p_cids) {
+        long[] addresses = new long[p_cids.length];
+        for (int i = 0; i < p_cids.length; i++) {
+            addresses[i] = CHUNK_LOCAL_SERVICE.pinningLocal().pin(p_cids[i]).getAddress();
+        }
+
+        return addresses;
+    }
+
+    private static void unpinChunks(final long[] p_cids) {
+        for (long cid : p_cids) {
+            CHUNK_LOCAL_SERVICE.pinningLocal().unpinCID(cid);
+        }
+    }
+
     private final long m_cid;
     private final long m_address;
 
@@ -282,46 +779,34 @@ public final class DirectVertex implements AutoCloseable {
     }
 
     public int getDepth() {
+        VertexProperties.Column depths = DEPTH_COLUMN;
+        if (depths != null && depths.contains(m_cid)) {
+            return depths.getInt(ChunkID.getLocalID(m_cid));
+        }
+
         return CHUNK_LOCAL_SERVICE.rawReadLocal().readInt(m_address, OFFSET_DEPTH);
     }
 
     public void setDepth(final int p_depth) {
+        VertexProperties.Column depths = DEPTH_COLUMN;
+        if (depths != null && depths.contains(m_cid)) {
+            depths.setInt(ChunkID.getLocalID(m_cid), p_depth);
+            return;
+        }
+
         CHUNK_LOCAL_SERVICE.rawWriteLocal().writeInt(m_address, OFFSET_DEPTH, p_depth);
     }
 
     public long[] getNeighbors() {
-        int count = CHUNK_LOCAL_SERVICE.rawReadLocal().readInt(m_address, OFFSET_NEIGHBORS_LENGTH);
-
-        if (count == 0) {
-            return new long[0];
-        }
-
-        long address = CHUNK_LOCAL_SERVICE.rawReadLocal().readLong(m_address, OFFSET_NEIGHBORS_ADDR);
-        return CHUNK_LOCAL_SERVICE.rawReadLocal().readLongArray(address, 0, count);
+        return readNeighbors(m_address);
     }
 
     public void setNeighbors(final long[] p_neighbors) {
+        int capacity = getChunkCapacity(m_address);
         // remove old array
-        long cid = CHUNK_LOCAL_SERVICE.rawReadLocal().readLong(m_address, OFFSET_NEIGHBORS_CID);
-        CHUNK_LOCAL_SERVICE.pinningLocal().unpinCID(cid);
-        CHUNK_SERVICE.remove().remove(cid);
+        removeNeighbors(m_address);
         // set new array
-        CHUNK_LOCAL_SERVICE.rawWriteLocal().writeInt(m_address, OFFSET_NEIGHBORS_LENGTH, p_neighbors.length);
-        if (p_neighbors.length == 0) {
-            CHUNK_LOCAL_SERVICE.rawWriteLocal().writeLong(m_address, OFFSET_NEIGHBORS_CID, ChunkID.INVALID_ID);
-            CHUNK_LOCAL_SERVICE.rawWriteLocal().writeLong(m_address, OFFSET_NEIGHBORS_ADDR, Address.INVALID);
-        } else {
-            // TODO: fix dxram API, for now this workaround
-            long [] newCID = new long[1];
-            int created = CHUNK_LOCAL_SERVICE.createLocal().create(newCID, 1, Long.BYTES * p_neighbors.length);
-            if (created != 1) {
-                throw new RuntimeException("Failed to create a new chunk!");
-            }
-            CHUNK_LOCAL_SERVICE.rawWriteLocal().writeLong(m_address, OFFSET_NEIGHBORS_CID, newCID[0]);
-            long address = CHUNK_LOCAL_SERVICE.pinningLocal().pin(newCID[0]).getAddress();
-            CHUNK_LOCAL_SERVICE.rawWriteLocal().writeLong(m_address, OFFSET_NEIGHBORS_ADDR, address);
-            CHUNK_LOCAL_SERVICE.rawWriteLocal().writeLongArray(address, 0, p_neighbors);
-        }
+        writeNeighbors(m_address, p_neighbors, capacity);
     }
 
     @Override
@@ -329,4 +814,408 @@ public final class DirectVertex implements AutoCloseable {
         // unpin via CID instead of address is faster
         CHUNK_LOCAL_SERVICE.pinningLocal().unpinCID(m_cid);
     }
+
+    /**
+     * Reusable cursor over a neighbor list (or a single segment of it) reading straight from the vertex chunk
+     * (inline lists), the pinned neighbors chunks or the GraphPartitionStore. Not thread safe, use one instance per
+     * thread.
+     * <p>
+     * Lists of the store split into a local and a remote section (see isSplit) can be read per section as well:
+     * readLocalInto for the local ids, then nextRemoteGroup and readRemoteInto for the neighbors of every remote node.
+     * next and readInto return chunk ids of both sections (local first).
+     */
+    public static final class NeighborCursor {
+        private static final int BYTE_BUFFER_SIZE = 4096;
+
+        // store of the current vertex and position in its neighbors array, if not stored as chunks
+        private GraphPartitionStore m_store;
+        private long m_position;
+        // decoding state of compressed lists: vertex (base of the first delta), previous neighbor,
+        // neighbors left in the current segment and buffered bytes (read from m_position onwards)
+        private boolean m_compressed;
+        private long m_vertex;
+        private long m_previous;
+        private int m_remainingSegment;
+        private byte[] m_bytes;
+        private int m_bytePos;
+        private int m_byteLimit;
+        // state of split lists: m_position/m_remaining refer to the local section, position in the remote section,
+        // remote neighbors left (total and in the current group) and the node of the current group
+        private boolean m_split;
+        private short m_nodeId;
+        private long m_remotePosition;
+        private int m_remainingRemote;
+        private int m_remainingGroup;
+        private short m_remoteNode;
+        // vertex kept pinned while reading its inline neighbors (not part of the pinned partition)
+        private long m_pinnedCid = ChunkID.INVALID_ID;
+        private long m_address = Address.INVALID;
+        private int m_offset;
+        // neighbors left in the current chunk
+        private int m_remaining;
+        // neighbors left in the following segments
+        private int m_remainingNextSegments;
+
+        /**
+         * Open the full neighbor list of a vertex.
+         *
+         * @param p_cid
+         *         Chunk id of the vertex
+         * @return Number of neighbors
+         */
+        public int open(final long p_cid) {
+            close();
+
+            GraphPartitionStore store = getStore(p_cid);
+            if (store != null) {
+                m_store = store;
+                m_remaining = store.getNeighborsLength(p_cid);
+                if (store.isCompressed()) {
+                    openCompressed(p_cid, store.getCompressedNeighborsStart(p_cid, m_remaining));
+                    return m_remaining;
+                }
+
+                int count = m_remaining;
+                openSplit(store, store.getNeighborsOffset(p_cid), store.getLocalNeighborsLength(p_cid));
+                m_remotePosition = store.getRemoteNeighborsOffset(p_cid);
+                m_remainingRemote = count - m_remaining;
+
+                return count;
+            }
+
+            long address = pinVertex(p_cid);
+            int length = CHUNK_LOCAL_SERVICE.rawReadLocal().readInt(address, OFFSET_NEIGHBORS_LENGTH);
+            int count = length & NEIGHBORS_LENGTH_MASK;
+
+            if ((length & NEIGHBORS_EXTERNAL_FLAG) == 0) {
+                m_pinnedCid = p_cid;
+                m_address = address;
+                m_offset = OFFSET_NEIGHBORS_INLINE;
+                m_remaining = count;
+                m_remainingNextSegments = 0;
+
+                return count;
+            }
+
+            m_address = CHUNK_LOCAL_SERVICE.rawReadLocal().readLong(address, OFFSET_NEIGHBORS_ADDR);
+            unpinVertex(p_cid);
+
+            if (isSegmented(count)) {
+                m_offset = SEGMENT_HEADER_SIZE;
+                m_remaining = SEGMENT_SIZE;
+                m_remainingNextSegments = count - SEGMENT_SIZE;
+            } else {
+                m_offset = 0;
+                m_remaining = count;
+                m_remainingNextSegments = 0;
+            }
+
+            return count;
+        }
+
+        /**
+         * Open a single segment of a high degree vertex (see getNeighborSegments). Segments of split lists cover
+         * the local section only.
+         *
+         * @param p_cid
+         *         Chunk id of the vertex
+         * @param p_segmentAddress
+         *         Address (or store position) of the segment
+         * @param p_segmentIndex
+         *         Index of the segment in the neighbor list
+         * @param p_neighborsLength
+         *         Total number of neighbors of the vertex
+         * @return Number of neighbors in the segment
+         */
+        public int openSegment(final long p_cid, final long p_segmentAddress, final int p_segmentIndex, final int p_neighborsLength) {
+            close();
+
+            m_store = getStore(p_cid);
+            m_position = p_segmentAddress;
+            if (m_store != null && !m_store.isCompressed()) {
+                int localLength = m_store.getLocalNeighborsLength(p_cid);
+                openSplit(m_store, p_segmentAddress, Math.min(SEGMENT_SIZE, localLength - p_segmentIndex * SEGMENT_SIZE));
+
+                return m_remaining;
+            }
+
+            if (m_store != null) {
+                openCompressed(p_cid, p_segmentAddress);
+            }
+            m_address = p_segmentAddress;
+            m_offset = SEGMENT_HEADER_SIZE;
+            m_remaining = Math.min(SEGMENT_SIZE, p_neighborsLength - p_segmentIndex * SEGMENT_SIZE);
+            m_remainingNextSegments = 0;
+
+            return m_remaining;
+        }
+
+        /**
+         * Check if there are neighbors left.
+         *
+         * @return True if next() returns another neighbor
+         */
+        public boolean hasNext() {
+            return m_remaining > 0 || m_remainingNextSegments > 0 || m_remainingRemote > 0;
+        }
+
+        /**
+         * Check if the current list is split into a local and a remote section.
+         *
+         * @return True if the list can be read with readLocalInto, nextRemoteGroup and readRemoteInto
+         */
+        public boolean isSplit() {
+            return m_split;
+        }
+
+        /**
+         * Read the next local ids of the local section of a split list.
+         *
+         * @param p_buffer
+         *         Buffer to read into
+         * @param p_offset
+         *         Offset in the buffer to start at
+         * @return Number of local ids read, up to the space left in the buffer, 0 if the local section is done
+         */
+        public int readLocalInto(final long[] p_buffer, final int p_offset) {
+            int count = Math.min(m_remaining, p_buffer.length - p_offset);
+            m_store.readLocalNeighbors(m_position, p_buffer, p_offset, count);
+            m_position += count;
+            m_remaining -= count;
+
+            return count;
+        }
+
+        /**
+         * Skip the (rest of the) local section of a split list, e.g. if it is processed in segments.
+         */
+        public void skipLocal() {
+            m_position += m_remaining;
+            m_remaining = 0;
+        }
+
+        /**
+         * Move to the next group of the remote section of a split list, skipping the rest of the current group.
+         *
+         * @return Number of neighbors in the group, 0 if there are no groups left
+         */
+        public int nextRemoteGroup() {
+            m_remotePosition += m_remainingGroup;
+            m_remainingRemote -= m_remainingGroup;
+            m_remainingGroup = 0;
+
+            if (m_remainingRemote <= 0) {
+                m_remainingRemote = 0;
+                return 0;
+            }
+
+            long header = m_store.getRemoteEntry(m_remotePosition++);
+            m_remoteNode = GraphPartitionStore.getGroupNodeId(header);
+            m_remainingGroup = GraphPartitionStore.getGroupSize(header);
+
+            return m_remainingGroup;
+        }
+
+        /**
+         * Get the node of the current group of the remote section.
+         *
+         * @return Node id all neighbors of the group are stored on
+         */
+        public short getRemoteNode() {
+            return m_remoteNode;
+        }
+
+        /**
+         * Read the next neighbors (chunk ids) of the current group of the remote section.
+         *
+         * @param p_buffer
+         *         Buffer to read into
+         * @param p_offset
+         *         Offset in the buffer to start at
+         * @return Number of neighbors read, up to the space left in the buffer, 0 if the group is done
+         */
+        public int readRemoteInto(final long[] p_buffer, final int p_offset) {
+            int count = Math.min(m_remainingGroup, p_buffer.length - p_offset);
+            m_store.readRemoteNeighbors(m_remotePosition, p_buffer, p_offset, count);
+            m_remotePosition += count;
+            m_remainingGroup -= count;
+            m_remainingRemote -= count;
+
+            return count;
+        }
+
+        /**
+         * Get the next neighbor. Call hasNext() first.
+         *
+         * @return Next neighbor
+         */
+        public long next() {
+            if (m_compressed) {
+                return decodeNext();
+            }
+
+            if (m_split) {
+                if (m_remaining > 0) {
+                    m_remaining--;
+                    return ChunkID.getChunkID(m_nodeId, m_store.getLocalNeighbor(m_position++));
+                }
+
+                if (m_remainingGroup == 0) {
+                    nextRemoteGroup();
+                }
+
+                m_remainingGroup--;
+                m_remainingRemote--;
+                return m_store.getRemoteEntry(m_remotePosition++);
+            }
+
+            if (m_remaining == 0) {
+                nextSegment();
+            }
+
+            long neighbor = CHUNK_LOCAL_SERVICE.rawReadLocal().readLong(m_address, m_offset);
+            m_offset += Long.BYTES;
+            m_remaining--;
+
+            return neighbor;
+        }
+
+        /**
+         * Read the next neighbors into a buffer.
+         *
+         * @param p_buffer
+         *         Buffer to read into
+         * @param p_offset
+         *         Offset in the buffer to start at
+         * @return Number of neighbors read, up to the space left in the buffer, 0 if there are no neighbors left
+         */
+        public int readInto(final long[] p_buffer, final int p_offset) {
+            if (m_compressed) {
+                int count = Math.min(m_remaining, p_buffer.length - p_offset);
+                for (int i = 0; i < count; i++) {
+                    p_buffer[p_offset + i] = decodeNext();
+                }
+
+                return count;
+            }
+
+            if (m_split) {
+                int pos = p_offset + readLocalInto(p_buffer, p_offset);
+                for (int i = p_offset; i < pos; i++) {
+                    p_buffer[i] = ChunkID.getChunkID(m_nodeId, p_buffer[i]);
+                }
+
+                while (pos < p_buffer.length && m_remainingRemote > 0) {
+                    if (m_remainingGroup == 0) {
+                        nextRemoteGroup();
+                    }
+
+                    pos += readRemoteInto(p_buffer, pos);
+                }
+
+                return pos - p_offset;
+            }
+
+            int pos = p_offset;
+            while (pos < p_buffer.length && hasNext()) {
+                if (m_remaining == 0) {
+                    nextSegment();
+                }
+
+                int count = Math.min(m_remaining, p_buffer.length - pos);
+                CHUNK_LOCAL_SERVICE.rawReadLocal().read(m_address, m_offset, p_buffer, pos, count);
+
+                m_offset += count * Long.BYTES;
+                m_remaining -= count;
+                pos += count;
+            }
+
+            return pos - p_offset;
+        }
+
+        /**
+         * Release the vertex of the current inline neighbor list, if it was pinned by open. Called by open as well.
+         */
+        public void close() {
+            if (m_pinnedCid != ChunkID.INVALID_ID) {
+                unpinVertex(m_pinnedCid);
+                m_pinnedCid = ChunkID.INVALID_ID;
+            }
+
+            m_store = null;
+            m_compressed = false;
+            m_split = false;
+            m_remaining = 0;
+            m_remainingNextSegments = 0;
+            m_remainingRemote = 0;
+            m_remainingGroup = 0;
+        }
+
+        private void openSplit(final GraphPartitionStore p_store, final long p_position, final int p_localLength) {
+            m_split = true;
+            m_nodeId = p_store.getNodeId();
+            m_position = p_position;
+            m_remaining = p_localLength;
+        }
+
+        private void openCompressed(final long p_cid, final long p_position) {
+            if (m_bytes == null) {
+                m_bytes = new byte[BYTE_BUFFER_SIZE];
+            }
+
+            m_compressed = true;
+            m_vertex = p_cid;
+            m_position = p_position;
+            m_remainingSegment = 0;
+            m_bytePos = 0;
+            m_byteLimit = 0;
+        }
+
+        /**
+         * Decode the next neighbor of a compressed list, refilling the byte buffer if it may not hold a full varint.
+         */
+        private long decodeNext() {
+            if (m_byteLimit - m_bytePos < GraphPartitionStore.MAX_VARINT_BYTES) {
+                int left = m_byteLimit - m_bytePos;
+                System.arraycopy(m_bytes, m_bytePos, m_bytes, 0, left);
+                // don't read beyond the current list, most lists are a few bytes only
+                int length = (int) Math.min(m_bytes.length - left, (long) m_remaining * GraphPartitionStore.MAX_VARINT_BYTES);
+                int read = m_store.readBytes(m_position, m_bytes, left, length);
+                m_position += read;
+                m_bytePos = 0;
+                m_byteLimit = left + read;
+            }
+
+            long value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = m_bytes[m_bytePos++];
+                value |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+
+            long neighbor;
+            if (m_remainingSegment == 0) {
+                // first neighbor of a segment, zig-zag encoded delta to the vertex
+                m_remainingSegment = Math.min(SEGMENT_SIZE, m_remaining);
+                neighbor = m_vertex + (value >>> 1 ^ -(value & 1));
+            } else {
+                neighbor = m_previous + value;
+            }
+
+            m_previous = neighbor;
+            m_remainingSegment--;
+            m_remaining--;
+
+            return neighbor;
+        }
+
+        private void nextSegment() {
+            m_address = CHUNK_LOCAL_SERVICE.rawReadLocal().readLong(m_address, OFFSET_SEGMENT_NEXT_ADDR);
+            m_offset = SEGMENT_HEADER_SIZE;
+            m_remaining = Math.min(SEGMENT_SIZE, m_remainingNextSegments);
+            m_remainingNextSegments -= m_remaining;
+        }
+    }
 }
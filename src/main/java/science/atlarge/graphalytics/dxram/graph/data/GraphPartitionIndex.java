@@ -13,6 +13,7 @@
 
 package science.atlarge.graphalytics.dxram.graph.data;
 
+import java.util.Arrays;
 import java.util.Map;
 import java.util.TreeMap;
 
@@ -30,6 +31,14 @@ import de.hhu.bsinfo.dxutils.serialization.Importer;
 public class GraphPartitionIndex extends AbstractChunk {
     private Map<Integer, Entry> m_index = new TreeMap<>();
     private int m_size;
+    // first vertex id if the vertex ids of the graph are contiguous (dense), -1 otherwise
+    private long m_denseMinVertexId = -1;
+
+    // lookup tables for rebasing, rebuilt on every change of the index (not serialized)
+    // global index of the first vertex per partition (partition id order), padded to a power of two with Long.MAX_VALUE
+    private long[] m_vertexOffsets = new long[] {Long.MAX_VALUE};
+    private short[] m_nodeIds = new short[0];
+    private long m_totalVertexCount;
 
     /**
      * Constructor
@@ -71,6 +80,7 @@ public class GraphPartitionIndex extends AbstractChunk {
      */
     public void setPartitionEntry(final Entry p_entry) {
         m_index.put(p_entry.m_partitionIndex, p_entry);
+        buildLookupTables();
     }
 
     /**
@@ -84,6 +94,35 @@ public class GraphPartitionIndex extends AbstractChunk {
         return m_index.get(p_partitionId);
     }
 
+    /**
+     * Mark the vertex ids of the graph as dense, i.e. the vertex file is sorted and contains all ids of the range
+     * [p_minVertexId, p_minVertexId + total vertex count).
+     *
+     * @param p_minVertexId
+     *         First vertex id of the graph, -1 to mark the ids as not dense.
+     */
+    public void setDenseVertexIds(final long p_minVertexId) {
+        m_denseMinVertexId = p_minVertexId;
+    }
+
+    /**
+     * Check if the vertex ids of the graph are dense. The global index of a vertex is vertex id - min vertex id then.
+     *
+     * @return True if dense.
+     */
+    public boolean hasDenseVertexIds() {
+        return m_denseMinVertexId >= 0;
+    }
+
+    /**
+     * Get the first vertex id of a graph with dense vertex ids.
+     *
+     * @return Min. vertex id or -1 if the vertex ids are not dense.
+     */
+    public long getDenseMinVertexId() {
+        return m_denseMinVertexId;
+    }
+
     /**
      * Get the total number of partitions
      *
@@ -101,18 +140,13 @@ public class GraphPartitionIndex extends AbstractChunk {
      * @return Rebased vertex id to the partition the vertex is in.
      */
     public long rebaseGlobalVertexIdToLocalPartitionVertexId(final long p_vertexId) {
-        // find section the vertex (of the neighbor) is in
-        long globalVertexIDOffset = 0;
-        for (Entry entry : m_index.values()) {
-            if (p_vertexId >= globalVertexIDOffset && p_vertexId < globalVertexIDOffset + entry.m_vertexCount) {
-                return ChunkID.getChunkID(entry.m_nodeId, p_vertexId - globalVertexIDOffset) + 1;
-            }
-
-            globalVertexIDOffset += entry.m_vertexCount;
+        if (p_vertexId < 0 || p_vertexId >= m_totalVertexCount) {
+            // out of range ID
+            return ChunkID.INVALID_ID;
         }
 
-        // out of range ID
-        return ChunkID.INVALID_ID;
+        int partition = findPartition(p_vertexId);
+        return ChunkID.getChunkID(m_nodeIds[partition], p_vertexId - m_vertexOffsets[partition]) + 1;
     }
 
     /**
@@ -123,36 +157,103 @@ public class GraphPartitionIndex extends AbstractChunk {
      * @return True if rebasing all IDs was successful, false if one or multiple could not be rebased, out of range
      */
     public boolean rebaseGlobalVertexIdToLocalPartitionVertexId(final long[] p_vertexIds) {
+        return rebaseGlobalVertexIdToLocalPartitionVertexId(p_vertexIds, 0, p_vertexIds.length);
+    }
+
+    /**
+     * Rebase a range of graph global vertexIds in place to partition local vertex ids using the index.
+     *
+     * @param p_vertexIds
+     *         Array with the graph global vertexIds to rebase.
+     * @param p_from
+     *         Start of the range (inclusive)
+     * @param p_to
+     *         End of the range (exclusive)
+     * @return True if rebasing all IDs was successful, false if one or multiple could not be rebased, out of range
+     */
+    public boolean rebaseGlobalVertexIdToLocalPartitionVertexId(final long[] p_vertexIds, final int p_from, final int p_to) {
+        final long total = m_totalVertexCount;
         boolean res = true;
 
-        // utilize locality instead of calling function
-        for (int i = 0; i < p_vertexIds.length; i++) {
-            // out of range ID, default assign if not found in loop
-            long tmp = ChunkID.INVALID_ID;
+        if (m_nodeIds.length == 1) {
+            // single partition: branch free loop the JIT can vectorize
+            final long base = ChunkID.getChunkID(m_nodeIds[0], 0) + 1;
+            for (int i = p_from; i < p_to; i++) {
+                long id = p_vertexIds[i];
+                boolean valid = id >= 0 && id < total;
+                p_vertexIds[i] = valid ? base + id : ChunkID.INVALID_ID;
+                res &= valid;
+            }
 
-            // find section the vertex (of the neighbor) is in
-            long globalVertexIDOffset = 0;
-            for (Entry entry : m_index.values()) {
-                if (p_vertexIds[i] >= globalVertexIDOffset && p_vertexIds[i] < globalVertexIDOffset + entry.m_vertexCount) {
-                    tmp = ChunkID.getChunkID(entry.m_nodeId, p_vertexIds[i] - globalVertexIDOffset) + 1;
-                    break;
-                }
+            return res;
+        }
 
-                globalVertexIDOffset += entry.m_vertexCount;
+        // neighbors are often in the same partition, check the previous one before searching
+        int partition = 0;
+        for (int i = p_from; i < p_to; i++) {
+            long id = p_vertexIds[i];
+            if (id < 0 || id >= total) {
+                p_vertexIds[i] = ChunkID.INVALID_ID;
+                res = false;
+                continue;
             }
 
-            if (tmp == ChunkID.INVALID_ID) {
-                res = false;
+            if (id < m_vertexOffsets[partition] || id >= m_vertexOffsets[partition + 1]) {
+                partition = findPartition(id);
             }
 
-            p_vertexIds[i] = tmp;
+            p_vertexIds[i] = ChunkID.getChunkID(m_nodeIds[partition], id - m_vertexOffsets[partition]) + 1;
         }
 
         return res;
     }
 
+    /**
+     * Find the partition of a (valid) global vertex id: the last partition with a start offset less or equal to the id.
+     * Fixed number of iterations without data dependent branches (conditional moves) over the padded offset array.
+     */
+    private int findPartition(final long p_vertexId) {
+        int pos = 0;
+        for (int step = m_vertexOffsets.length >> 1; step > 0; step >>= 1) {
+            pos = m_vertexOffsets[pos + step] <= p_vertexId ? pos + step : pos;
+        }
+
+        return pos;
+    }
+
+    /**
+     * Build prefix sums of the vertex counts and the node id per partition (partition id order).
+     */
+    private void buildLookupTables() {
+        int size = 2;
+        while (size < m_index.size() + 1) {
+            size <<= 1;
+        }
+
+        long[] offsets = new long[size];
+        short[] nodeIds = new short[m_index.size()];
+        Arrays.fill(offsets, Long.MAX_VALUE);
+
+        long offset = 0;
+        int i = 0;
+        for (Entry entry : m_index.values()) {
+            offsets[i] = offset;
+            nodeIds[i] = entry.m_nodeId;
+            offset += entry.m_vertexCount;
+            i++;
+        }
+
+        // end of the last partition, followed by padding
+        offsets[i] = offset;
+
+        m_vertexOffsets = offsets;
+        m_nodeIds = nodeIds;
+        m_totalVertexCount = offset;
+    }
+
     @Override
     public void exportObject(final Exporter p_exporter) {
+        p_exporter.writeLong(m_denseMinVertexId);
         p_exporter.writeInt(m_index.size());
         for (Entry entry : m_index.values()) {
             p_exporter.exportObject(entry);
@@ -161,6 +262,7 @@ public class GraphPartitionIndex extends AbstractChunk {
 
     @Override
     public void importObject(final Importer p_importer) {
+        m_denseMinVertexId = p_importer.readLong(m_denseMinVertexId);
         m_size = p_importer.readInt(m_size);
         for (int i = 0; i < m_size; i++) {
             Entry entry = new Entry();
@@ -169,20 +271,22 @@ public class GraphPartitionIndex extends AbstractChunk {
                 m_index.put(entry.m_partitionIndex, entry);
             }
         }
+
+        buildLookupTables();
     }
 
     @Override
     public int sizeofObject() {
         if (m_index.isEmpty()) {
-            return Integer.BYTES;
+            return Long.BYTES + Integer.BYTES;
         } else {
-            return Integer.BYTES + m_index.size() * m_index.get(0).sizeofObject();
+            return Long.BYTES + Integer.BYTES + m_index.size() * m_index.get(0).sizeofObject();
         }
     }
 
     @Override
     public String toString() {
-        String str = "";
+        String str = hasDenseVertexIds() ? "dense vertex ids starting at " + m_denseMinVertexId + "\n" : "";
         for (Entry entry : m_index.values()) {
             str += entry + "\n";
         }
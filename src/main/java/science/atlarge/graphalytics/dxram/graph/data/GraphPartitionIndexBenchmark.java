@@ -0,0 +1,102 @@
+/*
+ * Copyright (C) 2019 Heinrich-Heine-Universitaet Duesseldorf, Institute of Computer Science, Department Operating Systems
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package science.atlarge.graphalytics.dxram.graph.data;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import de.hhu.bsinfo.dxmem.data.ChunkID;
+
+/**
+ * Micro benchmark for bulk rebasing of GraphPartitionIndex with increasing partition counts, compared to scanning all
+ * partitions for every vertex id.
+ */
+public final class GraphPartitionIndexBenchmark {
+
+    private GraphPartitionIndexBenchmark() {
+    }
+
+    /**
+     * Run the benchmark.
+     *
+     * @param p_args
+     *         Not used
+     */
+    public static void main(final String[] p_args) {
+        final long vertexCount = 1L << 26;
+        final int batchSize = 1 << 20;
+        final int rounds = 20;
+
+        Random rand = new Random(42);
+        long[] ids = new long[batchSize];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = (long) (rand.nextDouble() * vertexCount);
+        }
+
+        long[] tmp = new long[batchSize];
+        long[] expected = new long[batchSize];
+
+        System.out.println("partitions, linear scan ns/id, prefix sum ns/id");
+        for (int partitions = 1; partitions <= 512; partitions *= 2) {
+            GraphPartitionIndex index = new GraphPartitionIndex();
+            GraphPartitionIndex.Entry[] entries = new GraphPartitionIndex.Entry[partitions];
+            for (int i = 0; i < partitions; i++) {
+                long count = vertexCount / partitions + (i < vertexCount % partitions ? 1 : 0);
+                entries[i] = new GraphPartitionIndex.Entry((short) i, i, count, 0, 0);
+                index.setPartitionEntry(entries[i]);
+            }
+
+            long linear = 0;
+            long prefixSum = 0;
+            for (int round = 0; round < rounds; round++) {
+                System.arraycopy(ids, 0, expected, 0, ids.length);
+                long start = System.nanoTime();
+                rebaseLinearScan(entries, expected);
+                linear += System.nanoTime() - start;
+
+                System.arraycopy(ids, 0, tmp, 0, ids.length);
+                start = System.nanoTime();
+                index.rebaseGlobalVertexIdToLocalPartitionVertexId(tmp);
+                prefixSum += System.nanoTime() - start;
+
+                if (!Arrays.equals(expected, tmp)) {
+                    throw new IllegalStateException("Rebasing results differ for " + partitions + " partitions");
+                }
+            }
+
+            System.out.printf("%d, %.2f, %.2f\n", partitions, (double) linear / rounds / batchSize, (double) prefixSum / rounds / batchSize);
+        }
+    }
+
+    /**
+     * Reference for the benchmark: scans all partitions (summing up the offsets) for every vertex id
+     */
+    private static void rebaseLinearScan(final GraphPartitionIndex.Entry[] p_entries, final long[] p_vertexIds) {
+        for (int i = 0; i < p_vertexIds.length; i++) {
+            long tmp = ChunkID.INVALID_ID;
+
+            long globalVertexIDOffset = 0;
+            for (GraphPartitionIndex.Entry entry : p_entries) {
+                if (p_vertexIds[i] >= globalVertexIDOffset && p_vertexIds[i] < globalVertexIDOffset + entry.getVertexCount()) {
+                    tmp = ChunkID.getChunkID(entry.getNodeId(), p_vertexIds[i] - globalVertexIDOffset) + 1;
+                    break;
+                }
+
+                globalVertexIDOffset += entry.getVertexCount();
+            }
+
+            p_vertexIds[i] = tmp;
+        }
+    }
+}
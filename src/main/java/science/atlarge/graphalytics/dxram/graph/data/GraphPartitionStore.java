@@ -0,0 +1,712 @@
+/*
+ * Copyright (C) 2019 Heinrich-Heine-Universitaet Duesseldorf, Institute of Computer Science, Department Operating Systems
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package science.atlarge.graphalytics.dxram.graph.data;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+import de.hhu.bsinfo.dxmem.data.ChunkID;
+import de.hhu.bsinfo.dxram.chunk.ChunkLocalService;
+import de.hhu.bsinfo.dxram.chunk.ChunkService;
+import de.hhu.bsinfo.dxram.engine.ServiceProvider;
+
+/**
+ * Stores the local graph partition in a few large (pinned) chunks instead of one or more chunks per vertex:
+ * per-vertex arrays for the neighbors offsets and lengths plus the neighbors arrays (CSR). Each array is split into
+ * block chunks (BlockArray) to stay within the chunk size limit, the neighbors arrays grow on demand while loading.
+ * <p>
+ * Vertices are still identified by their partition local chunk ids (node id + local index + 1), but no chunk exists
+ * for a single vertex. The neighbors of a vertex are contiguous, vertices loaded in the same batch are adjacent.
+ * Invalid neighbors (invalid chunk id or local id 0) are dropped.
+ * <p>
+ * By default, every neighbor list is sorted and split into a local section of 32-bit local ids (neighbors in this
+ * partition) and a remote section of full chunk ids, grouped by destination node. Every group starts with a header
+ * entry (node id and group size), so remote neighbors can be forwarded per destination without looking at the
+ * creator id of every neighbor.
+ * <p>
+ * Optionally, the neighbors are compressed instead: every list is sorted and stored as varints, the first neighbor
+ * as (zig-zag) delta to the chunk id of the vertex itself and all others as delta to their predecessor. As most
+ * neighbors are local, this takes 1-3 bytes instead of 8 per edge. Lists exceeding DirectVertex.SEGMENT_SIZE
+ * restart the delta encoding at every segment and start with a table of the (relative) segment offsets, so
+ * segments can be decoded independently.
+ * <p>
+ * Neighbor lists of both layouts are read with DirectVertex.NeighborCursor.
+ */
+public final class GraphPartitionStore {
+
+    public static final int MAX_VARINT_BYTES = 10;
+    private static final int SEGMENT_TABLE_ENTRY_SIZE = Integer.BYTES;
+
+    private static volatile GraphPartitionStore INSTANCE = null;
+
+    private final ChunkLocalService m_chunkLocalService;
+    private final ChunkService m_chunkService;
+    private final short m_nodeId;
+    private final long m_vertexCount;
+    private final boolean m_compressed;
+    private final AtomicLong m_edgeCount = new AtomicLong(0);
+
+    // per vertex: local section offset (byte position if compressed), remote section offset, total and local length
+    private final BlockArray m_offsets;
+    private final BlockArray m_remoteOffsets;
+    private final BlockArray m_lengths;
+    private final BlockArray m_localLengths;
+
+    // neighbor sections, or bytes if compressed, with the number of used entries
+    private final BlockArray m_localNeighbors;
+    private final AtomicLong m_localNeighborCount = new AtomicLong(0);
+    private final BlockArray m_remoteNeighbors;
+    private final AtomicLong m_remoteNeighborCount = new AtomicLong(0);
+    private final BlockArray m_bytes;
+    private final AtomicLong m_byteCount = new AtomicLong(0);
+
+    /**
+     * Get the store of the local partition.
+     *
+     * @return GraphPartitionStore or null if the partition is stored as one chunk per vertex (DirectVertex)
+     */
+    public static GraphPartitionStore get() {
+        return INSTANCE;
+    }
+
+    /**
+     * Create the store of the local partition, replacing (and releasing) an existing one. All vertices start without
+     * neighbors. Depths are kept in the depth column of the VertexProperties registered by the BFS.
+     *
+     * @param p_accessor
+     *         Service accessor
+     * @param p_nodeId
+     *         Node id of the partition (current node)
+     * @param p_vertexCount
+     *         Number of vertices of the partition
+     * @param p_edgeCapacity
+     *         Max. number of edges of the partition
+     * @param p_compressed
+     *         True to store the neighbors compressed
+     * @return New store
+     */
+    public static GraphPartitionStore create(final ServiceProvider p_accessor, final short p_nodeId, final long p_vertexCount,
+            final long p_edgeCapacity, final boolean p_compressed) {
+        release();
+
+        GraphPartitionStore store = new GraphPartitionStore(p_accessor, p_nodeId, p_vertexCount, p_edgeCapacity, p_compressed);
+        INSTANCE = store;
+        return store;
+    }
+
+    /**
+     * Unpin and remove all chunks of the store, if any.
+     */
+    public static void release() {
+        GraphPartitionStore store = INSTANCE;
+        if (store == null) {
+            return;
+        }
+
+        INSTANCE = null;
+        for (BlockArray array : store.getArrays()) {
+            if (array != null) {
+                array.release();
+            }
+        }
+    }
+
+    private GraphPartitionStore(final ServiceProvider p_accessor, final short p_nodeId, final long p_vertexCount,
+            final long p_edgeCapacity, final boolean p_compressed) {
+        m_chunkLocalService = p_accessor.getService(ChunkLocalService.class);
+        m_chunkService = p_accessor.getService(ChunkService.class);
+        m_nodeId = p_nodeId;
+        m_vertexCount = p_vertexCount;
+        m_compressed = p_compressed;
+
+        m_offsets = new BlockArray(m_chunkLocalService, m_chunkService, p_vertexCount, Long.BYTES);
+        m_lengths = new BlockArray(m_chunkLocalService, m_chunkService, p_vertexCount, Integer.BYTES);
+        m_offsets.ensureCapacity(p_vertexCount);
+        m_lengths.ensureCapacity(p_vertexCount);
+
+        if (p_compressed) {
+            m_remoteOffsets = null;
+            m_localLengths = null;
+            m_localNeighbors = null;
+            m_remoteNeighbors = null;
+            // worst case: max. varint size for every edge plus the segment tables
+            m_bytes = new BlockArray(m_chunkLocalService, m_chunkService,
+                    p_edgeCapacity * MAX_VARINT_BYTES + p_edgeCapacity / DirectVertex.SEGMENT_SIZE * SEGMENT_TABLE_ENTRY_SIZE, Byte.BYTES);
+        } else {
+            m_remoteOffsets = new BlockArray(m_chunkLocalService, m_chunkService, p_vertexCount, Long.BYTES);
+            m_localLengths = new BlockArray(m_chunkLocalService, m_chunkService, p_vertexCount, Integer.BYTES);
+            m_remoteOffsets.ensureCapacity(p_vertexCount);
+            m_localLengths.ensureCapacity(p_vertexCount);
+            m_localNeighbors = new BlockArray(m_chunkLocalService, m_chunkService, p_edgeCapacity, Integer.BYTES);
+            // worst case: one group header per remote neighbor
+            m_remoteNeighbors = new BlockArray(m_chunkLocalService, m_chunkService, p_edgeCapacity * 2, Long.BYTES);
+            m_bytes = null;
+        }
+    }
+
+    /**
+     * Check if a vertex belongs to this store.
+     *
+     * @param p_cid
+     *         Chunk id of the vertex
+     * @return True if the vertex is part of the partition
+     */
+    public boolean contains(final long p_cid) {
+        long localId = ChunkID.getLocalID(p_cid);
+        return ChunkID.getCreatorID(p_cid) == m_nodeId && localId > 0 && localId <= m_vertexCount;
+    }
+
+    /**
+     * Get the chunk id of a vertex of the partition.
+     *
+     * @param p_index
+     *         Partition local index of the vertex
+     * @return Chunk id
+     */
+    public long getChunkId(final long p_index) {
+        return ChunkID.getChunkID(m_nodeId, p_index + 1);
+    }
+
+    public short getNodeId() {
+        return m_nodeId;
+    }
+
+    public long getVertexCount() {
+        return m_vertexCount;
+    }
+
+    public long getEdgeCount() {
+        return m_edgeCount.get();
+    }
+
+    /**
+     * Check if the neighbors are stored compressed (see class description).
+     *
+     * @return True if compressed
+     */
+    public boolean isCompressed() {
+        return m_compressed;
+    }
+
+    /**
+     * Get the number of bytes used by the neighbors of all vertices.
+     *
+     * @return Number of bytes
+     */
+    public long getNeighborsSize() {
+        if (m_compressed) {
+            return m_byteCount.get();
+        }
+
+        return m_localNeighborCount.get() * Integer.BYTES + m_remoteNeighborCount.get() * Long.BYTES;
+    }
+
+    /**
+     * Get the number of block chunks of the store.
+     *
+     * @return Number of chunks
+     */
+    public int getChunkCount() {
+        int count = 0;
+        for (BlockArray array : getArrays()) {
+            if (array != null) {
+                count += array.getBlockCount();
+            }
+        }
+
+        return count;
+    }
+
+    /**
+     * Add a batch of vertices. The neighbors of the batch are stored adjacent to each other. Thread safe for
+     * different vertices.
+     *
+     * @param p_batch
+     *         Vertices with their partition local chunk ids set, the neighbors of the batch are filtered and sorted
+     *         in place
+     */
+    public void put(final VertexBatch p_batch) {
+        long[] neighbors = p_batch.getNeighbors();
+        int[] lengths = new int[p_batch.getCount()];
+        long edges = 0;
+        for (int v = 0; v < lengths.length; v++) {
+            int start = p_batch.getNeighborsStart(v);
+            lengths[v] = compactValidNeighbors(neighbors, start, p_batch.getNeighborsLength(v));
+            Arrays.sort(neighbors, start, start + lengths[v]);
+            edges += lengths[v];
+        }
+        m_edgeCount.addAndGet(edges);
+
+        if (m_compressed) {
+            putCompressed(p_batch, lengths);
+        } else {
+            putSplit(p_batch, lengths);
+        }
+    }
+
+    public int getNeighborsLength(final long p_cid) {
+        return m_lengths.readInt(getIndex(p_cid));
+    }
+
+    /**
+     * Get the number of neighbors of a vertex by local id, e.g. read from the local neighbors section.
+     *
+     * @param p_localId
+     *         Local id of the vertex
+     * @return Number of neighbors
+     */
+    public int getNeighborsLengthLocal(final long p_localId) {
+        return m_lengths.readInt(p_localId - 1);
+    }
+
+    /**
+     * Get the number of local neighbors of a vertex (not compressed).
+     *
+     * @param p_cid
+     *         Chunk id of the vertex
+     * @return Number of neighbors in the local section
+     */
+    public int getLocalNeighborsLength(final long p_cid) {
+        return m_localLengths.readInt(getIndex(p_cid));
+    }
+
+    /**
+     * Get the position of the neighbors of a vertex.
+     *
+     * @param p_cid
+     *         Chunk id of the vertex
+     * @return Position of the local section, byte position of the list if compressed
+     */
+    public long getNeighborsOffset(final long p_cid) {
+        return m_offsets.readLong(getIndex(p_cid));
+    }
+
+    /**
+     * Get the position of the remote section of a vertex (not compressed).
+     *
+     * @param p_cid
+     *         Chunk id of the vertex
+     * @return Position of the first group header
+     */
+    public long getRemoteNeighborsOffset(final long p_cid) {
+        return m_remoteOffsets.readLong(getIndex(p_cid));
+    }
+
+    public long[] getNeighbors(final long p_cid) {
+        DirectVertex.NeighborCursor cursor = new DirectVertex.NeighborCursor();
+        long[] neighbors = new long[cursor.open(p_cid)];
+        cursor.readInto(neighbors, 0);
+        cursor.close();
+        return neighbors;
+    }
+
+    /**
+     * Get the positions of the segments of a neighbor list exceeding DirectVertex.SEGMENT_SIZE. If not compressed,
+     * only the local section is segmented.
+     *
+     * @param p_cid
+     *         Chunk id of the vertex
+     * @return Position of every segment (byte position if compressed), empty if not segmented
+     */
+    public long[] getNeighborSegments(final long p_cid) {
+        int count = m_compressed ? getNeighborsLength(p_cid) : getLocalNeighborsLength(p_cid);
+        if (!DirectVertex.isSegmented(count)) {
+            return new long[0];
+        }
+
+        long[] segments = new long[DirectVertex.getSegmentCount(count)];
+        long start = getNeighborsOffset(p_cid);
+
+        if (!m_compressed) {
+            for (int i = 0; i < segments.length; i++) {
+                segments[i] = start + (long) i * DirectVertex.SEGMENT_SIZE;
+            }
+
+            return segments;
+        }
+
+        byte[] table = new byte[(segments.length - 1) * SEGMENT_TABLE_ENTRY_SIZE];
+        readBytes(start, table, 0, table.length);
+        segments[0] = start + table.length;
+        for (int i = 1; i < segments.length; i++) {
+            segments[i] = start + readInt(table, (i - 1) * SEGMENT_TABLE_ENTRY_SIZE);
+        }
+
+        return segments;
+    }
+
+    /**
+     * Get the position of the first encoded neighbor of a compressed list, i.e. behind the segment table.
+     *
+     * @param p_cid
+     *         Chunk id of the vertex
+     * @param p_neighborsLength
+     *         Number of neighbors of the vertex
+     * @return Byte position
+     */
+    long getCompressedNeighborsStart(final long p_cid, final int p_neighborsLength) {
+        long start = getNeighborsOffset(p_cid);
+        if (DirectVertex.isSegmented(p_neighborsLength)) {
+            start += (DirectVertex.getSegmentCount(p_neighborsLength) - 1) * SEGMENT_TABLE_ENTRY_SIZE;
+        }
+
+        return start;
+    }
+
+    /**
+     * Read local ids from the local neighbors section.
+     *
+     * @param p_position
+     *         Position of the first local id to read
+     * @param p_buffer
+     *         Buffer to read into
+     * @param p_offset
+     *         Offset in the buffer to start at
+     * @param p_count
+     *         Number of local ids to read
+     */
+    public void readLocalNeighbors(final long p_position, final long[] p_buffer, final int p_offset, final int p_count) {
+        long position = p_position;
+        int pos = p_offset;
+        int end = p_offset + p_count;
+
+        while (pos < end) {
+            long address = m_localNeighbors.getAddress(position);
+            int offset = m_localNeighbors.getOffset(position);
+            int count = Math.min(end - pos, m_localNeighbors.getRemaining(position));
+
+            for (int i = 0; i < count; i++) {
+                p_buffer[pos + i] = m_chunkLocalService.rawReadLocal().readInt(address, offset + i * Integer.BYTES) & 0xFFFFFFFFL;
+            }
+
+            position += count;
+            pos += count;
+        }
+    }
+
+    /**
+     * Read a single local id of the local neighbors section.
+     *
+     * @param p_position
+     *         Position of the local id
+     * @return Local id
+     */
+    public long getLocalNeighbor(final long p_position) {
+        return m_localNeighbors.readInt(p_position) & 0xFFFFFFFFL;
+    }
+
+    /**
+     * Read entries (chunk ids) of the remote neighbors section.
+     *
+     * @param p_position
+     *         Position of the first entry to read
+     * @param p_buffer
+     *         Buffer to read into
+     * @param p_offset
+     *         Offset in the buffer to start at
+     * @param p_count
+     *         Number of entries to read
+     */
+    public void readRemoteNeighbors(final long p_position, final long[] p_buffer, final int p_offset, final int p_count) {
+        long position = p_position;
+        int pos = p_offset;
+        int end = p_offset + p_count;
+
+        while (pos < end) {
+            long address = m_remoteNeighbors.getAddress(position);
+            int offset = m_remoteNeighbors.getOffset(position);
+            int count = Math.min(end - pos, m_remoteNeighbors.getRemaining(position));
+
+            m_chunkLocalService.rawReadLocal().read(address, offset, p_buffer, pos, count);
+
+            position += count;
+            pos += count;
+        }
+    }
+
+    /**
+     * Read a single entry (neighbor or group header) of the remote neighbors section.
+     *
+     * @param p_position
+     *         Position of the entry
+     * @return Entry
+     */
+    public long getRemoteEntry(final long p_position) {
+        return m_remoteNeighbors.readLong(p_position);
+    }
+
+    /**
+     * Read bytes of the compressed neighbors. Reading is limited to the used bytes.
+     *
+     * @param p_position
+     *         Byte position to start reading at
+     * @param p_buffer
+     *         Buffer to read into
+     * @param p_offset
+     *         Offset in the buffer to start at
+     * @param p_length
+     *         Max. number of bytes to read
+     * @return Number of bytes read
+     */
+    public int readBytes(final long p_position, final byte[] p_buffer, final int p_offset, final int p_length) {
+        int length = (int) Math.max(0, Math.min(p_length, m_byteCount.get() - p_position));
+        long position = p_position;
+        int pos = p_offset;
+        int end = p_offset + length;
+
+        while (pos < end) {
+            int count = Math.min(end - pos, m_bytes.getRemaining(position));
+            m_chunkLocalService.rawReadLocal().read(m_bytes.getAddress(position), m_bytes.getOffset(position), p_buffer, pos, count);
+
+            position += count;
+            pos += count;
+        }
+
+        return length;
+    }
+
+    /**
+     * Get the destination node of a group header of the remote neighbors section.
+     */
+    static short getGroupNodeId(final long p_header) {
+        return (short) (p_header >>> 32);
+    }
+
+    /**
+     * Get the number of neighbors following a group header of the remote neighbors section.
+     */
+    static int getGroupSize(final long p_header) {
+        return (int) p_header;
+    }
+
+    private void putSplit(final VertexBatch p_batch, final int[] p_lengths) {
+        long[] neighbors = p_batch.getNeighbors();
+        long localCount = 0;
+        long remoteCount = 0;
+        for (int v = 0; v < p_lengths.length; v++) {
+            int start = p_batch.getNeighborsStart(v);
+            int local = getLocalCount(neighbors, start, p_lengths[v]);
+            localCount += local;
+            remoteCount += p_lengths[v] - local + getGroupCount(neighbors, start, p_lengths[v]);
+        }
+
+        long localPosition = m_localNeighborCount.getAndAdd(localCount);
+        long remotePosition = m_remoteNeighborCount.getAndAdd(remoteCount);
+        m_localNeighbors.ensureCapacity(localPosition + localCount);
+        m_remoteNeighbors.ensureCapacity(remotePosition + remoteCount);
+
+        for (int v = 0; v < p_lengths.length; v++) {
+            long index = getIndex(p_batch.getId(v));
+            int start = p_batch.getNeighborsStart(v);
+            int end = start + p_lengths[v];
+
+            m_offsets.writeLong(index, localPosition);
+            m_remoteOffsets.writeLong(index, remotePosition);
+            m_lengths.writeInt(index, p_lengths[v]);
+
+            int local = 0;
+            int i = start;
+            while (i < end) {
+                short nodeId = ChunkID.getCreatorID(neighbors[i]);
+                if (nodeId == m_nodeId) {
+                    m_localNeighbors.writeInt(localPosition++, (int) ChunkID.getLocalID(neighbors[i]));
+                    local++;
+                    i++;
+                    continue;
+                }
+
+                // group of neighbors on the same node, sorting keeps them adjacent
+                int groupEnd = i;
+                while (groupEnd < end && ChunkID.getCreatorID(neighbors[groupEnd]) == nodeId) {
+                    groupEnd++;
+                }
+
+                m_remoteNeighbors.writeLong(remotePosition++, (long) (nodeId & 0xFFFF) << 32 | groupEnd - i);
+                for (; i < groupEnd; i++) {
+                    m_remoteNeighbors.writeLong(remotePosition++, neighbors[i]);
+                }
+            }
+
+            m_localLengths.writeInt(index, local);
+        }
+    }
+
+    private void putCompressed(final VertexBatch p_batch, final int[] p_lengths) {
+        long[] neighbors = p_batch.getNeighbors();
+        int size = 0;
+        for (int v = 0; v < p_lengths.length; v++) {
+            size += getEncodedSize(p_batch.getId(v), neighbors, p_batch.getNeighborsStart(v), p_lengths[v]);
+        }
+
+        byte[] buffer = new byte[size];
+        long position = m_byteCount.getAndAdd(size);
+        m_bytes.ensureCapacity(position + size);
+
+        int pos = 0;
+        for (int v = 0; v < p_lengths.length; v++) {
+            long index = getIndex(p_batch.getId(v));
+
+            m_offsets.writeLong(index, position + pos);
+            m_lengths.writeInt(index, p_lengths[v]);
+
+            pos = encode(p_batch.getId(v), neighbors, p_batch.getNeighborsStart(v), p_lengths[v], buffer, pos);
+        }
+
+        pos = 0;
+        while (pos < size) {
+            int count = Math.min(size - pos, m_bytes.getRemaining(position));
+            m_chunkLocalService.rawWriteLocal().write(m_bytes.getAddress(position), m_bytes.getOffset(position), buffer, pos, count);
+
+            position += count;
+            pos += count;
+        }
+    }
+
+    /**
+     * Drop invalid neighbors of a list in place, i.e. the invalid chunk id, local id 0 and local ids out of the
+     * partition range. The valid neighbors are moved to the front of the list.
+     *
+     * @return Number of valid neighbors
+     */
+    private int compactValidNeighbors(final long[] p_neighbors, final int p_start, final int p_length) {
+        int count = p_start;
+        for (int i = p_start; i < p_start + p_length; i++) {
+            long neighbor = p_neighbors[i];
+            long localId = ChunkID.getLocalID(neighbor);
+            boolean valid = neighbor != ChunkID.INVALID_ID && localId != 0 &&
+                    (ChunkID.getCreatorID(neighbor) != m_nodeId || localId <= m_vertexCount);
+
+            if (valid) {
+                p_neighbors[count++] = neighbor;
+            }
+        }
+
+        return count - p_start;
+    }
+
+    private int getLocalCount(final long[] p_neighbors, final int p_start, final int p_length) {
+        int count = 0;
+        for (int i = p_start; i < p_start + p_length; i++) {
+            if (ChunkID.getCreatorID(p_neighbors[i]) == m_nodeId) {
+                count++;
+            }
+        }
+
+        return count;
+    }
+
+    private int getGroupCount(final long[] p_neighbors, final int p_start, final int p_length) {
+        int count = 0;
+        short prevNodeId = m_nodeId;
+        for (int i = p_start; i < p_start + p_length; i++) {
+            short nodeId = ChunkID.getCreatorID(p_neighbors[i]);
+            if (nodeId != m_nodeId && (count == 0 || nodeId != prevNodeId)) {
+                count++;
+            }
+            prevNodeId = nodeId;
+        }
+
+        return count;
+    }
+
+    /**
+     * Get the size of a sorted neighbor list in the compressed format.
+     */
+    private static int getEncodedSize(final long p_cid, final long[] p_neighbors, final int p_start, final int p_length) {
+        int size = 0;
+        if (DirectVertex.isSegmented(p_length)) {
+            size += (DirectVertex.getSegmentCount(p_length) - 1) * SEGMENT_TABLE_ENTRY_SIZE;
+        }
+
+        for (int i = 0; i < p_length; i++) {
+            if (i % DirectVertex.SEGMENT_SIZE == 0) {
+                size += getVarintSize(zigZag(p_neighbors[p_start + i] - p_cid));
+            } else {
+                size += getVarintSize(p_neighbors[p_start + i] - p_neighbors[p_start + i - 1]);
+            }
+        }
+
+        return size;
+    }
+
+    /**
+     * Encode a sorted neighbor list.
+     *
+     * @return Position in the buffer behind the encoded list
+     */
+    private static int encode(final long p_cid, final long[] p_neighbors, final int p_start, final int p_length, final byte[] p_buffer,
+            final int p_pos) {
+        int pos = p_pos;
+        int table = pos;
+        if (DirectVertex.isSegmented(p_length)) {
+            pos += (DirectVertex.getSegmentCount(p_length) - 1) * SEGMENT_TABLE_ENTRY_SIZE;
+        }
+
+        for (int i = 0; i < p_length; i++) {
+            if (i % DirectVertex.SEGMENT_SIZE == 0) {
+                if (i > 0) {
+                    writeInt(p_buffer, table + (i / DirectVertex.SEGMENT_SIZE - 1) * SEGMENT_TABLE_ENTRY_SIZE, pos - p_pos);
+                }
+
+                pos = writeVarint(p_buffer, pos, zigZag(p_neighbors[p_start + i] - p_cid));
+            } else {
+                pos = writeVarint(p_buffer, pos, p_neighbors[p_start + i] - p_neighbors[p_start + i - 1]);
+            }
+        }
+
+        return pos;
+    }
+
+    private static long zigZag(final long p_value) {
+        return p_value << 1 ^ p_value >> 63;
+    }
+
+    private static int getVarintSize(final long p_value) {
+        return (64 - Long.numberOfLeadingZeros(p_value | 1) + 6) / 7;
+    }
+
+    private static int writeVarint(final byte[] p_buffer, final int p_pos, final long p_value) {
+        int pos = p_pos;
+        long value = p_value;
+
+        while ((value & ~0x7FL) != 0) {
+            p_buffer[pos++] = (byte) (value & 0x7F | 0x80);
+            value >>>= 7;
+        }
+        p_buffer[pos++] = (byte) value;
+
+        return pos;
+    }
+
+    private static void writeInt(final byte[] p_buffer, final int p_pos, final int p_value) {
+        p_buffer[p_pos] = (byte) p_value;
+        p_buffer[p_pos + 1] = (byte) (p_value >>> 8);
+        p_buffer[p_pos + 2] = (byte) (p_value >>> 16);
+        p_buffer[p_pos + 3] = (byte) (p_value >>> 24);
+    }
+
+    private static int readInt(final byte[] p_buffer, final int p_pos) {
+        return p_buffer[p_pos] & 0xFF | (p_buffer[p_pos + 1] & 0xFF) << 8 | (p_buffer[p_pos + 2] & 0xFF) << 16 |
+                (p_buffer[p_pos + 3] & 0xFF) << 24;
+    }
+
+    private long getIndex(final long p_cid) {
+        return ChunkID.getLocalID(p_cid) - 1;
+    }
+
+    private BlockArray[] getArrays() {
+        return new BlockArray[] {m_offsets, m_remoteOffsets, m_lengths, m_localLengths, m_localNeighbors, m_remoteNeighbors,
+                m_bytes};
+    }
+}
@@ -14,9 +14,12 @@
 package science.atlarge.graphalytics.dxram.graph.data;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
+ * Layout of typed (named) entries, e.g. the per-vertex properties of an algorithm (see VertexProperties).
+ *
  * @author Ruslan Curbanov, ruslan.curbanov@uni-duesseldorf.de, 05.03.2019
  *
  */
@@ -30,21 +33,35 @@ public final class Schema {
         m_offset = 0;
     }
 
-    public void addEntry(final Type p_type) {
-        m_schema.add(new SchemaEntry(p_type, m_offset));
+    public void addEntry(final String p_name, final Type p_type) {
+        m_schema.add(new SchemaEntry(p_name, p_type, m_offset));
         m_offset += p_type.getSize();
     }
 
-    public final class SchemaEntry {
- 
+    public List<SchemaEntry> getEntries() {
+        return Collections.unmodifiableList(m_schema);
+    }
+
+    public int getSize() {
+        return m_offset;
+    }
+
+    public static final class SchemaEntry {
+
+        private final String m_name;
         private final Type m_type;
         private final int m_offset;
 
-        public SchemaEntry(final Type p_type, final int p_offset) {
+        public SchemaEntry(final String p_name, final Type p_type, final int p_offset) {
+            m_name = p_name;
             m_type = p_type;
             m_offset = p_offset;
         }
 
+        public String getName() {
+            return m_name;
+        }
+
         public Type getType() {
             return m_type;
         }
@@ -54,12 +71,20 @@ public final class Schema {
         }
     }
 
-    public final class Type {
+    public static final class Type {
 
         private final boolean m_primitive;
         private final PrimitiveType m_primitiveType;
         private final int m_arraySize;
 
+        public static Type primitive(final PrimitiveType p_primitiveType) {
+            return new Type(p_primitiveType);
+        }
+
+        public static Type array(final PrimitiveType p_primitiveType, final int p_arraySize) {
+            return new Type(p_primitiveType, p_arraySize);
+        }
+
         private Type(final PrimitiveType p_primitiveType) {
             this(p_primitiveType, -1);
         }
@@ -82,6 +107,29 @@ public final class Schema {
             return m_primitiveType;
         }
 
+        public int getArraySize() {
+            return m_arraySize;
+        }
+
+        public int getElementSize() {
+            return m_primitive ? new Type(m_primitiveType).getSize() : 0;
+        }
+
+        @Override
+        public boolean equals(final Object p_other) {
+            if (!(p_other instanceof Type)) {
+                return false;
+            }
+
+            Type other = (Type) p_other;
+            return m_primitive == other.m_primitive && m_primitiveType == other.m_primitiveType && m_arraySize == other.m_arraySize;
+        }
+
+        @Override
+        public int hashCode() {
+            return m_primitiveType.hashCode() * 31 + m_arraySize;
+        }
+
         public int getSize() {
             if (m_primitive) {
                 if (m_arraySize >=0) {
@@ -0,0 +1,159 @@
+/*
+ * Copyright (C) 2019 Heinrich-Heine-Universitaet Duesseldorf, Institute of Computer Science, Department Operating Systems
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package science.atlarge.graphalytics.dxram.graph.data;
+
+/**
+ * Batch of vertices viewed as a slice of CSR arrays: the neighbors of vertex i of the batch are
+ * neighbors[offsets[pos + i]] to neighbors[offsets[pos + i + 1] - 1]. The arrays usually belong to the source of
+ * the batch (e.g. an ordered edge list segment), no per vertex objects or copies are created. Sources without
+ * arrays on the heap copy into the buffers owned by the batch instead.
+ * <p>
+ * A batch is reused for reading, the slice is valid until the next read. Consumers may modify the neighbors of
+ * the slice in place (e.g. rebase or sort them), but not the offsets.
+ */
+public final class VertexBatch {
+
+    private final long[] m_ids;
+    private int m_count;
+
+    private long[] m_offsets;
+    private int m_offsetsPos;
+    private long[] m_neighbors;
+
+    // buffers for sources copying the vertices into the batch
+    private final long[] m_ownOffsets;
+    private long[] m_ownNeighbors = new long[0];
+
+    /**
+     * Constructor
+     *
+     * @param p_capacity
+     *         Max. number of vertices of a batch
+     */
+    public VertexBatch(final int p_capacity) {
+        m_ids = new long[p_capacity];
+        m_ownOffsets = new long[p_capacity + 1];
+    }
+
+    /**
+     * Get the max. number of vertices of a batch.
+     *
+     * @return Capacity
+     */
+    public int getCapacity() {
+        return m_ids.length;
+    }
+
+    /**
+     * Set the slice of CSR arrays viewed by the batch. The ids have to be set separately.
+     *
+     * @param p_count
+     *         Number of vertices
+     * @param p_offsets
+     *         Neighbor offsets, p_count + 1 entries starting at p_offsetsPos
+     * @param p_offsetsPos
+     *         Position of the offset of the first vertex
+     * @param p_neighbors
+     *         Neighbors array the offsets refer to
+     */
+    public void setSlice(final int p_count, final long[] p_offsets, final int p_offsetsPos, final long[] p_neighbors) {
+        m_count = p_count;
+        m_offsets = p_offsets;
+        m_offsetsPos = p_offsetsPos;
+        m_neighbors = p_neighbors;
+    }
+
+    /**
+     * Get the offsets buffer owned by the batch (capacity + 1 entries), to copy vertices into the batch.
+     *
+     * @return Offsets buffer
+     */
+    public long[] getOwnOffsets() {
+        return m_ownOffsets;
+    }
+
+    /**
+     * Get the neighbors buffer owned by the batch, to copy vertices into the batch. The content is kept on growing.
+     *
+     * @param p_capacity
+     *         Min. number of neighbors to fit into the buffer
+     * @return Neighbors buffer
+     */
+    public long[] getOwnNeighbors(final int p_capacity) {
+        if (m_ownNeighbors.length < p_capacity) {
+            long[] tmp = new long[Math.max(p_capacity, (int) Math.min(Integer.MAX_VALUE - 8, m_ownNeighbors.length * 2L))];
+            System.arraycopy(m_ownNeighbors, 0, tmp, 0, m_ownNeighbors.length);
+            m_ownNeighbors = tmp;
+        }
+
+        return m_ownNeighbors;
+    }
+
+    /**
+     * Get the number of vertices of the batch.
+     *
+     * @return Vertex count
+     */
+    public int getCount() {
+        return m_count;
+    }
+
+    public long getId(final int p_index) {
+        return m_ids[p_index];
+    }
+
+    public void setId(final int p_index, final long p_id) {
+        m_ids[p_index] = p_id;
+    }
+
+    /**
+     * Get the neighbors array of the slice, see getNeighborsStart.
+     *
+     * @return Neighbors array
+     */
+    public long[] getNeighbors() {
+        return m_neighbors;
+    }
+
+    /**
+     * Get the position of the first neighbor of a vertex in the neighbors array.
+     *
+     * @param p_index
+     *         Index of the vertex in the batch (count to get the end of the last list)
+     * @return Position in the neighbors array
+     */
+    public int getNeighborsStart(final int p_index) {
+        return (int) m_offsets[m_offsetsPos + p_index];
+    }
+
+    /**
+     * Get the number of neighbors of a vertex.
+     *
+     * @param p_index
+     *         Index of the vertex in the batch
+     * @return Number of neighbors
+     */
+    public int getNeighborsLength(final int p_index) {
+        return (int) (m_offsets[m_offsetsPos + p_index + 1] - m_offsets[m_offsetsPos + p_index]);
+    }
+
+    /**
+     * Get the number of neighbors of all vertices of the batch.
+     *
+     * @return Edge count
+     */
+    public long getEdgeCount() {
+        return m_offsets[m_offsetsPos + m_count] - m_offsets[m_offsetsPos];
+    }
+}
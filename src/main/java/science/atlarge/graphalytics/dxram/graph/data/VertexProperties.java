@@ -0,0 +1,349 @@
+/*
+ * Copyright (C) 2019 Heinrich-Heine-Universitaet Duesseldorf, Institute of Computer Science, Department Operating Systems
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package science.atlarge.graphalytics.dxram.graph.data;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import de.hhu.bsinfo.dxmem.data.ChunkID;
+import de.hhu.bsinfo.dxram.chunk.ChunkLocalService;
+import de.hhu.bsinfo.dxram.chunk.ChunkService;
+import de.hhu.bsinfo.dxram.engine.ServiceProvider;
+
+/**
+ * Columnar per-vertex properties of the local partition. Algorithms register the entries of a Schema, every entry
+ * becomes a dense (off-heap) column indexed by the local id of the vertex (1 to vertex count), independent of how
+ * the vertices and their neighbors are stored. Algorithm state like depths, ranks or labels is kept (and scanned)
+ * without reading or writing the vertex chunks.
+ * <p>
+ * Primitive entries take one value per vertex, fixed size primitive array entries the given number of values.
+ * The typed accessors are not bounds or type checked, use the accessors matching the type of the entry.
+ */
+public final class VertexProperties {
+
+    private static volatile VertexProperties INSTANCE = null;
+
+    private final ChunkLocalService m_chunkLocalService;
+    private final ChunkService m_chunkService;
+    private final short m_nodeId;
+    private final long m_vertexCount;
+    private final Map<String, Column> m_columns = new HashMap<>();
+
+    /**
+     * Get the properties of the local partition.
+     *
+     * @return VertexProperties or null if no partition is loaded
+     */
+    public static VertexProperties get() {
+        return INSTANCE;
+    }
+
+    /**
+     * Create the (empty) properties of the local partition, replacing (and releasing) existing ones.
+     *
+     * @param p_accessor
+     *         Service accessor
+     * @param p_nodeId
+     *         Node id of the partition (current node)
+     * @param p_vertexCount
+     *         Number of vertices of the partition
+     * @return New properties
+     */
+    public static VertexProperties create(final ServiceProvider p_accessor, final short p_nodeId, final long p_vertexCount) {
+        release();
+
+        VertexProperties properties = new VertexProperties(p_accessor, p_nodeId, p_vertexCount);
+        INSTANCE = properties;
+        return properties;
+    }
+
+    /**
+     * Unpin and remove the chunks of all columns, if any.
+     */
+    public static void release() {
+        VertexProperties properties = INSTANCE;
+        if (properties == null) {
+            return;
+        }
+
+        INSTANCE = null;
+        synchronized (properties) {
+            for (Column column : properties.m_columns.values()) {
+                column.m_values.release();
+            }
+            properties.m_columns.clear();
+        }
+    }
+
+    private VertexProperties(final ServiceProvider p_accessor, final short p_nodeId, final long p_vertexCount) {
+        m_chunkLocalService = p_accessor.getService(ChunkLocalService.class);
+        m_chunkService = p_accessor.getService(ChunkService.class);
+        m_nodeId = p_nodeId;
+        m_vertexCount = p_vertexCount;
+    }
+
+    public short getNodeId() {
+        return m_nodeId;
+    }
+
+    public long getVertexCount() {
+        return m_vertexCount;
+    }
+
+    /**
+     * Register the entries of a schema, allocating a zeroed column for every entry not registered, yet. Entries
+     * registered already (same name and type) are shared, e.g. by consecutive algorithms.
+     *
+     * @param p_schema
+     *         Schema with named primitive (array) entries
+     * @return Columns in the order of the schema entries
+     */
+    public synchronized Column[] register(final Schema p_schema) {
+        List<Schema.SchemaEntry> entries = p_schema.getEntries();
+        Column[] columns = new Column[entries.size()];
+
+        for (int i = 0; i < columns.length; i++) {
+            Schema.SchemaEntry entry = entries.get(i);
+            Schema.Type type = entry.getType();
+            if (!type.isPrimitive()) {
+                throw new IllegalArgumentException("Vertex property " + entry.getName() + " is not primitive");
+            }
+
+            Column column = m_columns.get(entry.getName());
+            if (column == null) {
+                column = new Column(entry.getName(), type);
+                m_columns.put(entry.getName(), column);
+            } else if (!column.m_type.equals(type)) {
+                throw new IllegalArgumentException("Vertex property " + entry.getName() + " registered with a different type");
+            }
+
+            columns[i] = column;
+        }
+
+        return columns;
+    }
+
+    /**
+     * Unpin and remove the columns of the entries of a schema.
+     *
+     * @param p_schema
+     *         Schema registered before
+     */
+    public synchronized void unregister(final Schema p_schema) {
+        for (Schema.SchemaEntry entry : p_schema.getEntries()) {
+            Column column = m_columns.remove(entry.getName());
+            if (column != null) {
+                column.m_values.release();
+            }
+        }
+    }
+
+    /**
+     * Get a registered column.
+     *
+     * @param p_name
+     *         Name of the schema entry
+     * @return Column or null if not registered
+     */
+    public synchronized Column getColumn(final String p_name) {
+        return m_columns.get(p_name);
+    }
+
+    /**
+     * Dense column of a single property of all vertices of the partition.
+     */
+    public final class Column {
+        private final String m_name;
+        private final Schema.Type m_type;
+        // number of values per vertex
+        private final int m_width;
+        private final BlockArray m_values;
+
+        private Column(final String p_name, final Schema.Type p_type) {
+            m_name = p_name;
+            m_type = p_type;
+            m_width = p_type.isArray() ? p_type.getArraySize() : 1;
+            m_values = new BlockArray(m_chunkLocalService, m_chunkService, m_vertexCount * m_width, p_type.getElementSize());
+            m_values.ensureCapacity(m_values.getCapacity());
+            m_values.clear();
+        }
+
+        public String getName() {
+            return m_name;
+        }
+
+        public Schema.Type getType() {
+            return m_type;
+        }
+
+        /**
+         * Check if a vertex belongs to the partition of the column.
+         *
+         * @param p_cid
+         *         Chunk id of the vertex
+         * @return True if the column has a value for the vertex
+         */
+        public boolean contains(final long p_cid) {
+            long localId = ChunkID.getLocalID(p_cid);
+            return ChunkID.getCreatorID(p_cid) == m_nodeId && localId > 0 && localId <= m_vertexCount;
+        }
+
+        public boolean getBoolean(final long p_localId) {
+            return getByte(p_localId) != 0;
+        }
+
+        public void setBoolean(final long p_localId, final boolean p_value) {
+            setByte(p_localId, (byte) (p_value ? 1 : 0));
+        }
+
+        public byte getByte(final long p_localId) {
+            return getByte(p_localId, 0);
+        }
+
+        public byte getByte(final long p_localId, final int p_element) {
+            return m_values.readByte(getIndex(p_localId, p_element));
+        }
+
+        public void setByte(final long p_localId, final byte p_value) {
+            setByte(p_localId, 0, p_value);
+        }
+
+        public void setByte(final long p_localId, final int p_element, final byte p_value) {
+            m_values.writeByte(getIndex(p_localId, p_element), p_value);
+        }
+
+        public char getChar(final long p_localId) {
+            return (char) getShort(p_localId);
+        }
+
+        public void setChar(final long p_localId, final char p_value) {
+            setShort(p_localId, (short) p_value);
+        }
+
+        public short getShort(final long p_localId) {
+            return getShort(p_localId, 0);
+        }
+
+        public short getShort(final long p_localId, final int p_element) {
+            return m_values.readShort(getIndex(p_localId, p_element));
+        }
+
+        public void setShort(final long p_localId, final short p_value) {
+            setShort(p_localId, 0, p_value);
+        }
+
+        public void setShort(final long p_localId, final int p_element, final short p_value) {
+            m_values.writeShort(getIndex(p_localId, p_element), p_value);
+        }
+
+        public int getInt(final long p_localId) {
+            return getInt(p_localId, 0);
+        }
+
+        public int getInt(final long p_localId, final int p_element) {
+            return m_values.readInt(getIndex(p_localId, p_element));
+        }
+
+        public void setInt(final long p_localId, final int p_value) {
+            setInt(p_localId, 0, p_value);
+        }
+
+        public void setInt(final long p_localId, final int p_element, final int p_value) {
+            m_values.writeInt(getIndex(p_localId, p_element), p_value);
+        }
+
+        public float getFloat(final long p_localId) {
+            return getFloat(p_localId, 0);
+        }
+
+        public float getFloat(final long p_localId, final int p_element) {
+            return Float.intBitsToFloat(getInt(p_localId, p_element));
+        }
+
+        public void setFloat(final long p_localId, final float p_value) {
+            setFloat(p_localId, 0, p_value);
+        }
+
+        public void setFloat(final long p_localId, final int p_element, final float p_value) {
+            setInt(p_localId, p_element, Float.floatToRawIntBits(p_value));
+        }
+
+        public long getLong(final long p_localId) {
+            return getLong(p_localId, 0);
+        }
+
+        public long getLong(final long p_localId, final int p_element) {
+            return m_values.readLong(getIndex(p_localId, p_element));
+        }
+
+        public void setLong(final long p_localId, final long p_value) {
+            setLong(p_localId, 0, p_value);
+        }
+
+        public void setLong(final long p_localId, final int p_element, final long p_value) {
+            m_values.writeLong(getIndex(p_localId, p_element), p_value);
+        }
+
+        public double getDouble(final long p_localId) {
+            return getDouble(p_localId, 0);
+        }
+
+        public double getDouble(final long p_localId, final int p_element) {
+            return Double.longBitsToDouble(getLong(p_localId, p_element));
+        }
+
+        public void setDouble(final long p_localId, final double p_value) {
+            setDouble(p_localId, 0, p_value);
+        }
+
+        public void setDouble(final long p_localId, final int p_element, final double p_value) {
+            setLong(p_localId, p_element, Double.doubleToRawLongBits(p_value));
+        }
+
+        /**
+         * Set all values of an int column.
+         *
+         * @param p_value
+         *         Value to set
+         */
+        public void fillInt(final int p_value) {
+            m_values.fillInt(p_value);
+        }
+
+        /**
+         * Set all values of a long column.
+         *
+         * @param p_value
+         *         Value to set
+         */
+        public void fillLong(final long p_value) {
+            m_values.fillLong(p_value);
+        }
+
+        /**
+         * Set all values of a double column.
+         *
+         * @param p_value
+         *         Value to set
+         */
+        public void fillDouble(final double p_value) {
+            fillLong(Double.doubleToRawLongBits(p_value));
+        }
+
+        private long getIndex(final long p_localId, final int p_element) {
+            return (p_localId - 1) * m_width + p_element;
+        }
+    }
+}
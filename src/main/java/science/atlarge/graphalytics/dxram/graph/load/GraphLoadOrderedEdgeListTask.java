@@ -14,8 +14,11 @@
 package science.atlarge.graphalytics.dxram.graph.load;
 
 import java.io.File;
-import java.nio.charset.StandardCharsets;
-import java.util.Arrays;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import com.google.gson.annotations.Expose;
 
@@ -24,9 +27,18 @@ import org.apache.logging.log4j.Logger;
 
 import science.atlarge.graphalytics.dxram.graph.data.DirectVertex;
 import science.atlarge.graphalytics.dxram.graph.data.GraphPartitionIndex;
-import science.atlarge.graphalytics.dxram.graph.data.Vertex;
+import science.atlarge.graphalytics.dxram.graph.data.GraphPartitionStore;
+import science.atlarge.graphalytics.dxram.graph.data.VertexBatch;
+import science.atlarge.graphalytics.dxram.graph.data.VertexProperties;
+import science.atlarge.graphalytics.dxram.graph.load.oel.CsrFileOrderedEdgeList;
+import science.atlarge.graphalytics.dxram.graph.load.oel.DenseVertexIdMap;
 import science.atlarge.graphalytics.dxram.graph.load.oel.GraphalyticsOrderedEdgeList;
+import science.atlarge.graphalytics.dxram.graph.load.oel.HashVertexIdMap;
 import science.atlarge.graphalytics.dxram.graph.load.oel.OrderedEdgeList;
+import science.atlarge.graphalytics.dxram.graph.load.oel.OrderedEdgeListCsrFile;
+import science.atlarge.graphalytics.dxram.graph.load.oel.SortedVertexIdMap;
+import science.atlarge.graphalytics.dxram.graph.load.oel.VertexIdMap;
+import science.atlarge.graphalytics.dxram.graph.load.oel.VertexIndex;
 import de.hhu.bsinfo.dxram.chunk.ChunkLocalService;
 import de.hhu.bsinfo.dxram.chunk.ChunkService;
 import de.hhu.bsinfo.dxmem.data.ChunkID;
@@ -59,10 +71,20 @@ public class GraphLoadOrderedEdgeListTask implements Task {
     private boolean m_filterDupEdges;
     @Expose
     private boolean m_filterSelfLoops;
+    @Expose
+    private int m_loadThreadCount = 1;
+    @Expose
+    private int m_inlineNeighbors = DirectVertex.DEFAULT_INLINE_NEIGHBORS;
+    @Expose
+    private boolean m_partitionStore;
+    @Expose
+    private boolean m_compressNeighbors;
 
     private TaskContext m_ctx;
     private ChunkService m_chunkService;
     private ChunkLocalService m_chunkLocalService;
+    private OrderedEdgeListCsrFile m_csrFile;
+    private VertexIndex m_vertexIndex;
 
     /**
      * Default constructor
@@ -106,6 +128,46 @@ public class GraphLoadOrderedEdgeListTask implements Task {
         m_vertexBatchSize = p_batchSize;
     }
 
+    /**
+     * Set the number of threads loading the partition in parallel.
+     *
+     * @param p_threadCount
+     *         Number of loader threads.
+     */
+    public void setLoadThreadCount(final int p_threadCount) {
+        m_loadThreadCount = p_threadCount;
+    }
+
+    /**
+     * Set the max. number of neighbors stored inline in the vertex chunk instead of a separate chunk.
+     *
+     * @param p_inlineNeighbors
+     *         Max. number of inline neighbors, 0 to disable
+     */
+    public void setInlineNeighbors(final int p_inlineNeighbors) {
+        m_inlineNeighbors = p_inlineNeighbors;
+    }
+
+    /**
+     * Store the partition in a GraphPartitionStore (few large chunks, CSR) instead of one chunk per vertex.
+     *
+     * @param p_partitionStore
+     *         True to use the GraphPartitionStore
+     */
+    public void setPartitionStore(final boolean p_partitionStore) {
+        m_partitionStore = p_partitionStore;
+    }
+
+    /**
+     * Store the neighbors delta and varint encoded, only applies to the GraphPartitionStore.
+     *
+     * @param p_compressNeighbors
+     *         True to compress the neighbor lists
+     */
+    public void setCompressNeighbors(final boolean p_compressNeighbors) {
+        m_compressNeighbors = p_compressNeighbors;
+    }
+
     /**
      * Set the file path that contains the vertex graph data.
      *
@@ -154,12 +216,12 @@ public class GraphLoadOrderedEdgeListTask implements Task {
             return -2;
         }
 
-        OrderedEdgeList graphPartitionOel = setupOrderedEdgeListForCurrentSlave(
+        OrderedEdgeList[] graphPartitionOels = setupOrderedEdgeListForCurrentSlave(
         		m_vertexPath,
         		m_edgePath,
         		graphPartitionIndex);
 
-        if (graphPartitionOel == null) {
+        if (graphPartitionOels == null) {
             // #if LOGGER >= ERROR
             LOGGER.error("Setting up graph partition for current slave failed");
             // #endif /* LOGGER >= ERROR */
@@ -170,7 +232,14 @@ public class GraphLoadOrderedEdgeListTask implements Task {
         LOGGER.info("Chunkservice status BEFORE load:\n%s", m_chunkService.status().getStatus());
         // #endif /* LOGGER >= INFO */
 
-        if (!loadGraphPartition(graphPartitionOel, graphPartitionIndex)) {
+        boolean loaded = loadGraphPartition(graphPartitionOels, graphPartitionIndex);
+
+        if (m_csrFile != null) {
+            m_csrFile.close();
+            m_csrFile = null;
+        }
+
+        if (!loaded) {
             // #if LOGGER >= ERROR
             LOGGER.error("Loading graph partition failed");
             // #endif /* LOGGER >= ERROR */
@@ -203,6 +272,10 @@ public class GraphLoadOrderedEdgeListTask implements Task {
         p_exporter.writeInt(m_vertexBatchSize);
         p_exporter.writeBoolean(m_filterDupEdges);
         p_exporter.writeBoolean(m_filterSelfLoops);
+        p_exporter.writeInt(m_loadThreadCount);
+        p_exporter.writeInt(m_inlineNeighbors);
+        p_exporter.writeBoolean(m_partitionStore);
+        p_exporter.writeBoolean(m_compressNeighbors);
     }
 
     @Override
@@ -212,6 +285,10 @@ public class GraphLoadOrderedEdgeListTask implements Task {
         m_vertexBatchSize = p_importer.readInt(m_vertexBatchSize);
         m_filterDupEdges = p_importer.readBoolean(m_filterDupEdges);
         m_filterSelfLoops = p_importer.readBoolean(m_filterSelfLoops);
+        m_loadThreadCount = p_importer.readInt(m_loadThreadCount);
+        m_inlineNeighbors = p_importer.readInt(m_inlineNeighbors);
+        m_partitionStore = p_importer.readBoolean(m_partitionStore);
+        m_compressNeighbors = p_importer.readBoolean(m_compressNeighbors);
     }
 
     @Override
@@ -220,19 +297,25 @@ public class GraphLoadOrderedEdgeListTask implements Task {
         		sizeofString(m_edgePath) +  // m_edgePath
         		Integer.BYTES +             // m_vertexBatchSize
         		sizeofBoolean() +           // m_filterDupEdges
-        		sizeofBoolean();            // m_filterSelfLoops
+        		sizeofBoolean() +           // m_filterSelfLoops
+        		Integer.BYTES +             // m_loadThreadCount
+        		Integer.BYTES +             // m_inlineNeighbors
+        		sizeofBoolean() +           // m_partitionStore
+        		sizeofBoolean();            // m_compressNeighbors
     }
 
     /**
-     * Setup an edge list instance for the current slave node.
+     * Setup the edge list segments for the current slave node, one per loader thread.
      *
-     * @param TODO p_path
-     *         Path with indexed graph data partitions.
+     * @param p_vertexPath
+     *         Path to the vertex file
+     * @param p_edgePath
+     *         Path to the ordered edge file
      * @param p_graphPartitionIndex
      *         Loaded partition index of the graph
-     * @return OrderedEdgeList instance giving access to the list found for this slave or null on error.
+     * @return OrderedEdgeList instances giving access to the segments of the list found for this slave or null on error.
      */
-    private OrderedEdgeList setupOrderedEdgeListForCurrentSlave(
+    private OrderedEdgeList[] setupOrderedEdgeListForCurrentSlave(
     		final String p_vertexPath,
     		final String p_edgePath,
     		final GraphPartitionIndex p_graphPartitionIndex) {
@@ -261,30 +344,74 @@ public class GraphLoadOrderedEdgeListTask implements Task {
         LOGGER.info("Partition for slave %dgraph data file: start %d, end %d", m_ctx.getCtxData().getSlaveId(), startOffset, endOffset);
         // #endif /* LOGGER >= INFO */
 
-        // get the first vertex id of the partition to load
+        long startVertexId = getStartVertexIdOfCurrentSlave(p_graphPartitionIndex);
+        long vertexCount = p_graphPartitionIndex.getPartitionIndex(m_ctx.getCtxData().getSlaveId()).getVertexCount();
+        int segmentCount = Math.max(1, m_loadThreadCount);
+
+        // prefer the binary CSR cache created on prepare, fall back to parsing the text files
+        m_csrFile = OrderedEdgeListCsrFile.open(p_vertexPath, p_edgePath);
+        if (m_csrFile != null) {
+            // #if LOGGER >= INFO
+            LOGGER.info("Loading partition from CSR cache %s", OrderedEdgeListCsrFile.getCachePath(p_edgePath));
+            // #endif /* LOGGER >= INFO */
+
+            return CsrFileOrderedEdgeList.createSegments(m_csrFile, startVertexId, vertexCount, segmentCount);
+        }
+
+        // vertex indices of the text file loader are ints
+        long totalVertexCount = p_graphPartitionIndex.calcTotalVertexCount();
+        if (totalVertexCount > Integer.MAX_VALUE) {
+            // #if LOGGER >= ERROR
+            LOGGER.error("Graph with %d vertices exceeds the max. vertex count %d for loading from the text files", totalVertexCount,
+                    Integer.MAX_VALUE);
+            // #endif /* LOGGER >= ERROR */
+            return null;
+        }
+
+        try {
+            if (p_graphPartitionIndex.hasDenseVertexIds()) {
+                // no need to read the vertex file, ids are mapped arithmetically
+                m_vertexIndex = VertexIndex.dense(p_graphPartitionIndex.getDenseMinVertexId(), (int) totalVertexCount);
+            } else {
+                m_vertexIndex = VertexIndex.read(Paths.get(p_vertexPath));
+            }
+
+            return GraphalyticsOrderedEdgeList.createSegments(m_vertexIndex, p_edgePath, startOffset, endOffset, startVertexId, vertexCount,
+                    segmentCount);
+        } catch (final IOException e) {
+            // #if LOGGER >= ERROR
+            LOGGER.error("Reading vertex file or splitting edge file failed: %s", e.getMessage());
+            // #endif /* LOGGER >= ERROR */
+            return null;
+        }
+    }
+
+    /**
+     * Get the global index of the first vertex of the partition of the current slave.
+     *
+     * @param p_graphPartitionIndex
+     *         Loaded partition index of the graph
+     * @return Index of the first vertex
+     */
+    private long getStartVertexIdOfCurrentSlave(final GraphPartitionIndex p_graphPartitionIndex) {
         long startVertexId = 0;
         for (int i = 0; i < m_ctx.getCtxData().getSlaveId(); i++) {
-            startVertexId += p_graphPartitionIndex.getPartitionIndex(m_ctx.getCtxData().getSlaveId()).getVertexCount();
+            startVertexId += p_graphPartitionIndex.getPartitionIndex(i).getVertexCount();
         }
 
-
-        return new GraphalyticsOrderedEdgeList(m_vertexPath, m_edgePath, startOffset, endOffset, startVertexId);
+        return startVertexId;
     }
 
     /**
-     * Load a graph partition (single threaded).
+     * Load a graph partition, the loader threads pull edge list segments until all are loaded.
      *
-     * @param p_orderedEdgeList
-     *         Graph partition to load.
+     * @param p_orderedEdgeLists
+     *         Segments of the graph partition to load.
      * @param p_graphPartitionIndex
      *         Index for all partitions to rebase vertex ids to current node.
      * @return True if loading successful, false on error.
      */
-
-    private boolean loadGraphPartition(final OrderedEdgeList p_orderedEdgeList, final GraphPartitionIndex p_graphPartitionIndex) {
-        Vertex[] vertexBuffer = new Vertex[m_vertexBatchSize];
-        int readCount;
-
+    private boolean loadGraphPartition(final OrderedEdgeList[] p_orderedEdgeLists, final GraphPartitionIndex p_graphPartitionIndex) {
         GraphPartitionIndex.Entry currentPartitionIndexEntry = p_graphPartitionIndex.getPartitionIndex(m_ctx.getCtxData().getSlaveId());
         if (currentPartitionIndexEntry == null) {
             // #if LOGGER >= ERROR
@@ -293,85 +420,72 @@ public class GraphLoadOrderedEdgeListTask implements Task {
             return false;
         }
 
-        float previousProgress = 0.0f;
-
-        long totalVerticesLoaded = 0;
-        long totalEdgesLoaded = 0;
-
         // #if LOGGER >= INFO
-        LOGGER.info("Loading started, target vertex/edge count of partition %d: %d/%d", currentPartitionIndexEntry.getPartitionId(),
-                currentPartitionIndexEntry.getVertexCount(), currentPartitionIndexEntry.getEdgeCount());
+        LOGGER.info("Loading %d segments with %d threads, target vertex/edge count of partition %d: %d/%d", p_orderedEdgeLists.length,
+                getLoadThreadCount(p_orderedEdgeLists.length),
+                currentPartitionIndexEntry.getPartitionId(), currentPartitionIndexEntry.getVertexCount(),
+                currentPartitionIndexEntry.getEdgeCount());
         // #endif /* LOGGER >= INFO */
 
-        GraphalyticsOrderedEdgeList.VERTEX_ID_TO_CID.clear();
-        while (true) {
-            readCount = 0;
-            while (readCount < vertexBuffer.length) {
-                Vertex vertex = p_orderedEdgeList.readVertex();
-                if (vertex == null) {
-                	break;
-                }
+        DirectVertex.init(m_ctx.getDXRAMServiceAccessor());
+        DirectVertex.setInlineNeighbors(m_inlineNeighbors);
+        // columns of algorithm state (registered by the algorithms), indexed by local id
+        DirectVertex.setDepthColumn(null);
+        VertexProperties.create(m_ctx.getDXRAMServiceAccessor(), currentPartitionIndexEntry.getNodeId(),
+                currentPartitionIndexEntry.getVertexCount());
 
-                long vid = GraphalyticsOrderedEdgeList.CID_TO_VERTEX_ID[(int)vertex.getID()];
-                vertex.setID(ChunkID.getChunkID(currentPartitionIndexEntry.getNodeId(), vertex.getID() + 1));
-                GraphalyticsOrderedEdgeList.VERTEX_ID_TO_CID.put(vid, vertex.getID());
+        GraphPartitionStore store = null;
+        if (m_partitionStore) {
+            store = GraphPartitionStore.create(m_ctx.getDXRAMServiceAccessor(), currentPartitionIndexEntry.getNodeId(),
+                    currentPartitionIndexEntry.getVertexCount(), currentPartitionIndexEntry.getEdgeCount(), m_compressNeighbors);
 
-                // re-basing of neighbors needed for multiple files
-                // offset tells us how much to add
-                // also add current node ID
-                long[] neighbours = vertex.getNeighbors();
-                if (!p_graphPartitionIndex.rebaseGlobalVertexIdToLocalPartitionVertexId(neighbours)) {
-                    // #if LOGGER >= ERROR
-                    LOGGER.error("Rebasing of neighbors of %s failed, out of vertex id range of graph: %s", vertex, Arrays.toString(neighbours));
-                    // #endif /* LOGGER >= ERROR */
-                }
+            // #if LOGGER >= INFO
+            LOGGER.info("Storing partition in graph partition store with %d chunks, compressed neighbors %b", store.getChunkCount(),
+                    m_compressNeighbors);
+            // #endif /* LOGGER >= INFO */
+        } else if (m_compressNeighbors) {
+            // #if LOGGER >= WARN
+            LOGGER.warn("Neighbor compression requires the graph partition store, storing neighbors uncompressed");
+            // #endif /* LOGGER >= WARN */
+        }
 
-                // for now: check if we exceed the max number of neighbors that fit into a chunk
-                // this needs to be changed later to split the neighbor list and have a linked list
-                // we don't get this very often, so there aren't any real performance issues
-                if (neighbours.length > 134217660) {
-                    // #if LOGGER >= WARNING
-                    LOGGER.warn("Neighbor count of vertex %s exceeds total number of neighbors that fit into a " + "single vertex; will be truncated", vertex);
-                    // #endif /* LOGGER >= WARNING */
-                }
+        LoadProgress progress = new LoadProgress(currentPartitionIndexEntry.getVertexCount());
+        LoadThread[] threads = new LoadThread[getLoadThreadCount(p_orderedEdgeLists.length)];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new LoadThread(i, p_orderedEdgeLists, p_graphPartitionIndex, store, progress);
+            threads[i].start();
+        }
 
-                vertexBuffer[readCount] = vertex;
-                readCount++;
-                totalEdgesLoaded += neighbours.length;
+        for (LoadThread thread : threads) {
+            try {
+                thread.join();
+            } catch (final InterruptedException ignored) {
+                Thread.currentThread().interrupt();
+                return false;
             }
+        }
 
-            if (readCount == 0) {
-                break;
-            }
+        if (progress.m_failed.get()) {
+            return false;
+        }
 
-            // trim array on unused elements
-            if (readCount < vertexBuffer.length) {
-                vertexBuffer = Arrays.copyOf(vertexBuffer, readCount);
-            }
+        GraphalyticsOrderedEdgeList.VERTEX_ID_MAP = createVertexIdMap(p_graphPartitionIndex, getStartVertexIdOfCurrentSlave(p_graphPartitionIndex),
+                currentPartitionIndexEntry.getVertexCount(), currentPartitionIndexEntry.getNodeId());
+        m_vertexIndex = null;
 
-            DirectVertex.init(m_ctx.getDXRAMServiceAccessor());
-            DirectVertex.createReserved(vertexBuffer);
-            //m_chunkLocalService.createReservedLocal().create((AbstractChunk[]) vertexBuffer);
-            //int count = m_chunkService.put().put((AbstractChunk[]) vertexBuffer);
-            
-//            if (count != readCount) {
-//                // #if LOGGER >= ERROR
-//                LOGGER.error("Putting vertex data for chunks failed: %d != %d", count, readCount);
-//                // #endif /* LOGGER >= ERROR */
-//                // return false;
-//            }
-
-            totalVerticesLoaded += readCount;
-
-            float curProgress = (float) totalVerticesLoaded / currentPartitionIndexEntry.getVertexCount();
-            if (curProgress - previousProgress > 0.01) {
-                previousProgress = curProgress;
-                // #if LOGGER >= INFO
-                LOGGER.info("Loading progress: %d", (int) (curProgress * 100));
-                // #endif /* LOGGER >= INFO */
-            }
+        // pin the partition once, algorithms access the vertices at the cached addresses (the store is pinned already)
+        if (store == null) {
+            DirectVertex.pinPartition(currentPartitionIndexEntry.getNodeId(), currentPartitionIndexEntry.getVertexCount());
+        } else {
+            // #if LOGGER >= INFO
+            LOGGER.info("Stored %d edges in %d bytes (%.2f bytes per edge), %d chunks", store.getEdgeCount(), store.getNeighborsSize(),
+                    (double) store.getNeighborsSize() / Math.max(1, store.getEdgeCount()), store.getChunkCount());
+            // #endif /* LOGGER >= INFO */
         }
 
+        long totalVerticesLoaded = progress.m_verticesLoaded.get();
+        long totalEdgesLoaded = progress.m_edgesLoaded.get();
+
         // #if LOGGER >= INFO
         LOGGER.info("Loading done, vertex/edge count: %d/%d", totalVerticesLoaded, totalEdgesLoaded);
         // #endif /* LOGGER >= INFO */
@@ -393,4 +507,158 @@ public class GraphLoadOrderedEdgeListTask implements Task {
 
         return true;
     }
+
+    private int getLoadThreadCount(final int p_segmentCount) {
+        return Math.max(1, Math.min(m_loadThreadCount, p_segmentCount));
+    }
+
+    /**
+     * Create the map between Graphalytics vertex ids and chunk ids of the loaded partition.
+     *
+     * @param p_graphPartitionIndex
+     *         Loaded partition index of the graph
+     * @param p_startVertexId
+     *         Global index of the first vertex of the partition
+     * @param p_vertexCount
+     *         Number of vertices of the partition
+     * @param p_nodeId
+     *         Node id of the partition
+     * @return VertexIdMap of the partition
+     */
+    private VertexIdMap createVertexIdMap(final GraphPartitionIndex p_graphPartitionIndex, final long p_startVertexId,
+            final long p_vertexCount, final short p_nodeId) {
+        if (p_graphPartitionIndex.hasDenseVertexIds()) {
+            return new DenseVertexIdMap(p_graphPartitionIndex.getDenseMinVertexId() + p_startVertexId,
+                    ChunkID.getChunkID(p_nodeId, 1), p_vertexCount);
+        }
+
+        // chunk ids (partition local index + 1) are ascending with the vertex index,
+        // sorted vertex files allow binary search in both directions
+        boolean ascending = true;
+        for (long i = p_startVertexId + 1; i < p_startVertexId + p_vertexCount; i++) {
+            if (getVertexId(i - 1) >= getVertexId(i)) {
+                ascending = false;
+                break;
+            }
+        }
+
+        if (ascending) {
+            long[] vertexIds = new long[(int) p_vertexCount];
+            long[] chunkIds = new long[(int) p_vertexCount];
+            for (int i = 0; i < p_vertexCount; i++) {
+                vertexIds[i] = getVertexId(p_startVertexId + i);
+                chunkIds[i] = ChunkID.getChunkID(p_nodeId, i + 1);
+            }
+
+            return new SortedVertexIdMap(vertexIds, chunkIds);
+        }
+
+        HashVertexIdMap map = new HashVertexIdMap(p_vertexCount, true);
+        for (long i = p_startVertexId; i < p_startVertexId + p_vertexCount; i++) {
+            map.put(getVertexId(i), ChunkID.getChunkID(p_nodeId, i - p_startVertexId + 1));
+        }
+
+        return map;
+    }
+
+    private long getVertexId(final long p_index) {
+        return m_csrFile != null ? m_csrFile.getVertexId(p_index) : m_vertexIndex.getVertexId((int) p_index);
+    }
+
+    /**
+     * Counters shared by all loader threads.
+     */
+    private static final class LoadProgress {
+        private final long m_targetVertexCount;
+        private final AtomicLong m_verticesLoaded = new AtomicLong(0);
+        private final AtomicLong m_edgesLoaded = new AtomicLong(0);
+        private final AtomicInteger m_progressPercent = new AtomicInteger(0);
+        private final AtomicBoolean m_failed = new AtomicBoolean(false);
+        private final AtomicInteger m_nextSegment = new AtomicInteger(0);
+
+        private LoadProgress(final long p_targetVertexCount) {
+            m_targetVertexCount = p_targetVertexCount;
+        }
+
+        private void addLoaded(final long p_vertices, final long p_edges) {
+            long vertices = m_verticesLoaded.addAndGet(p_vertices);
+            m_edgesLoaded.addAndGet(p_edges);
+
+            int curProgress = (int) ((float) vertices / m_targetVertexCount * 100);
+            int prevProgress = m_progressPercent.get();
+            if (curProgress > prevProgress && m_progressPercent.compareAndSet(prevProgress, curProgress)) {
+                // #if LOGGER >= INFO
+                LOGGER.info("Loading progress: %d", curProgress);
+                // #endif /* LOGGER >= INFO */
+            }
+        }
+    }
+
+    /**
+     * Loads the vertices of edge list segments in batches, one segment after another.
+     */
+    private class LoadThread extends Thread {
+        private final OrderedEdgeList[] m_orderedEdgeLists;
+        private final GraphPartitionIndex m_graphPartitionIndex;
+        // null to create one chunk per vertex
+        private final GraphPartitionStore m_store;
+        private final LoadProgress m_progress;
+
+        LoadThread(final int p_id, final OrderedEdgeList[] p_orderedEdgeLists, final GraphPartitionIndex p_graphPartitionIndex,
+                final GraphPartitionStore p_store, final LoadProgress p_progress) {
+            super("GraphLoad-" + p_id);
+            m_orderedEdgeLists = p_orderedEdgeLists;
+            m_graphPartitionIndex = p_graphPartitionIndex;
+            m_store = p_store;
+            m_progress = p_progress;
+        }
+
+        @Override
+        public void run() {
+            try {
+                VertexBatch batch = new VertexBatch(m_vertexBatchSize);
+                int segment;
+                while ((segment = m_progress.m_nextSegment.getAndIncrement()) < m_orderedEdgeLists.length && !m_progress.m_failed.get()) {
+                    loadSegment(m_orderedEdgeLists[segment], batch);
+                }
+            } catch (final RuntimeException e) {
+                // #if LOGGER >= ERROR
+                LOGGER.error("Loading segment in %s failed: %s", getName(), e);
+                // #endif /* LOGGER >= ERROR */
+                m_progress.m_failed.set(true);
+            }
+        }
+
+        private void loadSegment(final OrderedEdgeList p_orderedEdgeList, final VertexBatch p_batch) {
+            int readCount;
+            while ((readCount = p_orderedEdgeList.readVertices(p_batch)) > 0) {
+                long[] neighbors = p_batch.getNeighbors();
+                for (int i = 0; i < readCount; i++) {
+                    // partition local chunk id, same as the neighbors referring to this vertex
+                    p_batch.setId(i, m_graphPartitionIndex.rebaseGlobalVertexIdToLocalPartitionVertexId(p_batch.getId(i)));
+                }
+
+                // re-basing of neighbors needed for multiple files
+                // offset tells us how much to add
+                // also add current node ID
+                int start = p_batch.getNeighborsStart(0);
+                int end = p_batch.getNeighborsStart(readCount);
+                if (!m_graphPartitionIndex.rebaseGlobalVertexIdToLocalPartitionVertexId(neighbors, start, end)) {
+                    // #if LOGGER >= ERROR
+                    LOGGER.error("Rebasing of neighbors of vertices %X to %X failed, out of vertex id range of graph", p_batch.getId(0),
+                            p_batch.getId(readCount - 1));
+                    // #endif /* LOGGER >= ERROR */
+                }
+
+                long edgeCount = p_batch.getEdgeCount();
+                if (m_store != null) {
+                    m_store.put(p_batch);
+                } else {
+                    DirectVertex.createReserved(p_batch);
+                }
+
+                m_progress.addLoaded(readCount, edgeCount);
+            }
+        }
+    }
 }
@@ -46,6 +46,12 @@ import static de.hhu.bsinfo.dxutils.serialization.ObjectSizeUtil.*;
  */
 public class GraphLoadPartitionIndexTask implements Task {
     public static final String MS_PART_INDEX_IDENT = "GPI";
+    public static final String METADATA_IDS = "ids";
+    public static final String METADATA_IDS_DENSE = "dense";
+    public static final String METADATA_IDS_SPARSE = "sparse";
+    public static final String METADATA_VERSION = "version";
+    // format version of the index files written on prepare, files of older versions are regenerated
+    public static final int VERSION = 2;
 
     private static final Logger LOGGER = LogManager.getFormatterLogger(GraphLoadPartitionIndexTask.class.getSimpleName());
 
@@ -168,8 +174,16 @@ public class GraphLoadPartitionIndexTask implements Task {
     private GraphPartitionIndex loadGraphPartitionIndexFromIndexFiles(final TaskContext p_ctx, final String p_path) {
         GraphPartitionIndex index = new GraphPartitionIndex();
 
-        ArrayList<GraphPartitionIndex.Entry> entries = readIndexEntriesFromFile(p_ctx, p_path);
+        ArrayList<GraphPartitionIndex.Entry> entries = readIndexEntriesFromFile(p_ctx, p_path, index);
         if (entries != null) {
+            // every slave loads the partition of its slave id
+            if (entries.size() != p_ctx.getCtxData().getSlaveNodeIds().length) {
+                // #if LOGGER >= ERROR
+                LOGGER.error("Index file %s has %d partitions for %d slaves", p_path, entries.size(), p_ctx.getCtxData().getSlaveNodeIds().length);
+                // #endif /* LOGGER >= ERROR */
+                return null;
+            }
+
             for (GraphPartitionIndex.Entry entry : entries) {
                 index.setPartitionEntry(entry);
             }
@@ -188,9 +202,12 @@ public class GraphLoadPartitionIndexTask implements Task {
      *         TaskScript context.
      * @param p_pathFile
      *         Path + filename of the index file to read.
+     * @param p_index
+     *         Index to apply graph metadata lines (e.g. dense vertex ids) to.
      * @return List of entries read from the file or null on error.
      */
-    private ArrayList<GraphPartitionIndex.Entry> readIndexEntriesFromFile(final TaskContext p_ctx, final String p_pathFile) {
+    private ArrayList<GraphPartitionIndex.Entry> readIndexEntriesFromFile(final TaskContext p_ctx, final String p_pathFile,
+            final GraphPartitionIndex p_index) {
         ArrayList<GraphPartitionIndex.Entry> entries = new ArrayList<>();
         short[] slaves = p_ctx.getCtxData().getSlaveNodeIds();
 
@@ -204,7 +221,8 @@ public class GraphLoadPartitionIndexTask implements Task {
             return null;
         }
 
-        // read all index entries of format <partition id>,<vertex count>,<edge count>
+        // read all index entries of format <partition id>,<vertex count>,<edge count>,<file offset>
+        // and metadata lines of format ids,dense,<min vertex id>,<max vertex id>, ids,sparse and version,<version>
         while (true) {
             String line;
             try {
@@ -219,14 +237,33 @@ public class GraphLoadPartitionIndexTask implements Task {
             }
 
             String[] tokens = line.split(",");
+            if (METADATA_VERSION.equals(tokens[0].trim())) {
+                continue;
+            }
+
+            if (METADATA_IDS.equals(tokens[0].trim())) {
+                if (tokens.length == 4 && METADATA_IDS_DENSE.equals(tokens[1].trim())) {
+                    p_index.setDenseVertexIds(Long.parseLong(tokens[2].trim()));
+                }
+                continue;
+            }
+
             if (tokens.length != 4) {
                 // #if LOGGER >= ERROR
-                LOGGER.error("Invalid index entry %d in file %s, ignoring", line, p_pathFile);
+                LOGGER.error("Invalid index entry %s in file %s, ignoring", line, p_pathFile);
                 // #endif /* LOGGER >= ERROR */
                 continue;
             }
 
             int partitionId = Integer.parseInt(tokens[0].trim());
+            if (partitionId < 0 || partitionId >= slaves.length) {
+                // #if LOGGER >= ERROR
+                LOGGER.error("Partition %d of index file %s out of range, %d slaves", partitionId, p_pathFile, slaves.length);
+                // #endif /* LOGGER >= ERROR */
+                entries = null;
+                break;
+            }
+
             GraphPartitionIndex.Entry entry =
                     new GraphPartitionIndex.Entry(slaves[partitionId], partitionId, Long.parseLong(tokens[1].trim()), Long.parseLong(tokens[2].trim()),
                             Long.parseLong(tokens[3].trim()));
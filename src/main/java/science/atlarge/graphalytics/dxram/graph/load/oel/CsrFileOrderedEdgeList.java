@@ -0,0 +1,159 @@
+/*
+ * Copyright (C) 2019 Heinrich-Heine-Universitaet Duesseldorf, Institute of Computer Science, Department Operating Systems
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package science.atlarge.graphalytics.dxram.graph.load.oel;
+
+import science.atlarge.graphalytics.dxram.graph.data.Vertex;
+import science.atlarge.graphalytics.dxram.graph.data.VertexBatch;
+
+/**
+ * Ordered edge list reading a range of vertices from a memory mapped CSR cache file.
+ * Vertex ids and neighbors are global vertex indices like the ones provided by GraphalyticsOrderedEdgeList.
+ */
+public class CsrFileOrderedEdgeList implements OrderedEdgeList {
+
+    // max. number of neighbors copied into a batch (max. array size)
+    private static final int MAX_BATCH_EDGES = Integer.MAX_VALUE - 8;
+
+    private final OrderedEdgeListCsrFile m_file;
+    private final long m_endIndex;
+    private long m_nextIndex;
+
+    /**
+     * Constructor
+     *
+     * @param p_file
+     *         Opened CSR cache file
+     * @param p_startVertexId
+     *         Global index of the first vertex to read
+     * @param p_vertexCount
+     *         Number of vertices to read
+     */
+    public CsrFileOrderedEdgeList(final OrderedEdgeListCsrFile p_file, final long p_startVertexId, final long p_vertexCount) {
+        m_file = p_file;
+        m_nextIndex = p_startVertexId;
+        m_endIndex = Math.min(p_startVertexId + p_vertexCount, p_file.getVertexCount());
+    }
+
+    /**
+     * Split a range of vertices into (up to) p_segmentCount segments with roughly the same number of edges
+     * which can be loaded in parallel.
+     *
+     * @param p_file
+     *         Opened CSR cache file
+     * @param p_startVertexId
+     *         Global index of the first vertex of the range
+     * @param p_vertexCount
+     *         Number of vertices of the range
+     * @param p_segmentCount
+     *         Number of segments to create
+     * @return Ordered edge lists of the segments, at least one
+     */
+    public static CsrFileOrderedEdgeList[] createSegments(final OrderedEdgeListCsrFile p_file, final long p_startVertexId,
+            final long p_vertexCount, final int p_segmentCount) {
+        final long endVertexId = Math.min(p_startVertexId + p_vertexCount, p_file.getVertexCount());
+        final long startEdge = p_file.getNeighborsOffset(p_startVertexId);
+        final long edgeCount = p_file.getNeighborsOffset(endVertexId) - startEdge;
+
+        long[] vertices = new long[p_segmentCount + 1];
+        vertices[0] = p_startVertexId;
+        int segments = 1;
+
+        for (int i = 1; i < p_segmentCount; i++) {
+            long targetEdge = startEdge + edgeCount / p_segmentCount * i;
+
+            // first vertex with its neighbors starting at or after the target edge
+            long lo = vertices[segments - 1];
+            long hi = endVertexId;
+            while (lo < hi) {
+                long mid = (lo + hi) >>> 1;
+                if (p_file.getNeighborsOffset(mid) < targetEdge) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+
+            if (lo > vertices[segments - 1] && lo < endVertexId) {
+                vertices[segments++] = lo;
+            }
+        }
+
+        vertices[segments] = endVertexId;
+
+        CsrFileOrderedEdgeList[] oels = new CsrFileOrderedEdgeList[segments];
+        for (int i = 0; i < segments; i++) {
+            oels[i] = new CsrFileOrderedEdgeList(p_file, vertices[i], vertices[i + 1] - vertices[i]);
+        }
+
+        return oels;
+    }
+
+    @Override
+    public Vertex readVertex() {
+        if (m_nextIndex >= m_endIndex) {
+            return null;
+        }
+
+        long start = m_file.getNeighborsOffset(m_nextIndex);
+        long end = m_file.getNeighborsOffset(m_nextIndex + 1);
+
+        long[] neighbors = new long[(int) (end - start)];
+        for (int i = 0; i < neighbors.length; i++) {
+            neighbors[i] = m_file.getNeighbor(start + i);
+        }
+
+        Vertex v = new Vertex();
+        v.setID(m_nextIndex++);
+        v.setNeighbors(neighbors);
+
+        return v;
+    }
+
+    @Override
+    public int readVertices(final VertexBatch p_batch) {
+        if (m_nextIndex >= m_endIndex) {
+            return 0;
+        }
+
+        // the file is not on the heap, copy the vertices into the buffers of the batch
+        long[] offsets = p_batch.getOwnOffsets();
+        long base = m_file.getNeighborsOffset(m_nextIndex);
+        offsets[0] = 0;
+
+        int count = 0;
+        while (count < p_batch.getCapacity() && m_nextIndex + count < m_endIndex) {
+            long end = m_file.getNeighborsOffset(m_nextIndex + count + 1) - base;
+            if (end > MAX_BATCH_EDGES) {
+                if (count == 0) {
+                    throw new IllegalStateException(String.format("Neighbor list of vertex %d exceeds max. batch size", m_nextIndex));
+                }
+
+                break;
+            }
+
+            p_batch.setId(count, m_nextIndex + count);
+            offsets[++count] = end;
+        }
+
+        long[] neighbors = p_batch.getOwnNeighbors((int) offsets[count]);
+        for (int i = 0; i < offsets[count]; i++) {
+            neighbors[i] = m_file.getNeighbor(base + i);
+        }
+
+        p_batch.setSlice(count, offsets, 0, neighbors);
+        m_nextIndex += count;
+
+        return count;
+    }
+}
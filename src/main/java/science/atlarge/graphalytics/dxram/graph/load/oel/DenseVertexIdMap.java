@@ -0,0 +1,78 @@
+/*
+ * Copyright (C) 2019 Heinrich-Heine-Universitaet Duesseldorf, Institute of Computer Science, Department Operating Systems
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package science.atlarge.graphalytics.dxram.graph.load.oel;
+
+/**
+ * VertexIdMap for a contiguous range of vertex ids stored in a contiguous range of chunk ids.
+ * Pure arithmetic (cid = first cid + vid - first vid), no memory per vertex.
+ */
+public final class DenseVertexIdMap implements VertexIdMap {
+
+    private final long m_firstVertexId;
+    private final long m_firstChunkId;
+    private final long m_count;
+
+    /**
+     * Constructor
+     *
+     * @param p_firstVertexId
+     *         First Graphalytics vertex id of the range
+     * @param p_firstChunkId
+     *         Chunk id of the first vertex, following vertices have ascending local ids on the same node
+     * @param p_count
+     *         Number of vertices of the range
+     */
+    public DenseVertexIdMap(final long p_firstVertexId, final long p_firstChunkId, final long p_count) {
+        m_firstVertexId = p_firstVertexId;
+        m_firstChunkId = p_firstChunkId;
+        m_count = p_count;
+    }
+
+    @Override
+    public long getChunkId(final long p_vertexId) {
+        long offset = p_vertexId - m_firstVertexId;
+        return offset >= 0 && offset < m_count ? m_firstChunkId + offset : NOT_FOUND;
+    }
+
+    @Override
+    public long getVertexId(final long p_chunkId) {
+        long offset = p_chunkId - m_firstChunkId;
+        return offset >= 0 && offset < m_count ? m_firstVertexId + offset : NOT_FOUND;
+    }
+
+    @Override
+    public long size() {
+        return m_count;
+    }
+
+    @Override
+    public void forEach(final EntryConsumer p_consumer) {
+        for (long i = 0; i < m_count; i++) {
+            p_consumer.accept(m_firstVertexId + i, m_firstChunkId + i);
+        }
+    }
+
+    @Override
+    public boolean translate(final long[] p_vertexIds) {
+        boolean res = true;
+        for (int i = 0; i < p_vertexIds.length; i++) {
+            long offset = p_vertexIds[i] - m_firstVertexId;
+            boolean valid = offset >= 0 && offset < m_count;
+            p_vertexIds[i] = valid ? m_firstChunkId + offset : NOT_FOUND;
+            res &= valid;
+        }
+
+        return res;
+    }
+}
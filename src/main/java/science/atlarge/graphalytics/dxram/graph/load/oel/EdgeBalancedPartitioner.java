@@ -0,0 +1,196 @@
+/*
+ * Copyright (C) 2019 Heinrich-Heine-Universitaet Duesseldorf, Institute of Computer Science, Department Operating Systems
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package science.atlarge.graphalytics.dxram.graph.load.oel;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Splits an ordered edge list into partitions of consecutive vertices with (roughly) the same number of edges.
+ * <p>
+ * The edge file is scanned once. Possible partition boundaries (start of a source vertex) are sampled as checkpoints
+ * every 'step' edges; whenever the checkpoint buffer is full, every other checkpoint is dropped and the step doubles.
+ * This keeps memory bounded without knowing the edge count in advance, the partition sizes deviate from the optimum
+ * by at most 1 / CHECKPOINTS_PER_PARTITION of a partition (plus the degree of the vertex at the boundary).
+ */
+public final class EdgeBalancedPartitioner {
+
+    public static final int CHECKPOINTS_PER_PARTITION = 1024;
+
+    private EdgeBalancedPartitioner() {
+
+    }
+
+    /**
+     * Partition an ordered edge file.
+     *
+     * @param p_index
+     *         Index of all vertices of the graph, defines the vertex order
+     * @param p_edgePath
+     *         Ordered edge file (edges ordered by source vertex in vertex index order)
+     * @param p_partitionCount
+     *         Number of partitions to create
+     * @return Partitions in vertex order, p_partitionCount entries (some may be empty for tiny graphs)
+     * @throws IOException
+     *         On reading errors or if the edge file is not ordered
+     */
+    public static Partition[] partition(final VertexIndex p_index, final Path p_edgePath, final int p_partitionCount) throws IOException {
+        final int capacity = Math.max(2, CHECKPOINTS_PER_PARTITION * p_partitionCount * 2);
+        // edges before the checkpoint, vertex index and file offset of the first line of the vertex
+        long[] cpEdges = new long[capacity];
+        long[] cpVertices = new long[capacity];
+        long[] cpOffsets = new long[capacity];
+        int cpCount = 0;
+
+        long step = 1;
+        long nextCheckpoint = 0;
+        long edgeCount = 0;
+        int currentVertex = -1;
+
+        try (EdgeListReader reader = new EdgeListReader(p_edgePath)) {
+            while (true) {
+                long lineStart = reader.getPosition();
+                if (!reader.nextEdge()) {
+                    break;
+                }
+
+                int vertex = p_index.getIndex(reader.getSource());
+                if (vertex < 0) {
+                    throw new IOException(String.format("Source vertex %d missing in vertex file", reader.getSource()));
+                }
+
+                if (vertex != currentVertex) {
+                    if (vertex < currentVertex) {
+                        throw new IOException(String.format("Edge file %s is not ordered by source vertex (vertex %d)", p_edgePath,
+                                reader.getSource()));
+                    }
+
+                    if (edgeCount >= nextCheckpoint && edgeCount > 0) {
+                        if (cpCount == capacity) {
+                            // thin out: keep every other checkpoint
+                            for (int i = 0; i < capacity / 2; i++) {
+                                cpEdges[i] = cpEdges[i * 2 + 1];
+                                cpVertices[i] = cpVertices[i * 2 + 1];
+                                cpOffsets[i] = cpOffsets[i * 2 + 1];
+                            }
+                            cpCount = capacity / 2;
+                            step *= 2;
+                        }
+
+                        cpEdges[cpCount] = edgeCount;
+                        cpVertices[cpCount] = vertex;
+                        cpOffsets[cpCount] = lineStart;
+                        cpCount++;
+                        nextCheckpoint = edgeCount + step;
+                    }
+
+                    currentVertex = vertex;
+                }
+
+                edgeCount++;
+            }
+        }
+
+        // boundaries: partition i covers [vertices[i], vertices[i + 1])
+        long[] vertices = new long[p_partitionCount + 1];
+        long[] edges = new long[p_partitionCount + 1];
+        long[] offsets = new long[p_partitionCount + 1];
+        vertices[p_partitionCount] = p_index.getVertexCount();
+        edges[p_partitionCount] = edgeCount;
+
+        int cp = 0;
+        for (int i = 1; i < p_partitionCount; i++) {
+            long target = edgeCount / p_partitionCount * i + edgeCount % p_partitionCount * i / p_partitionCount;
+
+            // closest checkpoint to the target, never going backwards
+            while (cp < cpCount && cpEdges[cp] < target) {
+                cp++;
+            }
+            if (cp > 0 && (cp == cpCount || target - cpEdges[cp - 1] < cpEdges[cp] - target) && cpVertices[cp - 1] >= vertices[i - 1]) {
+                cp--;
+            }
+
+            if (cp < cpCount && cpVertices[cp] >= vertices[i - 1]) {
+                vertices[i] = cpVertices[cp];
+                edges[i] = cpEdges[cp];
+                offsets[i] = cpOffsets[cp];
+            } else {
+                // no boundary left (tiny graph), empty partition
+                vertices[i] = vertices[i - 1];
+                edges[i] = edges[i - 1];
+                offsets[i] = offsets[i - 1];
+            }
+        }
+
+        Partition[] partitions = new Partition[p_partitionCount];
+        for (int i = 0; i < p_partitionCount; i++) {
+            partitions[i] = new Partition(vertices[i], vertices[i + 1] - vertices[i], edges[i + 1] - edges[i], offsets[i]);
+        }
+
+        return partitions;
+    }
+
+    /**
+     * Single partition of the ordered edge list
+     */
+    public static final class Partition {
+        private final long m_startVertex;
+        private final long m_vertexCount;
+        private final long m_edgeCount;
+        private final long m_fileStartOffset;
+
+        private Partition(final long p_startVertex, final long p_vertexCount, final long p_edgeCount, final long p_fileStartOffset) {
+            m_startVertex = p_startVertex;
+            m_vertexCount = p_vertexCount;
+            m_edgeCount = p_edgeCount;
+            m_fileStartOffset = p_fileStartOffset;
+        }
+
+        /**
+         * Get the global index of the first vertex of the partition.
+         *
+         * @return Vertex index
+         */
+        public long getStartVertex() {
+            return m_startVertex;
+        }
+
+        /**
+         * Get the number of vertices of the partition.
+         *
+         * @return Vertex count
+         */
+        public long getVertexCount() {
+            return m_vertexCount;
+        }
+
+        /**
+         * Get the number of edges of the partition.
+         *
+         * @return Edge count
+         */
+        public long getEdgeCount() {
+            return m_edgeCount;
+        }
+
+        /**
+         * Get the offset of the first edge of the partition in the edge file.
+         *
+         * @return File offset
+         */
+        public long getFileStartOffset() {
+            return m_fileStartOffset;
+        }
+    }
+}
@@ -0,0 +1,517 @@
+/*
+ * Copyright (C) 2019 Heinrich-Heine-Universitaet Duesseldorf, Institute of Computer Science, Department Operating Systems
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package science.atlarge.graphalytics.dxram.graph.load.oel;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Allocation free reader for Graphalytics vertex (.v) and edge (.e) files. Lines are scanned byte by byte
+ * straight from a buffer into primitive values, no Strings or arrays are created per line.
+ * <p>
+ * The first two columns are parsed as longs (vertex id, or source and destination of an edge), an optional third
+ * column as double (edge weight). Edge files are read with nextEdge, which rejects lines without a target column.
+ * Reading can be restricted to a byte range of the file: a line belongs to the range if its first byte is inside the
+ * range, which allows splitting a file at arbitrary offsets.
+ */
+public final class EdgeListReader implements AutoCloseable {
+
+    public static final int DEFAULT_BUFFER_SIZE = 4 * 1024 * 1024;
+
+    private static final int MAX_COLUMNS = 3;
+    private static final int COLUMN_WEIGHT = 2;
+    // larger values overflow with another digit (unless it is at most the last digit of Long.MAX_VALUE)
+    private static final long LONG_OVERFLOW_LIMIT = Long.MAX_VALUE / 10;
+    private static final int LONG_OVERFLOW_LAST_DIGIT = (int) (Long.MAX_VALUE % 10);
+    private static final int MAX_FAST_DOUBLE_DIGITS = 15;
+    private static final double[] POWERS_OF_TEN = {1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13,
+            1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22};
+
+    private final FileChannel m_channel;
+    private final ByteBuffer m_buffer;
+    // file position of the first byte in the buffer
+    private long m_bufferFilePos;
+    // end of the file range to read, lines starting at or after this position are not read
+    private final long m_end;
+    // file/buffer end reached, no refilling possible
+    private boolean m_eof;
+
+    private final long[] m_longs = new long[MAX_COLUMNS];
+    private double m_weight;
+    private int m_columnCount;
+    private long m_lineCount;
+    // buffer position of the current line
+    private int m_lineStart;
+
+    /**
+     * Constructor, reads the whole file.
+     *
+     * @param p_path
+     *         File to read
+     * @throws IOException
+     *         If opening the file fails
+     */
+    public EdgeListReader(final Path p_path) throws IOException {
+        this(p_path, 0, Long.MAX_VALUE, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param p_path
+     *         File to read
+     * @param p_startOffset
+     *         Start of the byte range to read
+     * @param p_endOffset
+     *         End (exclusive) of the byte range to read
+     * @param p_bufferSize
+     *         Size of the read buffer, has to hold at least a single line
+     * @throws IOException
+     *         If opening the file fails
+     */
+    public EdgeListReader(final Path p_path, final long p_startOffset, final long p_endOffset, final int p_bufferSize) throws IOException {
+        m_channel = FileChannel.open(p_path, StandardOpenOption.READ);
+        m_buffer = ByteBuffer.allocate(p_bufferSize);
+        m_buffer.limit(0);
+        m_bufferFilePos = p_startOffset;
+        m_end = p_endOffset;
+        m_eof = false;
+
+        if (p_startOffset > 0) {
+            alignToLineStart(p_startOffset);
+        }
+    }
+
+    /**
+     * Constructor, reads a (memory mapped) buffer from its position to its limit.
+     *
+     * @param p_buffer
+     *         Buffer containing the lines to read. The position of the buffer is not modified.
+     */
+    public EdgeListReader(final ByteBuffer p_buffer) {
+        m_channel = null;
+        m_buffer = p_buffer.slice();
+        m_bufferFilePos = 0;
+        m_end = Long.MAX_VALUE;
+        m_eof = true;
+    }
+
+    /**
+     * Advance to the next line. Empty lines and comment lines (starting with '#') are skipped.
+     *
+     * @return True if a line was read, false if the end of the file or range was reached.
+     * @throws IOException
+     *         On reading errors or malformed lines
+     */
+    public boolean next() throws IOException {
+        while (true) {
+            if (m_bufferFilePos + m_buffer.position() >= m_end) {
+                return false;
+            }
+
+            if (!ensureLine()) {
+                return false;
+            }
+
+            int pos = m_buffer.position();
+            byte first = m_buffer.get(pos);
+            if (first == '\n' || first == '\r') {
+                m_buffer.position(pos + 1);
+                continue;
+            }
+
+            if (first == '#') {
+                m_buffer.position(lineEnd(pos) + 1);
+                continue;
+            }
+
+            parseLine(pos);
+            return true;
+        }
+    }
+
+    /**
+     * Advance to the next line of an edge file, which has to have at least a source and a target column.
+     *
+     * @return True if an edge was read, false if the end of the file or range was reached.
+     * @throws IOException
+     *         On reading errors or malformed lines (e.g. a missing target column)
+     */
+    public boolean nextEdge() throws IOException {
+        if (!next()) {
+            return false;
+        }
+
+        if (m_columnCount < COLUMN_WEIGHT) {
+            throw malformed(m_lineStart, "Missing target vertex", m_lineCount);
+        }
+
+        return true;
+    }
+
+    /**
+     * Get the number of columns of the current line.
+     *
+     * @return Number of columns (properties beyond the weight column are ignored)
+     */
+    public int getColumnCount() {
+        return m_columnCount;
+    }
+
+    /**
+     * Get the first column of the current line (vertex id or source vertex of an edge).
+     *
+     * @return First column value
+     */
+    public long getSource() {
+        return m_longs[0];
+    }
+
+    /**
+     * Get the second column of the current line (destination vertex of an edge).
+     *
+     * @return Second column value
+     */
+    public long getTarget() {
+        return m_longs[1];
+    }
+
+    /**
+     * Check if the current line has a weight column.
+     *
+     * @return True if a weight is available
+     */
+    public boolean hasWeight() {
+        return m_columnCount > COLUMN_WEIGHT;
+    }
+
+    /**
+     * Get the weight (third column) of the current line.
+     *
+     * @return Weight or NaN if the line has no weight column
+     */
+    public double getWeight() {
+        return m_weight;
+    }
+
+    /**
+     * Get the number of lines read so far.
+     *
+     * @return Line count
+     */
+    public long getLineCount() {
+        return m_lineCount;
+    }
+
+    /**
+     * Get the file position of the next line to read.
+     *
+     * @return File offset of the next line
+     */
+    public long getPosition() {
+        return m_bufferFilePos + m_buffer.position();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (m_channel != null) {
+            m_channel.close();
+        }
+    }
+
+    /**
+     * Skip the remainder of a line starting before the range start, it is read by the reader of the previous range.
+     */
+    private void alignToLineStart(final long p_startOffset) throws IOException {
+        m_bufferFilePos = p_startOffset - 1;
+        if (!fill()) {
+            return;
+        }
+
+        // previous byte is a line break -> range starts at the beginning of a line
+        if (m_buffer.get(0) == '\n') {
+            m_buffer.position(1);
+            return;
+        }
+
+        while (true) {
+            for (int i = m_buffer.position(); i < m_buffer.limit(); i++) {
+                if (m_buffer.get(i) == '\n') {
+                    m_buffer.position(i + 1);
+                    return;
+                }
+            }
+
+            m_buffer.position(m_buffer.limit());
+            if (!fill()) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Make sure the buffer contains a complete line (or the last, unterminated line of the file) at its position.
+     *
+     * @return False if there is no data left.
+     */
+    private boolean ensureLine() throws IOException {
+        if (!m_buffer.hasRemaining() && !fill()) {
+            return false;
+        }
+
+        while (lineEnd(m_buffer.position()) == m_buffer.limit() && !m_eof) {
+            if (m_buffer.position() == 0 && m_buffer.limit() == m_buffer.capacity()) {
+                throw new IOException(String.format("Line at offset %d exceeds read buffer size %d", m_bufferFilePos,
+                        m_buffer.capacity()));
+            }
+
+            fill();
+        }
+
+        return m_buffer.hasRemaining();
+    }
+
+    /**
+     * Move the unread bytes to the beginning of the buffer and read more data.
+     *
+     * @return False if nothing was read (end of file).
+     */
+    private boolean fill() throws IOException {
+        if (m_eof) {
+            return false;
+        }
+
+        m_bufferFilePos += m_buffer.position();
+        m_buffer.compact();
+
+        int read = 0;
+        while (m_buffer.hasRemaining()) {
+            int res = m_channel.read(m_buffer, m_bufferFilePos + m_buffer.position());
+            if (res < 0) {
+                m_eof = true;
+                break;
+            }
+            read += res;
+        }
+
+        m_buffer.flip();
+        return read > 0;
+    }
+
+    private int lineEnd(final int p_pos) {
+        int limit = m_buffer.limit();
+        for (int i = p_pos; i < limit; i++) {
+            if (m_buffer.get(i) == '\n') {
+                return i;
+            }
+        }
+
+        return limit;
+    }
+
+    private void parseLine(final int p_pos) throws IOException {
+        final int limit = m_buffer.limit();
+        int pos = p_pos;
+
+        m_lineStart = p_pos;
+        m_columnCount = 0;
+        m_weight = Double.NaN;
+
+        while (pos < limit) {
+            byte b = m_buffer.get(pos);
+
+            if (b == '\n') {
+                pos++;
+                break;
+            }
+
+            if (b == ' ' || b == '\t' || b == '\r' || b == ',') {
+                pos++;
+                continue;
+            }
+
+            if (m_columnCount < COLUMN_WEIGHT) {
+                pos = parseLong(pos, limit);
+            } else if (m_columnCount == COLUMN_WEIGHT) {
+                pos = parseDouble(pos, limit);
+            } else {
+                // further properties are not used
+                while (pos < limit && !isDelimiter(m_buffer.get(pos))) {
+                    pos++;
+                }
+            }
+
+            m_columnCount++;
+        }
+
+        m_buffer.position(pos);
+        m_lineCount++;
+    }
+
+    private int parseLong(final int p_pos, final int p_limit) throws IOException {
+        int pos = p_pos;
+        boolean negative = false;
+        if (m_buffer.get(pos) == '-') {
+            negative = true;
+            pos++;
+        }
+
+        int start = pos;
+        long value = 0;
+        while (pos < p_limit) {
+            int digit = m_buffer.get(pos) - '0';
+            if (digit < 0 || digit > 9) {
+                break;
+            }
+
+            if (value >= LONG_OVERFLOW_LIMIT && (value > LONG_OVERFLOW_LIMIT || digit > LONG_OVERFLOW_LAST_DIGIT)) {
+                throw malformed(p_pos, "Number out of range", m_lineCount + 1);
+            }
+
+            value = value * 10 + digit;
+            pos++;
+        }
+
+        if (pos == start || pos < p_limit && !isDelimiter(m_buffer.get(pos))) {
+            throw malformed(p_pos);
+        }
+
+        m_longs[m_columnCount] = negative ? -value : value;
+        return pos;
+    }
+
+    /**
+     * Parses decimal numbers with up to 15 significant digits exactly, falls back to Double.parseDouble otherwise.
+     */
+    private int parseDouble(final int p_pos, final int p_limit) throws IOException {
+        int pos = p_pos;
+        boolean negative = false;
+        if (m_buffer.get(pos) == '-' || m_buffer.get(pos) == '+') {
+            negative = m_buffer.get(pos) == '-';
+            pos++;
+        }
+
+        long mantissa = 0;
+        int digits = 0;
+        int exponent = 0;
+        boolean fraction = false;
+        boolean valid = false;
+
+        while (pos < p_limit) {
+            byte b = m_buffer.get(pos);
+            if (b >= '0' && b <= '9') {
+                valid = true;
+                if (mantissa != 0 || b != '0') {
+                    digits++;
+                }
+                mantissa = mantissa * 10 + (b - '0');
+                if (fraction) {
+                    exponent--;
+                }
+            } else if (b == '.' && !fraction) {
+                fraction = true;
+            } else {
+                break;
+            }
+            pos++;
+
+            if (digits > MAX_FAST_DOUBLE_DIGITS) {
+                return parseDoubleSlow(p_pos, p_limit);
+            }
+        }
+
+        if (pos < p_limit && (m_buffer.get(pos) == 'e' || m_buffer.get(pos) == 'E')) {
+            pos++;
+            boolean negativeExp = false;
+            if (pos < p_limit && (m_buffer.get(pos) == '-' || m_buffer.get(pos) == '+')) {
+                negativeExp = m_buffer.get(pos) == '-';
+                pos++;
+            }
+
+            int exp = 0;
+            int expStart = pos;
+            while (pos < p_limit && m_buffer.get(pos) >= '0' && m_buffer.get(pos) <= '9') {
+                exp = Math.min(exp * 10 + m_buffer.get(pos) - '0', 10000);
+                pos++;
+            }
+
+            if (pos == expStart) {
+                throw malformed(p_pos);
+            }
+
+            exponent += negativeExp ? -exp : exp;
+        }
+
+        if (!valid || pos < p_limit && !isDelimiter(m_buffer.get(pos))) {
+            return parseDoubleSlow(p_pos, p_limit);
+        }
+
+        double value;
+        if (exponent == 0) {
+            value = mantissa;
+        } else if (exponent < 0 && exponent >= -(POWERS_OF_TEN.length - 1)) {
+            value = mantissa / POWERS_OF_TEN[-exponent];
+        } else if (exponent > 0 && exponent < POWERS_OF_TEN.length) {
+            value = mantissa * POWERS_OF_TEN[exponent];
+        } else {
+            return parseDoubleSlow(p_pos, p_limit);
+        }
+
+        m_weight = negative ? -value : value;
+        return pos;
+    }
+
+    private int parseDoubleSlow(final int p_pos, final int p_limit) throws IOException {
+        int pos = p_pos;
+        while (pos < p_limit && !isDelimiter(m_buffer.get(pos))) {
+            pos++;
+        }
+
+        byte[] tmp = new byte[pos - p_pos];
+        for (int i = 0; i < tmp.length; i++) {
+            tmp[i] = m_buffer.get(p_pos + i);
+        }
+
+        try {
+            m_weight = Double.parseDouble(new String(tmp, StandardCharsets.US_ASCII));
+        } catch (final NumberFormatException e) {
+            throw malformed(p_pos);
+        }
+
+        return pos;
+    }
+
+    private static boolean isDelimiter(final byte p_byte) {
+        return p_byte == ' ' || p_byte == '\t' || p_byte == '\r' || p_byte == '\n' || p_byte == ',';
+    }
+
+    private IOException malformed(final int p_pos) {
+        return malformed(p_pos, "Malformed number", m_lineCount + 1);
+    }
+
+    private IOException malformed(final int p_pos, final String p_reason, final long p_line) {
+        int end = lineEnd(p_pos);
+        byte[] tmp = new byte[Math.min(end - p_pos, 64)];
+        for (int i = 0; i < tmp.length; i++) {
+            tmp[i] = m_buffer.get(p_pos + i);
+        }
+
+        return new IOException(String.format("%s in line %d at offset %d: %s", p_reason, p_line,
+                m_bufferFilePos + p_pos, new String(tmp, StandardCharsets.US_ASCII)));
+    }
+}
@@ -0,0 +1,459 @@
+/*
+ * Copyright (C) 2019 Heinrich-Heine-Universitaet Duesseldorf, Institute of Computer Science, Department Operating Systems
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package science.atlarge.graphalytics.dxram.graph.load.oel;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Turns an undirected Graphalytics edge list into an ordered edge list containing both directions of every edge
+ * (sorted by source, then destination, without duplicates).
+ * The edges are collected in bounded, primitive sorted runs which are spilled to disk and k-way merged into the
+ * output file afterwards. Memory usage only depends on the run size, not on the size of the graph.
+ */
+public final class EdgeListSymmetrizer {
+
+    private static final Logger LOGGER = LogManager.getFormatterLogger(EdgeListSymmetrizer.class.getSimpleName());
+
+    /**
+     * Default number of directed edges buffered in memory per run (16 bytes each)
+     */
+    public static final int DEFAULT_RUN_EDGE_COUNT = 8 * 1024 * 1024;
+
+    private static final int IO_BUFFER_SIZE = 1024 * 1024;
+    private static final int RUN_READ_BUFFER_SIZE = 64 * 1024;
+    private static final int INSERTION_SORT_THRESHOLD = 16;
+
+    private final int m_runEdgeCount;
+
+    /**
+     * Constructor
+     */
+    public EdgeListSymmetrizer() {
+        this(DEFAULT_RUN_EDGE_COUNT);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param p_runEdgeCount
+     *         Max number of directed edges to keep in memory before spilling a sorted run to disk
+     */
+    public EdgeListSymmetrizer(final int p_runEdgeCount) {
+        if (p_runEdgeCount < 2) {
+            throw new IllegalArgumentException("Run size must hold at least two edges");
+        }
+
+        m_runEdgeCount = p_runEdgeCount;
+    }
+
+    /**
+     * Symmetrize an undirected edge list.
+     *
+     * @param p_inputPath
+     *         Undirected edge list (one "src dst [properties]" per line)
+     * @param p_outputPath
+     *         Ordered edge list to create (must not exist)
+     * @return Number of directed edges written to the output file
+     * @throws IOException
+     *         On reading or writing errors
+     */
+    public long symmetrize(final Path p_inputPath, final Path p_outputPath) throws IOException {
+        // pairs of (src, dst) stored consecutively
+        final long[] run = new long[m_runEdgeCount * 2];
+        final List<Path> runFiles = new ArrayList<Path>();
+        int runLength = 0;
+
+        try {
+            try (EdgeListReader reader = new EdgeListReader(p_inputPath)) {
+                while (reader.nextEdge()) {
+                    final long left = reader.getSource();
+                    final long right = reader.getTarget();
+                    // TODO(later): handle properties payload, i.e. if reader.hasWeight()
+
+                    // always room for both directions, run length is even
+                    run[runLength++] = left;
+                    run[runLength++] = right;
+                    run[runLength++] = right;
+                    run[runLength++] = left;
+
+                    if (runLength > run.length - 4) {
+                        runFiles.add(spillRun(run, runLength, p_outputPath));
+                        runLength = 0;
+                    }
+                }
+            }
+
+            if (runFiles.isEmpty()) {
+                // everything fit into memory, skip the merge
+                int pairs = sortAndDedup(run, runLength / 2);
+                try (OutputStream out = newOutput(p_outputPath)) {
+                    EdgeWriter writer = new EdgeWriter(out);
+                    for (int i = 0; i < pairs; i++) {
+                        writer.write(run[i * 2], run[i * 2 + 1]);
+                    }
+                    writer.flush();
+
+                    return pairs;
+                }
+            }
+
+            if (runLength > 0) {
+                runFiles.add(spillRun(run, runLength, p_outputPath));
+            }
+
+            // #if LOGGER >= INFO
+            LOGGER.info("Merging %d sorted runs into %s", runFiles.size(), p_outputPath);
+            // #endif /* LOGGER >= INFO */
+
+            return mergeRuns(runFiles, p_outputPath);
+        } finally {
+            for (Path runFile : runFiles) {
+                Files.deleteIfExists(runFile);
+            }
+        }
+    }
+
+    /**
+     * Sort and dedup the current run and write it to a temporary file next to the output file.
+     */
+    private Path spillRun(final long[] p_run, final int p_length, final Path p_outputPath) throws IOException {
+        int pairs = sortAndDedup(p_run, p_length / 2);
+
+        Path dir = p_outputPath.toAbsolutePath().getParent();
+        Path runFile = Files.createTempFile(dir, p_outputPath.getFileName().toString() + ".run", ".tmp");
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                Files.newOutputStream(runFile, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING),
+                IO_BUFFER_SIZE))) {
+            out.writeLong(pairs);
+            for (int i = 0; i < pairs * 2; i++) {
+                out.writeLong(p_run[i]);
+            }
+        }
+
+        // #if LOGGER >= DEBUG
+        LOGGER.debug("Spilled run %s with %d edges", runFile, pairs);
+        // #endif /* LOGGER >= DEBUG */
+
+        return runFile;
+    }
+
+    /**
+     * K-way merge all runs into the output file, dropping duplicates across runs.
+     */
+    private static long mergeRuns(final List<Path> p_runFiles, final Path p_outputPath) throws IOException {
+        final int k = p_runFiles.size();
+        final DataInputStream[] inputs = new DataInputStream[k];
+        final long[] remaining = new long[k];
+        final long[] heads = new long[k * 2];
+        // binary min heap of run indices, ordered by their current head pair
+        final int[] heap = new int[k];
+        int heapSize = 0;
+        long written = 0;
+
+        try {
+            for (int i = 0; i < k; i++) {
+                inputs[i] = new DataInputStream(new BufferedInputStream(Files.newInputStream(p_runFiles.get(i)), RUN_READ_BUFFER_SIZE));
+                remaining[i] = inputs[i].readLong();
+                if (advance(inputs[i], remaining, heads, i)) {
+                    heap[heapSize++] = i;
+                    siftUp(heap, heapSize - 1, heads);
+                }
+            }
+
+            try (OutputStream out = newOutput(p_outputPath)) {
+                EdgeWriter writer = new EdgeWriter(out);
+                boolean first = true;
+                long lastSrc = 0;
+                long lastDst = 0;
+
+                while (heapSize > 0) {
+                    int top = heap[0];
+                    long src = heads[top * 2];
+                    long dst = heads[top * 2 + 1];
+
+                    if (first || src != lastSrc || dst != lastDst) {
+                        writer.write(src, dst);
+                        written++;
+                        lastSrc = src;
+                        lastDst = dst;
+                        first = false;
+                    }
+
+                    if (!advance(inputs[top], remaining, heads, top)) {
+                        heap[0] = heap[--heapSize];
+                    }
+
+                    if (heapSize > 0) {
+                        siftDown(heap, heapSize, 0, heads);
+                    }
+                }
+
+                writer.flush();
+            }
+        } finally {
+            for (DataInputStream in : inputs) {
+                if (in != null) {
+                    in.close();
+                }
+            }
+        }
+
+        return written;
+    }
+
+    private static boolean advance(final DataInputStream p_in, final long[] p_remaining, final long[] p_heads, final int p_run)
+            throws IOException {
+        if (p_remaining[p_run] == 0) {
+            return false;
+        }
+
+        try {
+            p_heads[p_run * 2] = p_in.readLong();
+            p_heads[p_run * 2 + 1] = p_in.readLong();
+        } catch (final EOFException e) {
+            throw new IOException("Truncated run file, expected " + p_remaining[p_run] + " more edges", e);
+        }
+
+        p_remaining[p_run]--;
+        return true;
+    }
+
+    private static void siftUp(final int[] p_heap, final int p_pos, final long[] p_heads) {
+        int pos = p_pos;
+        int run = p_heap[pos];
+        while (pos > 0) {
+            int parent = (pos - 1) >>> 1;
+            if (compare(p_heads, p_heap[parent], run) <= 0) {
+                break;
+            }
+
+            p_heap[pos] = p_heap[parent];
+            pos = parent;
+        }
+
+        p_heap[pos] = run;
+    }
+
+    private static void siftDown(final int[] p_heap, final int p_size, final int p_pos, final long[] p_heads) {
+        int pos = p_pos;
+        int run = p_heap[pos];
+        while (true) {
+            int child = pos * 2 + 1;
+            if (child >= p_size) {
+                break;
+            }
+
+            if (child + 1 < p_size && compare(p_heads, p_heap[child + 1], p_heap[child]) < 0) {
+                child++;
+            }
+
+            if (compare(p_heads, run, p_heap[child]) <= 0) {
+                break;
+            }
+
+            p_heap[pos] = p_heap[child];
+            pos = child;
+        }
+
+        p_heap[pos] = run;
+    }
+
+    private static int compare(final long[] p_heads, final int p_runA, final int p_runB) {
+        int res = Long.compare(p_heads[p_runA * 2], p_heads[p_runB * 2]);
+        if (res != 0) {
+            return res;
+        }
+
+        return Long.compare(p_heads[p_runA * 2 + 1], p_heads[p_runB * 2 + 1]);
+    }
+
+    private static OutputStream newOutput(final Path p_path) throws IOException {
+        return new BufferedOutputStream(Files.newOutputStream(p_path, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE),
+                IO_BUFFER_SIZE);
+    }
+
+    /**
+     * Sort the pairs of the array and remove duplicates.
+     *
+     * @param p_pairs
+     *         Array with (src, dst) pairs stored consecutively
+     * @param p_count
+     *         Number of pairs in the array
+     * @return Number of unique pairs left at the beginning of the array
+     */
+    static int sortAndDedup(final long[] p_pairs, final int p_count) {
+        if (p_count == 0) {
+            return 0;
+        }
+
+        sortPairs(p_pairs, 0, p_count - 1);
+
+        int unique = 1;
+        for (int i = 1; i < p_count; i++) {
+            if (p_pairs[i * 2] != p_pairs[(unique - 1) * 2] || p_pairs[i * 2 + 1] != p_pairs[(unique - 1) * 2 + 1]) {
+                p_pairs[unique * 2] = p_pairs[i * 2];
+                p_pairs[unique * 2 + 1] = p_pairs[i * 2 + 1];
+                unique++;
+            }
+        }
+
+        return unique;
+    }
+
+    /**
+     * In place quicksort on pairs (inclusive bounds). Recurses on the smaller partition only to bound the stack depth.
+     */
+    private static void sortPairs(final long[] p_pairs, final int p_lo, final int p_hi) {
+        int lo = p_lo;
+        int hi = p_hi;
+
+        while (hi - lo >= INSERTION_SORT_THRESHOLD) {
+            int mid = (lo + hi) >>> 1;
+            // median of three as pivot
+            if (comparePairs(p_pairs, mid, lo) < 0) {
+                swapPairs(p_pairs, mid, lo);
+            }
+            if (comparePairs(p_pairs, hi, lo) < 0) {
+                swapPairs(p_pairs, hi, lo);
+            }
+            if (comparePairs(p_pairs, hi, mid) < 0) {
+                swapPairs(p_pairs, hi, mid);
+            }
+
+            long pivotSrc = p_pairs[mid * 2];
+            long pivotDst = p_pairs[mid * 2 + 1];
+
+            int i = lo;
+            int j = hi;
+            while (i <= j) {
+                while (comparePair(p_pairs, i, pivotSrc, pivotDst) < 0) {
+                    i++;
+                }
+                while (comparePair(p_pairs, j, pivotSrc, pivotDst) > 0) {
+                    j--;
+                }
+                if (i <= j) {
+                    swapPairs(p_pairs, i, j);
+                    i++;
+                    j--;
+                }
+            }
+
+            if (j - lo < hi - i) {
+                sortPairs(p_pairs, lo, j);
+                lo = i;
+            } else {
+                sortPairs(p_pairs, i, hi);
+                hi = j;
+            }
+        }
+
+        // insertion sort for small ranges
+        for (int i = lo + 1; i <= hi; i++) {
+            long src = p_pairs[i * 2];
+            long dst = p_pairs[i * 2 + 1];
+            int j = i - 1;
+            while (j >= lo && comparePair(p_pairs, j, src, dst) > 0) {
+                p_pairs[(j + 1) * 2] = p_pairs[j * 2];
+                p_pairs[(j + 1) * 2 + 1] = p_pairs[j * 2 + 1];
+                j--;
+            }
+            p_pairs[(j + 1) * 2] = src;
+            p_pairs[(j + 1) * 2 + 1] = dst;
+        }
+    }
+
+    private static int comparePairs(final long[] p_pairs, final int p_a, final int p_b) {
+        return comparePair(p_pairs, p_a, p_pairs[p_b * 2], p_pairs[p_b * 2 + 1]);
+    }
+
+    private static int comparePair(final long[] p_pairs, final int p_a, final long p_src, final long p_dst) {
+        int res = Long.compare(p_pairs[p_a * 2], p_src);
+        if (res != 0) {
+            return res;
+        }
+
+        return Long.compare(p_pairs[p_a * 2 + 1], p_dst);
+    }
+
+    private static void swapPairs(final long[] p_pairs, final int p_a, final int p_b) {
+        long tmp = p_pairs[p_a * 2];
+        p_pairs[p_a * 2] = p_pairs[p_b * 2];
+        p_pairs[p_b * 2] = tmp;
+
+        tmp = p_pairs[p_a * 2 + 1];
+        p_pairs[p_a * 2 + 1] = p_pairs[p_b * 2 + 1];
+        p_pairs[p_b * 2 + 1] = tmp;
+    }
+
+    /**
+     * Writes "src dst\n" lines without creating intermediate strings.
+     */
+    private static final class EdgeWriter {
+        private final OutputStream m_out;
+        private final byte[] m_digits = new byte[20];
+
+        EdgeWriter(final OutputStream p_out) {
+            m_out = p_out;
+        }
+
+        void write(final long p_src, final long p_dst) throws IOException {
+            writeLong(p_src);
+            m_out.write(' ');
+            writeLong(p_dst);
+            m_out.write('\n');
+        }
+
+        void flush() throws IOException {
+            m_out.flush();
+        }
+
+        private void writeLong(final long p_value) throws IOException {
+            if (p_value == Long.MIN_VALUE) {
+                m_out.write(Long.toString(p_value).getBytes(StandardCharsets.US_ASCII));
+                return;
+            }
+
+            long value = p_value;
+            if (value < 0) {
+                m_out.write('-');
+                value = -value;
+            }
+
+            int pos = m_digits.length;
+            do {
+                m_digits[--pos] = (byte) ('0' + (value % 10));
+                value /= 10;
+            } while (value != 0);
+
+            m_out.write(m_digits, pos, m_digits.length - pos);
+        }
+    }
+}
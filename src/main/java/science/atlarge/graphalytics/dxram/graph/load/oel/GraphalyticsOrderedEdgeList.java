@@ -13,139 +13,257 @@
 package science.atlarge.graphalytics.dxram.graph.load.oel;
 
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Paths;
-import java.util.HashMap;
-import java.util.LinkedList;
-import java.util.Map;
-import java.util.concurrent.atomic.AtomicInteger;
-import java.util.concurrent.atomic.AtomicLong;
-import java.util.function.Consumer;
-import java.util.stream.Stream;
+import java.util.Arrays;
 
 import science.atlarge.graphalytics.dxram.graph.data.Vertex;
+import science.atlarge.graphalytics.dxram.graph.data.VertexBatch;
 
 /**
+ * Ordered edge list reading a segment of a Graphalytics edge file. A segment covers a byte range of the edge file
+ * and a range of vertex indices; vertices of the range without edges are returned with an empty neighbor list.
+ * Vertex ids and neighbors are global vertex indices (position in the vertex file).
+ *
  * @author Ruslan Curbanov, ruslan.curbanov@uni-duesseldorf.de, 14.02.2019
  *
  */
 public class GraphalyticsOrderedEdgeList implements OrderedEdgeList {
 
-	public static long[] CID_TO_VERTEX_ID = null;
-	public static Map<Long, Long> VERTEX_ID_TO_CID = new HashMap<Long, Long>();
-	
+	public static VertexIdMap VERTEX_ID_MAP = null;
+
+	private static final int BOUNDARY_SEARCH_BUFFER_SIZE = 64 * 1024;
 
-	private final String m_vertexPath;
+	private final VertexIndex m_index;
 	private final String m_edgePath;
-	// TODO: private final int m_bufferSize;
 	private final long m_startOffset;
 	private final long m_endOffset;
 	private final long m_startVertexId;
+	private final long m_endVertexId;
+
+	private static final int INITIAL_EDGE_CAPACITY = 1024;
+	// max. size of the neighbors array (max. array size)
+	private static final int MAX_EDGE_CAPACITY = Integer.MAX_VALUE - 8;
+	// max. byte range of a segment, at least 4 bytes per edge line bound a segment to 2^26 edges
+	private static final long MAX_SEGMENT_BYTES = 256L * 1024 * 1024;
 
-	private final LinkedList<Vertex> m_oel = new LinkedList<Vertex>();
+	// CSR of the segment: neighbors of vertex m_startVertexId + i are m_targets[m_offsets[i]] to m_targets[m_offsets[i + 1] - 1]
+	private long[] m_offsets;
+	private long[] m_targets;
+	private int m_edgeCount;
+	private int m_nextVertex;
 	private boolean m_loaded;
 
+	/**
+	 * Constructor
+	 *
+	 * @param p_index
+	 *         Index of all vertices of the graph
+	 * @param p_edgePath
+	 *         Path to the ordered edge file
+	 * @param p_startOffset
+	 *         Start of the byte range of the edge file to read
+	 * @param p_endOffset
+	 *         End (exclusive) of the byte range of the edge file to read
+	 * @param p_startVertexId
+	 *         Index of the first vertex of the segment
+	 * @param p_endVertexId
+	 *         Index of the last vertex of the segment (exclusive)
+	 */
 	public GraphalyticsOrderedEdgeList(
-			final String p_vertexPath,
+			final VertexIndex p_index,
 			final String p_edgePath,
 			final long p_startOffset,
 			final long p_endOffset,
-			final long p_startVertexId) {
-		m_vertexPath = p_vertexPath;
+			final long p_startVertexId,
+			final long p_endVertexId) {
+		m_index = p_index;
 		m_edgePath = p_edgePath;
 		m_startOffset = p_startOffset;
 		m_endOffset = p_endOffset;
 		m_startVertexId = p_startVertexId;
+		m_endVertexId = p_endVertexId;
 
 		m_loaded = false;
 	}
 
-	private void loadFromVertexEdgeFile() {
-		// read vertex file
-		final LinkedList<Long> vertexList = new LinkedList<Long>();
-		try (Stream<String> stream = Files.lines(Paths.get(m_vertexPath), StandardCharsets.US_ASCII)) {
-			stream.forEach(new Consumer<String>() {
-				@Override
-				public void accept(String line) {
-					String[] tmp = line.split("\\s");
-					long vertexId = Long.parseLong(tmp[0]);
-					vertexList.add(vertexId);
+	/**
+	 * Split the byte range of a graph partition into (up to) p_segmentCount segments which can be loaded in parallel.
+	 * Segments are aligned to lines and vertices, i.e. all edges of a vertex end up in the same segment. Large
+	 * partitions are split into more segments to keep every segment below MAX_SEGMENT_BYTES.
+	 *
+	 * @param p_index
+	 *         Index of all vertices of the graph
+	 * @param p_edgePath
+	 *         Path to the ordered edge file
+	 * @param p_startOffset
+	 *         Start of the byte range of the partition
+	 * @param p_endOffset
+	 *         End (exclusive) of the byte range of the partition
+	 * @param p_startVertexId
+	 *         Index of the first vertex of the partition
+	 * @param p_vertexCount
+	 *         Number of vertices of the partition
+	 * @param p_segmentCount
+	 *         Number of segments to create
+	 * @return Ordered edge lists of the segments, at least one
+	 * @throws IOException
+	 *         On reading errors
+	 */
+	public static GraphalyticsOrderedEdgeList[] createSegments(
+			final VertexIndex p_index,
+			final String p_edgePath,
+			final long p_startOffset,
+			final long p_endOffset,
+			final long p_startVertexId,
+			final long p_vertexCount,
+			final int p_segmentCount) throws IOException {
+		final long endOffset = Math.min(p_endOffset, Files.size(Paths.get(p_edgePath)));
+		final int segmentCount = (int) Math.max(p_segmentCount, (endOffset - p_startOffset + MAX_SEGMENT_BYTES - 1) / MAX_SEGMENT_BYTES);
+
+		long[] offsets = new long[segmentCount + 1];
+		long[] vertices = new long[segmentCount + 1];
+		offsets[0] = p_startOffset;
+		vertices[0] = p_startVertexId;
+		int segments = 1;
+
+		for (int i = 1; i < segmentCount; i++) {
+			long pos = p_startOffset + (endOffset - p_startOffset) / segmentCount * i;
+			if (pos <= offsets[segments - 1]) {
+				continue;
+			}
+
+			try (EdgeListReader reader = new EdgeListReader(Paths.get(p_edgePath), pos, endOffset, BOUNDARY_SEARCH_BUFFER_SIZE)) {
+				if (!reader.nextEdge()) {
+					break;
 				}
-			});
-		} catch (IOException e) {
-			e.printStackTrace();
+
+				// skip to the first line of the next source vertex
+				final int firstIndex = p_index.getIndex(reader.getSource());
+				long lineStart = reader.getPosition();
+				while (reader.nextEdge()) {
+					int index = p_index.getIndex(reader.getSource());
+					if (index != firstIndex) {
+						if (lineStart > offsets[segments - 1] && index > vertices[segments - 1]) {
+							offsets[segments] = lineStart;
+							vertices[segments] = index;
+							segments++;
+						}
+						break;
+					}
+					lineStart = reader.getPosition();
+				}
+			}
+		}
+
+		offsets[segments] = endOffset;
+		vertices[segments] = p_startVertexId + p_vertexCount;
+
+		GraphalyticsOrderedEdgeList[] oels = new GraphalyticsOrderedEdgeList[segments];
+		for (int i = 0; i < segments; i++) {
+			oels[i] = new GraphalyticsOrderedEdgeList(p_index, p_edgePath, offsets[i], offsets[i + 1], vertices[i], vertices[i + 1]);
 		}
 
-		final int totalVertexCnt = vertexList.size();
-		CID_TO_VERTEX_ID = new long[totalVertexCnt];
-		// read edge file
-		try (Stream<String> stream = Files.lines(Paths.get(m_edgePath), StandardCharsets.US_ASCII)) {
-			final AtomicLong currentVertexId = new AtomicLong(vertexList.pop());
-			final AtomicInteger cnt = new AtomicInteger(0);
-			final LinkedList<Long> neighbors = new LinkedList<Long>();
-			stream.forEach(new Consumer<String>() {
-				@Override
-				public void accept(String line) {
-					String[] tmp = line.split("\\s");
-					long srcId = Long.parseLong(tmp[0]);
-					long dstId = Long.parseLong(tmp[1]);
-
-					// add to oel
-					while (srcId > currentVertexId.get()) {
-						VERTEX_ID_TO_CID.put(currentVertexId.get(), m_startVertexId + cnt.get());
-						CID_TO_VERTEX_ID[cnt.get()] = currentVertexId.getAndSet(vertexList.pop());
-						Vertex v = new Vertex();
-						v.setID(m_startVertexId + cnt.getAndIncrement());
-						v.setNeighbors(neighbors.stream().mapToLong(Long::longValue).toArray());
-						neighbors.clear();
-						m_oel.add(v);
+		return oels;
+	}
+
+	private void loadFromEdgeFile() {
+		m_offsets = new long[(int) (m_endVertexId - m_startVertexId) + 1];
+		m_targets = new long[INITIAL_EDGE_CAPACITY];
+		m_edgeCount = 0;
+
+		int currentVertex = 0;
+
+		try (EdgeListReader reader = new EdgeListReader(Paths.get(m_edgePath), m_startOffset, m_endOffset, EdgeListReader.DEFAULT_BUFFER_SIZE)) {
+			while (reader.nextEdge()) {
+				int srcIndex = m_index.getIndex(reader.getSource());
+				int dstIndex = m_index.getIndex(reader.getTarget());
+				if (srcIndex < m_startVertexId + currentVertex || srcIndex >= m_endVertexId || dstIndex < 0) {
+					throw new IOException(String.format("Edge (%d, %d) out of order or referring to unknown vertex",
+							reader.getSource(), reader.getTarget()));
+				}
+
+				// close neighbor lists of previous vertices (including vertices without neighbors in between)
+				while (srcIndex > m_startVertexId + currentVertex) {
+					m_offsets[++currentVertex] = m_edgeCount;
+				}
+
+				if (m_edgeCount == m_targets.length) {
+					if (m_edgeCount == MAX_EDGE_CAPACITY) {
+						throw new IOException(String.format("Segment exceeds max. edge count %d", MAX_EDGE_CAPACITY));
 					}
 
-					neighbors.add(dstId);
+					m_targets = Arrays.copyOf(m_targets, (int) Math.min(MAX_EDGE_CAPACITY, m_targets.length * 2L));
 				}
-			});
-
-			// add remaining vertices (last from edge list + vertices without neighbors at the end)
-			{
-				VERTEX_ID_TO_CID.put(currentVertexId.get(), m_startVertexId + cnt.get());
-				CID_TO_VERTEX_ID[cnt.get()] = currentVertexId.get();
-				Vertex v = new Vertex();
-				v.setID(m_startVertexId + cnt.getAndIncrement());
-				v.setNeighbors(neighbors.stream().mapToLong(Long::longValue).toArray());
-				neighbors.clear();
-				m_oel.add(v);				
+				m_targets[m_edgeCount++] = dstIndex;
 			}
-			while (!vertexList.isEmpty()) {
-				currentVertexId.set(vertexList.pop());
-				VERTEX_ID_TO_CID.put(currentVertexId.get(), m_startVertexId + cnt.get());
-				CID_TO_VERTEX_ID[cnt.get()] = currentVertexId.get();
-				Vertex v = new Vertex();
-				v.setID(m_startVertexId + cnt.getAndIncrement());
-				v.setNeighbors(neighbors.stream().mapToLong(Long::longValue).toArray());
-				neighbors.clear();
-				m_oel.add(v);
-			}
-
 		} catch (IOException e) {
-			e.printStackTrace();
+			// fail the load instead of handing out a truncated segment
+			throw new UncheckedIOException(String.format("Loading segment [%d, %d) of %s failed",
+					m_startOffset, m_endOffset, m_edgePath), e);
 		}
 
-		// convert neighbors
-		for (Vertex v : m_oel) {
-			for (int i = 0; i < v.getNeighbors().length; i++) {
-				v.getNeighbors()[i] = VERTEX_ID_TO_CID.get(v.getNeighbors()[i]);
-			}
+		// remaining vertices (last from edge list + vertices without neighbors at the end)
+		while (currentVertex < m_offsets.length - 1) {
+			m_offsets[++currentVertex] = m_edgeCount;
 		}
 	}
 
 	@Override
 	public Vertex readVertex() {
+		if (!nextAvailable()) {
+			return null;
+		}
+
+		Vertex v = new Vertex();
+		v.setID(m_startVertexId + m_nextVertex);
+		v.setNeighbors(Arrays.copyOfRange(m_targets, (int) m_offsets[m_nextVertex], (int) m_offsets[m_nextVertex + 1]));
+		m_nextVertex++;
+
+		return v;
+	}
+
+	@Override
+	public int readVertices(final VertexBatch p_batch) {
+		if (!nextAvailable()) {
+			return 0;
+		}
+
+		// slice of the CSR arrays of the segment, no copies
+		int count = Math.min(p_batch.getCapacity(), m_offsets.length - 1 - m_nextVertex);
+		for (int i = 0; i < count; i++) {
+			p_batch.setId(i, m_startVertexId + m_nextVertex + i);
+		}
+
+		p_batch.setSlice(count, m_offsets, m_nextVertex, m_targets);
+		m_nextVertex += count;
+
+		return count;
+	}
+
+	/**
+	 * Load the segment on first access and check if vertices are left to read.
+	 *
+	 * @return True if vertices are left, false if the segment is consumed
+	 */
+	private boolean nextAvailable() {
 		if (!m_loaded) {
 			m_loaded = true;
-			loadFromVertexEdgeFile();
+			loadFromEdgeFile();
+		}
+
+		if (m_offsets == null) {
+			return false;
+		}
+
+		if (m_nextVertex >= m_offsets.length - 1) {
+			// segment consumed, release the buffers
+			m_offsets = null;
+			m_targets = null;
+			return false;
 		}
 
-		return m_oel.poll();
+		return true;
 	}
 }
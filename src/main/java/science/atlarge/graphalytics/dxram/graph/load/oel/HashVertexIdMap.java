@@ -0,0 +1,220 @@
+/*
+ * Copyright (C) 2019 Heinrich-Heine-Universitaet Duesseldorf, Institute of Computer Science, Department Operating Systems
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package science.atlarge.graphalytics.dxram.graph.load.oel;
+
+/**
+ * VertexIdMap with two open addressing (linear probing) hash tables, one per direction. Keys and values are stored
+ * interleaved in a single primitive array per table, either on the java heap or off-heap.
+ * Not thread safe for concurrent puts.
+ */
+public final class HashVertexIdMap implements VertexIdMap {
+
+    private static final long EMPTY = Long.MIN_VALUE;
+    private static final float LOAD_FACTOR = 0.75f;
+
+    private final boolean m_offHeap;
+    private LongArray m_forward;
+    private LongArray m_backward;
+    private long m_mask;
+    private long m_size;
+    private long m_threshold;
+
+    /**
+     * Constructor
+     *
+     * @param p_expectedSize
+     *         Expected number of entries, the map grows if exceeded
+     * @param p_offHeap
+     *         True to store the tables outside of the java heap
+     */
+    public HashVertexIdMap(final long p_expectedSize, final boolean p_offHeap) {
+        m_offHeap = p_offHeap;
+        allocate(tableSizeFor(p_expectedSize));
+    }
+
+    /**
+     * Add a mapping. Existing mappings of the vertex id or the chunk id are replaced in both directions.
+     *
+     * @param p_vertexId
+     *         Graphalytics vertex id
+     * @param p_chunkId
+     *         Chunk id of the vertex
+     */
+    public void put(final long p_vertexId, final long p_chunkId) {
+        if (p_vertexId == EMPTY || p_chunkId == EMPTY) {
+            throw new IllegalArgumentException("Reserved id " + EMPTY);
+        }
+
+        if (m_size >= m_threshold) {
+            resize();
+        }
+
+        long oldChunkId = insert(m_forward, p_vertexId, p_chunkId);
+        if (oldChunkId == EMPTY) {
+            m_size++;
+        } else if (oldChunkId != p_chunkId) {
+            remove(m_backward, oldChunkId);
+        }
+
+        long oldVertexId = insert(m_backward, p_chunkId, p_vertexId);
+        if (oldVertexId != EMPTY && oldVertexId != p_vertexId) {
+            remove(m_forward, oldVertexId);
+            m_size--;
+        }
+    }
+
+    @Override
+    public long getChunkId(final long p_vertexId) {
+        return lookup(m_forward, p_vertexId);
+    }
+
+    @Override
+    public long getVertexId(final long p_chunkId) {
+        return lookup(m_backward, p_chunkId);
+    }
+
+    @Override
+    public long size() {
+        return m_size;
+    }
+
+    @Override
+    public void forEach(final EntryConsumer p_consumer) {
+        long slots = m_mask + 1;
+        for (long slot = 0; slot < slots; slot++) {
+            long key = m_forward.get(slot * 2);
+            if (key != EMPTY) {
+                p_consumer.accept(key, m_forward.get(slot * 2 + 1));
+            }
+        }
+    }
+
+    private void allocate(final long p_slots) {
+        m_forward = LongArray.allocate(p_slots * 2, m_offHeap);
+        m_backward = LongArray.allocate(p_slots * 2, m_offHeap);
+        m_forward.fill(EMPTY);
+        m_backward.fill(EMPTY);
+        m_mask = p_slots - 1;
+        m_threshold = (long) (p_slots * LOAD_FACTOR);
+    }
+
+    private void resize() {
+        LongArray oldForward = m_forward;
+        long oldSlots = m_mask + 1;
+
+        allocate(oldSlots * 2);
+        for (long slot = 0; slot < oldSlots; slot++) {
+            long key = oldForward.get(slot * 2);
+            if (key != EMPTY) {
+                long value = oldForward.get(slot * 2 + 1);
+                insert(m_forward, key, value);
+                insert(m_backward, value, key);
+            }
+        }
+    }
+
+    /**
+     * Insert or overwrite an entry.
+     *
+     * @return Previous value of the key or EMPTY
+     */
+    private long insert(final LongArray p_table, final long p_key, final long p_value) {
+        long slot = hash(p_key) & m_mask;
+        while (true) {
+            long key = p_table.get(slot * 2);
+            if (key == EMPTY || key == p_key) {
+                long old = key == EMPTY ? EMPTY : p_table.get(slot * 2 + 1);
+                p_table.set(slot * 2, p_key);
+                p_table.set(slot * 2 + 1, p_value);
+                return old;
+            }
+
+            slot = slot + 1 & m_mask;
+        }
+    }
+
+    /**
+     * Remove an entry and shift the following entries of the probe sequence back into the hole (no tombstones,
+     * lookups stay bounded by the filled slots).
+     */
+    private void remove(final LongArray p_table, final long p_key) {
+        long hole = hash(p_key) & m_mask;
+        while (true) {
+            long key = p_table.get(hole * 2);
+            if (key == EMPTY) {
+                return;
+            }
+
+            if (key == p_key) {
+                break;
+            }
+
+            hole = hole + 1 & m_mask;
+        }
+
+        long slot = hole + 1 & m_mask;
+        while (true) {
+            long key = p_table.get(slot * 2);
+            if (key == EMPTY) {
+                break;
+            }
+
+            // move the entry if its home slot is not between the hole and its current slot
+            long home = hash(key) & m_mask;
+            if ((slot - home & m_mask) >= (slot - hole & m_mask)) {
+                p_table.set(hole * 2, key);
+                p_table.set(hole * 2 + 1, p_table.get(slot * 2 + 1));
+                hole = slot;
+            }
+
+            slot = slot + 1 & m_mask;
+        }
+
+        p_table.set(hole * 2, EMPTY);
+    }
+
+    private long lookup(final LongArray p_table, final long p_key) {
+        long slot = hash(p_key) & m_mask;
+        while (true) {
+            long key = p_table.get(slot * 2);
+            if (key == p_key) {
+                return p_table.get(slot * 2 + 1);
+            }
+
+            if (key == EMPTY) {
+                return NOT_FOUND;
+            }
+
+            slot = slot + 1 & m_mask;
+        }
+    }
+
+    private static long tableSizeFor(final long p_expectedSize) {
+        long slots = Math.max(16, (long) Math.ceil(p_expectedSize / LOAD_FACTOR));
+        return Long.highestOneBit(slots - 1) << 1;
+    }
+
+    /**
+     * Finalizer of MurmurHash3, spreads dense and strided ids over the table
+     */
+    private static long hash(final long p_key) {
+        long h = p_key;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
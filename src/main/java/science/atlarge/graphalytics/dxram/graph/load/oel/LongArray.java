@@ -0,0 +1,129 @@
+/*
+ * Copyright (C) 2019 Heinrich-Heine-Universitaet Duesseldorf, Institute of Computer Science, Department Operating Systems
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package science.atlarge.graphalytics.dxram.graph.load.oel;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.util.Arrays;
+
+/**
+ * Fixed size array of longs, either on the java heap or off-heap in direct buffers (not scanned by the GC).
+ */
+abstract class LongArray {
+
+    /**
+     * Allocate a new array, initialized with 0.
+     *
+     * @param p_size
+     *         Number of elements
+     * @param p_offHeap
+     *         True to allocate outside of the java heap
+     * @return New array
+     */
+    static LongArray allocate(final long p_size, final boolean p_offHeap) {
+        if (p_offHeap) {
+            return new OffHeap(p_size);
+        }
+
+        if (p_size > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Heap array size exceeded: " + p_size);
+        }
+
+        return new Heap((int) p_size);
+    }
+
+    abstract long size();
+
+    abstract long get(long p_index);
+
+    abstract void set(long p_index, long p_value);
+
+    abstract void fill(long p_value);
+
+    /**
+     * Array backed by a long[]
+     */
+    private static final class Heap extends LongArray {
+        private final long[] m_array;
+
+        private Heap(final int p_size) {
+            m_array = new long[p_size];
+        }
+
+        @Override
+        long size() {
+            return m_array.length;
+        }
+
+        @Override
+        long get(final long p_index) {
+            return m_array[(int) p_index];
+        }
+
+        @Override
+        void set(final long p_index, final long p_value) {
+            m_array[(int) p_index] = p_value;
+        }
+
+        @Override
+        void fill(final long p_value) {
+            Arrays.fill(m_array, p_value);
+        }
+    }
+
+    /**
+     * Array backed by direct buffers of max. 1 GiB each
+     */
+    private static final class OffHeap extends LongArray {
+        private static final int SEGMENT_SHIFT = 27;
+        private static final long SEGMENT_MASK = (1L << SEGMENT_SHIFT) - 1;
+
+        private final long m_size;
+        private final LongBuffer[] m_segments;
+
+        private OffHeap(final long p_size) {
+            m_size = p_size;
+            m_segments = new LongBuffer[(int) ((p_size + SEGMENT_MASK) >>> SEGMENT_SHIFT)];
+            for (int i = 0; i < m_segments.length; i++) {
+                long count = Math.min(SEGMENT_MASK + 1, p_size - ((long) i << SEGMENT_SHIFT));
+                m_segments[i] = ByteBuffer.allocateDirect((int) count * Long.BYTES).order(ByteOrder.nativeOrder()).asLongBuffer();
+            }
+        }
+
+        @Override
+        long size() {
+            return m_size;
+        }
+
+        @Override
+        long get(final long p_index) {
+            return m_segments[(int) (p_index >>> SEGMENT_SHIFT)].get((int) (p_index & SEGMENT_MASK));
+        }
+
+        @Override
+        void set(final long p_index, final long p_value) {
+            m_segments[(int) (p_index >>> SEGMENT_SHIFT)].put((int) (p_index & SEGMENT_MASK), p_value);
+        }
+
+        @Override
+        void fill(final long p_value) {
+            for (LongBuffer segment : m_segments) {
+                for (int i = 0; i < segment.capacity(); i++) {
+                    segment.put(i, p_value);
+                }
+            }
+        }
+    }
+}
@@ -14,6 +14,7 @@
 package science.atlarge.graphalytics.dxram.graph.load.oel;
 
 import science.atlarge.graphalytics.dxram.graph.data.Vertex;
+import science.atlarge.graphalytics.dxram.graph.data.VertexBatch;
 
 /**
  * Interface for an ordered edge list providing vertices.
@@ -28,4 +29,12 @@ public interface OrderedEdgeList {
      * @return VertexSimple read or null if no vertices are left to read.
      */
     Vertex readVertex();
+
+    /**
+     * Read the next vertices into a batch (up to its capacity) without creating a vertex object per vertex. This does
+     * not re-base the vertex ids or any ids of the neighbors. The batch is valid until the next read.
+     * @param p_batch Batch to read into
+     * @return Number of vertices read, 0 if no vertices are left to read.
+     */
+    int readVertices(VertexBatch p_batch);
 }
@@ -0,0 +1,507 @@
+/*
+ * Copyright (C) 2019 Heinrich-Heine-Universitaet Duesseldorf, Institute of Computer Science, Department Operating Systems
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package science.atlarge.graphalytics.dxram.graph.load.oel;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Binary CSR representation of a Graphalytics vertex/edge file pair, stored next to the edge file. It is built once
+ * from the text files and memory mapped on every following run, skipping text parsing entirely.
+ * <p>
+ * Layout (little endian): a fixed size header, the vertex id section (vertex index to Graphalytics vertex id),
+ * the offset section (vertex count + 1 entries) and the neighbor section (one vertex index per edge).
+ * The header stores a format version, size and modification time of both source files and a CRC32 per section.
+ * Opening checks the header (with its own CRC32), the sizes and modification times, so stale caches are
+ * detected and rebuilt without reading the sections. The section CRC32s are verified right after building and on
+ * the first open of a cache file in a process, later opens of the same (unchanged) cache file skip them.
+ */
+public final class OrderedEdgeListCsrFile implements AutoCloseable {
+
+    private static final Logger LOGGER = LogManager.getFormatterLogger(OrderedEdgeListCsrFile.class.getSimpleName());
+
+    public static final String FILE_SUFFIX = ".csr";
+
+    private static final long MAGIC = 0x5253434c45584444L; // "DDXELCSR"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 128;
+
+    private static final int OFFSET_MAGIC = 0;
+    private static final int OFFSET_VERSION = 8;
+    private static final int OFFSET_HEADER_SIZE = 12;
+    private static final int OFFSET_VERTEX_COUNT = 16;
+    private static final int OFFSET_EDGE_COUNT = 24;
+    private static final int OFFSET_VERTEX_FILE_SIZE = 32;
+    private static final int OFFSET_VERTEX_FILE_MODIFIED = 40;
+    private static final int OFFSET_EDGE_FILE_SIZE = 48;
+    private static final int OFFSET_EDGE_FILE_MODIFIED = 56;
+    private static final int OFFSET_CRC_VERTEX_IDS = 64;
+    private static final int OFFSET_CRC_OFFSETS = 72;
+    private static final int OFFSET_CRC_NEIGHBORS = 80;
+    private static final int OFFSET_CRC_HEADER = HEADER_SIZE - Long.BYTES;
+
+    // max. bytes per mapped region, multiple of Long.BYTES
+    private static final long MAP_REGION_SIZE = 1L << 30;
+    private static final int WRITE_BUFFER_SIZE = 1024 * 1024;
+
+    // header CRC32 of the cache files with verified sections, per (absolute) cache path
+    private static final ConcurrentHashMap<Path, Long> VERIFIED_CACHES = new ConcurrentHashMap<>();
+
+    private final FileChannel m_channel;
+    private final long m_vertexCount;
+    private final long m_edgeCount;
+    private final MappedLongs m_vertexIds;
+    private final MappedLongs m_offsets;
+    private final MappedLongs m_neighbors;
+
+    private OrderedEdgeListCsrFile(final FileChannel p_channel, final long p_vertexCount, final long p_edgeCount) throws IOException {
+        m_channel = p_channel;
+        m_vertexCount = p_vertexCount;
+        m_edgeCount = p_edgeCount;
+
+        long pos = HEADER_SIZE;
+        m_vertexIds = new MappedLongs(p_channel, pos, p_vertexCount);
+        pos += p_vertexCount * Long.BYTES;
+        m_offsets = new MappedLongs(p_channel, pos, p_vertexCount + 1);
+        pos += (p_vertexCount + 1) * Long.BYTES;
+        m_neighbors = new MappedLongs(p_channel, pos, p_edgeCount);
+    }
+
+    /**
+     * Get the path of the cache file belonging to an edge file.
+     *
+     * @param p_edgePath
+     *         Path to the (ordered) edge file
+     * @return Path of the cache file
+     */
+    public static String getCachePath(final String p_edgePath) {
+        return p_edgePath + FILE_SUFFIX;
+    }
+
+    /**
+     * Open and memory map the cache file of a vertex/edge file pair.
+     *
+     * @param p_vertexPath
+     *         Path to the vertex file
+     * @param p_edgePath
+     *         Path to the edge file
+     * @return Opened cache or null if there is no cache or it is stale or damaged
+     */
+    public static OrderedEdgeListCsrFile open(final String p_vertexPath, final String p_edgePath) {
+        Path cachePath = Paths.get(getCachePath(p_edgePath));
+        if (!Files.exists(cachePath)) {
+            return null;
+        }
+
+        return open(cachePath, Paths.get(p_vertexPath), Paths.get(p_edgePath), false);
+    }
+
+    /**
+     * Open and memory map a cache file.
+     *
+     * @param p_cachePath
+     *         Path to the cache file
+     * @param p_vertexPath
+     *         Path to the vertex file
+     * @param p_edgePath
+     *         Path to the edge file
+     * @param p_verifySections
+     *         True to verify the CRC32 of all sections as well, reading the whole file. They are also verified if
+     *         the cache file was not verified by this process before
+     * @return Opened cache or null if it is stale or damaged
+     */
+    private static OrderedEdgeListCsrFile open(final Path p_cachePath, final Path p_vertexPath, final Path p_edgePath,
+            final boolean p_verifySections) {
+        FileChannel channel = null;
+        try {
+            channel = FileChannel.open(p_cachePath, StandardOpenOption.READ);
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            while (header.hasRemaining()) {
+                if (channel.read(header, header.position()) < 0) {
+                    break;
+                }
+            }
+
+            if (header.hasRemaining() || !isHeaderValid(header, p_vertexPath, p_edgePath)) {
+                // #if LOGGER >= WARN
+                LOGGER.warn("CSR cache %s is stale or damaged", p_cachePath);
+                // #endif /* LOGGER >= WARN */
+                channel.close();
+                return null;
+            }
+
+            long vertexCount = header.getLong(OFFSET_VERTEX_COUNT);
+            long edgeCount = header.getLong(OFFSET_EDGE_COUNT);
+            long expectedSize = HEADER_SIZE + (vertexCount + vertexCount + 1 + edgeCount) * Long.BYTES;
+            if (channel.size() != expectedSize) {
+                // #if LOGGER >= WARN
+                LOGGER.warn("CSR cache %s has size %d, expected %d", p_cachePath, channel.size(), expectedSize);
+                // #endif /* LOGGER >= WARN */
+                channel.close();
+                return null;
+            }
+
+            Path verifiedPath = p_cachePath.toAbsolutePath().normalize();
+            long headerCrc = header.getLong(OFFSET_CRC_HEADER);
+            Long verifiedCrc = VERIFIED_CACHES.get(verifiedPath);
+            boolean verify = p_verifySections || verifiedCrc == null || verifiedCrc != headerCrc;
+
+            OrderedEdgeListCsrFile file = new OrderedEdgeListCsrFile(channel, vertexCount, edgeCount);
+            if (verify && (file.m_vertexIds.crc() != header.getLong(OFFSET_CRC_VERTEX_IDS) ||
+                    file.m_offsets.crc() != header.getLong(OFFSET_CRC_OFFSETS) || file.m_neighbors.crc() != header.getLong(OFFSET_CRC_NEIGHBORS))) {
+                // #if LOGGER >= WARN
+                LOGGER.warn("CSR cache %s failed checksum verification", p_cachePath);
+                // #endif /* LOGGER >= WARN */
+                VERIFIED_CACHES.remove(verifiedPath);
+                channel.close();
+                return null;
+            }
+
+            if (verify) {
+                VERIFIED_CACHES.put(verifiedPath, headerCrc);
+            }
+
+            return file;
+        } catch (final IOException e) {
+            // #if LOGGER >= ERROR
+            LOGGER.error("Opening CSR cache %s failed: %s", p_cachePath, e);
+            // #endif /* LOGGER >= ERROR */
+            if (channel != null) {
+                try {
+                    channel.close();
+                } catch (final IOException ignored) {
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Check if a valid cache exists for a vertex/edge file pair.
+     *
+     * @param p_vertexPath
+     *         Path to the vertex file
+     * @param p_edgePath
+     *         Path to the edge file
+     * @return True if the cache exists and matches the source files (section checks on the first open only, see open)
+     */
+    public static boolean isValid(final String p_vertexPath, final String p_edgePath) {
+        try (OrderedEdgeListCsrFile file = open(p_vertexPath, p_edgePath)) {
+            return file != null;
+        }
+    }
+
+    /**
+     * Build the cache file for a vertex/edge file pair. The edge file has to be ordered by source vertex
+     * in the same order as the vertex file. An existing (stale) cache file is replaced.
+     *
+     * @param p_vertexPath
+     *         Path to the vertex file
+     * @param p_edgePath
+     *         Path to the ordered edge file
+     * @throws IOException
+     *         On reading or writing errors or if the edge file is not ordered
+     */
+    public static void build(final String p_vertexPath, final String p_edgePath) throws IOException {
+        final Path vertexPath = Paths.get(p_vertexPath);
+        final Path edgePath = Paths.get(p_edgePath);
+        final Path cachePath = Paths.get(getCachePath(p_edgePath));
+        final Path tmpPath = Paths.get(getCachePath(p_edgePath) + ".tmp");
+
+        final VertexIndex lookup = VertexIndex.read(vertexPath);
+        final long[] vertexIds = lookup.getVertexIds();
+        final long[] offsets = new long[vertexIds.length + 1];
+        final long neighborsPos = HEADER_SIZE + (vertexIds.length + offsets.length) * (long) Long.BYTES;
+
+        long edgeCount = 0;
+        final CRC32 crcNeighbors = new CRC32();
+
+        try (FileChannel channel = FileChannel.open(tmpPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ChannelLongWriter writer = new ChannelLongWriter(channel, neighborsPos, crcNeighbors);
+
+            try (EdgeListReader reader = new EdgeListReader(edgePath)) {
+                int curIndex = -1;
+                while (reader.nextEdge()) {
+                    long srcId = reader.getSource();
+                    long dstId = reader.getTarget();
+
+                    int srcIndex = lookup.getIndex(srcId);
+                    int dstIndex = lookup.getIndex(dstId);
+                    if (srcIndex < 0 || dstIndex < 0) {
+                        throw new IOException(String.format("Edge (%d, %d) refers to a vertex missing in the vertex file", srcId, dstId));
+                    }
+
+                    if (srcIndex != curIndex) {
+                        if (srcIndex < curIndex) {
+                            throw new IOException(String.format("Edge file %s is not ordered by source vertex (vertex %d)", edgePath, srcId));
+                        }
+
+                        // vertices without neighbors in between
+                        while (curIndex < srcIndex) {
+                            offsets[++curIndex] = edgeCount;
+                        }
+                    }
+
+                    writer.write(dstIndex);
+                    edgeCount++;
+                }
+
+                while (curIndex < vertexIds.length) {
+                    offsets[++curIndex] = edgeCount;
+                }
+            }
+
+            writer.flush();
+
+            CRC32 crcVertexIds = new CRC32();
+            writer = new ChannelLongWriter(channel, HEADER_SIZE, crcVertexIds);
+            for (long vertexId : vertexIds) {
+                writer.write(vertexId);
+            }
+            writer.flush();
+
+            CRC32 crcOffsets = new CRC32();
+            writer = new ChannelLongWriter(channel, HEADER_SIZE + vertexIds.length * (long) Long.BYTES, crcOffsets);
+            for (long offset : offsets) {
+                writer.write(offset);
+            }
+            writer.flush();
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            header.putLong(OFFSET_MAGIC, MAGIC);
+            header.putInt(OFFSET_VERSION, VERSION);
+            header.putInt(OFFSET_HEADER_SIZE, HEADER_SIZE);
+            header.putLong(OFFSET_VERTEX_COUNT, vertexIds.length);
+            header.putLong(OFFSET_EDGE_COUNT, edgeCount);
+            header.putLong(OFFSET_VERTEX_FILE_SIZE, Files.size(vertexPath));
+            header.putLong(OFFSET_VERTEX_FILE_MODIFIED, Files.getLastModifiedTime(vertexPath).toMillis());
+            header.putLong(OFFSET_EDGE_FILE_SIZE, Files.size(edgePath));
+            header.putLong(OFFSET_EDGE_FILE_MODIFIED, Files.getLastModifiedTime(edgePath).toMillis());
+            header.putLong(OFFSET_CRC_VERTEX_IDS, crcVertexIds.getValue());
+            header.putLong(OFFSET_CRC_OFFSETS, crcOffsets.getValue());
+            header.putLong(OFFSET_CRC_NEIGHBORS, crcNeighbors.getValue());
+            header.putLong(OFFSET_CRC_HEADER, headerCrc(header));
+
+            long headerPos = 0;
+            while (header.hasRemaining()) {
+                headerPos += channel.write(header, headerPos);
+            }
+
+            channel.force(true);
+        } catch (final IOException e) {
+            Files.deleteIfExists(tmpPath);
+            throw e;
+        }
+
+        // read back once, later opens by this process check the header only
+        try (OrderedEdgeListCsrFile file = open(tmpPath, vertexPath, edgePath, true)) {
+            if (file == null) {
+                Files.deleteIfExists(tmpPath);
+                throw new IOException(String.format("Verifying the created CSR cache %s failed", tmpPath));
+            }
+        }
+
+        Long headerCrc = VERIFIED_CACHES.remove(tmpPath.toAbsolutePath().normalize());
+        Files.move(tmpPath, cachePath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        VERIFIED_CACHES.put(cachePath.toAbsolutePath().normalize(), headerCrc);
+
+        // #if LOGGER >= INFO
+        LOGGER.info("Created CSR cache %s: %d vertices, %d edges", cachePath, vertexIds.length, edgeCount);
+        // #endif /* LOGGER >= INFO */
+    }
+
+    /**
+     * Get the total number of vertices.
+     *
+     * @return Vertex count.
+     */
+    public long getVertexCount() {
+        return m_vertexCount;
+    }
+
+    /**
+     * Get the total number of edges.
+     *
+     * @return Edge count.
+     */
+    public long getEdgeCount() {
+        return m_edgeCount;
+    }
+
+    /**
+     * Get the Graphalytics vertex id of a vertex index.
+     *
+     * @param p_index
+     *         Vertex index
+     * @return Graphalytics vertex id
+     */
+    public long getVertexId(final long p_index) {
+        return m_vertexIds.get(p_index);
+    }
+
+    /**
+     * Copy the vertex id section to the heap.
+     *
+     * @return Array mapping vertex index to Graphalytics vertex id
+     */
+    public long[] readVertexIds() {
+        long[] ids = new long[(int) m_vertexCount];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = m_vertexIds.get(i);
+        }
+        return ids;
+    }
+
+    /**
+     * Get the position of the first neighbor of a vertex in the neighbor section.
+     *
+     * @param p_index
+     *         Vertex index (vertex count to get the end of the last neighbor list)
+     * @return Position in the neighbor section
+     */
+    public long getNeighborsOffset(final long p_index) {
+        return m_offsets.get(p_index);
+    }
+
+    /**
+     * Get a neighbor (vertex index) from the neighbor section.
+     *
+     * @param p_pos
+     *         Position in the neighbor section
+     * @return Vertex index of the neighbor
+     */
+    public long getNeighbor(final long p_pos) {
+        return m_neighbors.get(p_pos);
+    }
+
+    @Override
+    public void close() {
+        try {
+            m_channel.close();
+        } catch (final IOException ignored) {
+        }
+    }
+
+    private static boolean isHeaderValid(final ByteBuffer p_header, final Path p_vertexPath, final Path p_edgePath) throws IOException {
+        if (p_header.getLong(OFFSET_MAGIC) != MAGIC || p_header.getInt(OFFSET_VERSION) != VERSION ||
+                p_header.getInt(OFFSET_HEADER_SIZE) != HEADER_SIZE) {
+            return false;
+        }
+
+        if (p_header.getLong(OFFSET_CRC_HEADER) != headerCrc(p_header)) {
+            return false;
+        }
+
+        return p_header.getLong(OFFSET_VERTEX_FILE_SIZE) == Files.size(p_vertexPath) &&
+                p_header.getLong(OFFSET_VERTEX_FILE_MODIFIED) == Files.getLastModifiedTime(p_vertexPath).toMillis() &&
+                p_header.getLong(OFFSET_EDGE_FILE_SIZE) == Files.size(p_edgePath) &&
+                p_header.getLong(OFFSET_EDGE_FILE_MODIFIED) == Files.getLastModifiedTime(p_edgePath).toMillis();
+    }
+
+    private static long headerCrc(final ByteBuffer p_header) {
+        CRC32 crc = new CRC32();
+        ByteBuffer tmp = p_header.duplicate();
+        tmp.position(0);
+        tmp.limit(OFFSET_CRC_HEADER);
+        crc.update(tmp);
+        return crc.getValue();
+    }
+
+    /**
+     * Buffered positional writer of longs to a file channel, updating a checksum with everything written.
+     */
+    private static final class ChannelLongWriter {
+        private final FileChannel m_channel;
+        private final CRC32 m_crc;
+        private final ByteBuffer m_buffer = ByteBuffer.allocateDirect(WRITE_BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        private long m_pos;
+
+        ChannelLongWriter(final FileChannel p_channel, final long p_pos, final CRC32 p_crc) {
+            m_channel = p_channel;
+            m_pos = p_pos;
+            m_crc = p_crc;
+        }
+
+        void write(final long p_value) throws IOException {
+            if (!m_buffer.hasRemaining()) {
+                flush();
+            }
+
+            m_buffer.putLong(p_value);
+        }
+
+        void flush() throws IOException {
+            m_buffer.flip();
+
+            ByteBuffer crcView = m_buffer.duplicate();
+            m_crc.update(crcView);
+
+            while (m_buffer.hasRemaining()) {
+                m_pos += m_channel.write(m_buffer, m_pos);
+            }
+
+            m_buffer.clear();
+        }
+    }
+
+    /**
+     * Read only view on a section of longs of the file, mapped in regions of at most MAP_REGION_SIZE bytes.
+     */
+    private static final class MappedLongs {
+        private static final int REGION_SHIFT = Long.numberOfTrailingZeros(MAP_REGION_SIZE / Long.BYTES);
+        private static final long REGION_MASK = MAP_REGION_SIZE / Long.BYTES - 1;
+
+        private final MappedByteBuffer[] m_regions;
+
+        MappedLongs(final FileChannel p_channel, final long p_pos, final long p_count) throws IOException {
+            long size = p_count * Long.BYTES;
+            int regionCount = (int) ((size + MAP_REGION_SIZE - 1) / MAP_REGION_SIZE);
+            m_regions = new MappedByteBuffer[regionCount];
+
+            for (int i = 0; i < regionCount; i++) {
+                long regionPos = i * MAP_REGION_SIZE;
+                long regionSize = Math.min(MAP_REGION_SIZE, size - regionPos);
+                m_regions[i] = p_channel.map(FileChannel.MapMode.READ_ONLY, p_pos + regionPos, regionSize);
+                m_regions[i].order(ByteOrder.LITTLE_ENDIAN);
+            }
+        }
+
+        long get(final long p_index) {
+            return m_regions[(int) (p_index >>> REGION_SHIFT)].getLong((int) (p_index & REGION_MASK) * Long.BYTES);
+        }
+
+        long crc() {
+            CRC32 crc = new CRC32();
+            for (MappedByteBuffer region : m_regions) {
+                crc.update(region.duplicate());
+            }
+            return crc.getValue();
+        }
+    }
+}
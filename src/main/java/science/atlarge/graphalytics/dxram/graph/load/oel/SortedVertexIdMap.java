@@ -0,0 +1,84 @@
+/*
+ * Copyright (C) 2019 Heinrich-Heine-Universitaet Duesseldorf, Institute of Computer Science, Department Operating Systems
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package science.atlarge.graphalytics.dxram.graph.load.oel;
+
+import java.util.Arrays;
+
+/**
+ * Immutable VertexIdMap for vertex ids and chunk ids which are both ascending (sorted vertex file loaded in order).
+ * Two parallel arrays, 16 bytes per vertex, lookups in both directions via binary search.
+ */
+public final class SortedVertexIdMap implements VertexIdMap {
+
+    private final long[] m_vertexIds;
+    private final long[] m_chunkIds;
+
+    /**
+     * Constructor
+     *
+     * @param p_vertexIds
+     *         Strictly ascending Graphalytics vertex ids (not copied)
+     * @param p_chunkIds
+     *         Strictly ascending chunk ids, p_chunkIds[i] belongs to p_vertexIds[i] (not copied)
+     */
+    public SortedVertexIdMap(final long[] p_vertexIds, final long[] p_chunkIds) {
+        if (p_vertexIds.length != p_chunkIds.length || !isAscending(p_vertexIds) || !isAscending(p_chunkIds)) {
+            throw new IllegalArgumentException("Vertex ids and chunk ids have to be ascending and of the same length");
+        }
+
+        m_vertexIds = p_vertexIds;
+        m_chunkIds = p_chunkIds;
+    }
+
+    /**
+     * Check if an array is strictly ascending.
+     *
+     * @param p_ids
+     *         Array to check
+     * @return True if ascending
+     */
+    public static boolean isAscending(final long[] p_ids) {
+        for (int i = 1; i < p_ids.length; i++) {
+            if (p_ids[i - 1] >= p_ids[i]) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    @Override
+    public long getChunkId(final long p_vertexId) {
+        int pos = Arrays.binarySearch(m_vertexIds, p_vertexId);
+        return pos < 0 ? NOT_FOUND : m_chunkIds[pos];
+    }
+
+    @Override
+    public long getVertexId(final long p_chunkId) {
+        int pos = Arrays.binarySearch(m_chunkIds, p_chunkId);
+        return pos < 0 ? NOT_FOUND : m_vertexIds[pos];
+    }
+
+    @Override
+    public long size() {
+        return m_vertexIds.length;
+    }
+
+    @Override
+    public void forEach(final EntryConsumer p_consumer) {
+        for (int i = 0; i < m_vertexIds.length; i++) {
+            p_consumer.accept(m_vertexIds[i], m_chunkIds[i]);
+        }
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright (C) 2019 Heinrich-Heine-Universitaet Duesseldorf, Institute of Computer Science, Department Operating Systems
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package science.atlarge.graphalytics.dxram.graph.load.oel;
+
+/**
+ * Bidirectional map between Graphalytics vertex ids and the chunk ids of the loaded vertices.
+ * Implementations work on primitives only.
+ */
+public interface VertexIdMap {
+
+    /**
+     * Returned for unknown ids (equals ChunkID.INVALID_ID, Graphalytics vertex ids are never negative)
+     */
+    long NOT_FOUND = -1;
+
+    /**
+     * Get the chunk id of a vertex.
+     *
+     * @param p_vertexId
+     *         Graphalytics vertex id
+     * @return Chunk id or NOT_FOUND
+     */
+    long getChunkId(long p_vertexId);
+
+    /**
+     * Get the Graphalytics vertex id of a chunk.
+     *
+     * @param p_chunkId
+     *         Chunk id of the vertex
+     * @return Graphalytics vertex id or NOT_FOUND
+     */
+    long getVertexId(long p_chunkId);
+
+    /**
+     * Get the number of mapped vertices.
+     *
+     * @return Number of entries
+     */
+    long size();
+
+    /**
+     * Iterate all entries.
+     *
+     * @param p_consumer
+     *         Consumer called for each (vertex id, chunk id) pair
+     */
+    void forEach(EntryConsumer p_consumer);
+
+    /**
+     * Translate Graphalytics vertex ids to chunk ids in place.
+     *
+     * @param p_vertexIds
+     *         Vertex ids to translate, unknown ids are set to NOT_FOUND
+     * @return True if all ids were found
+     */
+    default boolean translate(final long[] p_vertexIds) {
+        boolean res = true;
+        for (int i = 0; i < p_vertexIds.length; i++) {
+            p_vertexIds[i] = getChunkId(p_vertexIds[i]);
+            res &= p_vertexIds[i] != NOT_FOUND;
+        }
+
+        return res;
+    }
+
+    /**
+     * Consumer for map entries
+     */
+    @FunctionalInterface
+    interface EntryConsumer {
+        /**
+         * Called for each entry.
+         *
+         * @param p_vertexId
+         *         Graphalytics vertex id
+         * @param p_chunkId
+         *         Chunk id of the vertex
+         */
+        void accept(long p_vertexId, long p_chunkId);
+    }
+}
@@ -0,0 +1,219 @@
+/*
+ * Copyright (C) 2019 Heinrich-Heine-Universitaet Duesseldorf, Institute of Computer Science, Department Operating Systems
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>
+ */
+
+package science.atlarge.graphalytics.dxram.graph.load.oel;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Maps Graphalytics vertex ids to their (0 based) index in the vertex file and back, without boxing.
+ * The index is immutable after construction and can be shared by multiple loader threads.
+ * Dense vertex ids (sorted, contiguous) are mapped arithmetically without storing any ids.
+ */
+public final class VertexIndex {
+
+    private final int m_vertexCount;
+    // first vertex id if the ids are dense, -1 otherwise
+    private final long m_denseMinVertexId;
+    private final long[] m_vertexIds;
+    private final long[] m_sortedIds;
+    // index in vertex file for each entry of m_sortedIds, null if the vertex file is sorted
+    private final int[] m_indices;
+
+    private VertexIndex(final long p_minVertexId, final int p_vertexCount) {
+        m_vertexCount = p_vertexCount;
+        m_denseMinVertexId = p_minVertexId;
+        m_vertexIds = null;
+        m_sortedIds = null;
+        m_indices = null;
+    }
+
+    /**
+     * Constructor
+     *
+     * @param p_vertexIds
+     *         Graphalytics vertex ids in vertex file order (not copied)
+     */
+    public VertexIndex(final long[] p_vertexIds) {
+        m_vertexCount = p_vertexIds.length;
+        m_denseMinVertexId = -1;
+        m_vertexIds = p_vertexIds;
+
+        boolean sorted = true;
+        for (int i = 1; i < p_vertexIds.length; i++) {
+            if (p_vertexIds[i - 1] >= p_vertexIds[i]) {
+                sorted = false;
+                break;
+            }
+        }
+
+        if (sorted) {
+            m_sortedIds = p_vertexIds;
+            m_indices = null;
+        } else {
+            // sort (id, index) pairs packed in a single array to get a binary searchable copy
+            long[] pairs = new long[p_vertexIds.length * 2];
+            for (int i = 0; i < p_vertexIds.length; i++) {
+                pairs[i * 2] = p_vertexIds[i];
+                pairs[i * 2 + 1] = i;
+            }
+            EdgeListSymmetrizer.sortAndDedup(pairs, p_vertexIds.length);
+
+            m_sortedIds = new long[p_vertexIds.length];
+            m_indices = new int[p_vertexIds.length];
+            for (int i = 0; i < p_vertexIds.length; i++) {
+                m_sortedIds[i] = pairs[i * 2];
+                m_indices[i] = (int) pairs[i * 2 + 1];
+            }
+        }
+    }
+
+    /**
+     * Create an index for dense vertex ids.
+     *
+     * @param p_minVertexId
+     *         First vertex id
+     * @param p_vertexCount
+     *         Total number of vertices, ids are p_minVertexId to p_minVertexId + p_vertexCount - 1
+     * @return VertexIndex without any stored ids
+     */
+    public static VertexIndex dense(final long p_minVertexId, final int p_vertexCount) {
+        return new VertexIndex(p_minVertexId, p_vertexCount);
+    }
+
+    /**
+     * Check if the ids of a Graphalytics vertex file are dense, i.e. sorted and contiguous.
+     *
+     * @param p_vertexPath
+     *         Path to the vertex file
+     * @return First vertex id if dense, -1 otherwise
+     * @throws IOException
+     *         On reading errors
+     */
+    public static long findDenseMinVertexId(final Path p_vertexPath) throws IOException {
+        long min = -1;
+        long prev = -1;
+
+        try (EdgeListReader reader = new EdgeListReader(p_vertexPath)) {
+            while (reader.next()) {
+                long vertexId = reader.getSource();
+                if (min == -1) {
+                    min = vertexId;
+                } else if (vertexId != prev + 1) {
+                    return -1;
+                }
+                prev = vertexId;
+            }
+        }
+
+        return min;
+    }
+
+    /**
+     * Read the index from a Graphalytics vertex file.
+     *
+     * @param p_vertexPath
+     *         Path to the vertex file
+     * @return VertexIndex of all vertices in the file
+     * @throws IOException
+     *         On reading errors
+     */
+    public static VertexIndex read(final Path p_vertexPath) throws IOException {
+        long[] ids = new long[1024];
+        int count = 0;
+
+        try (EdgeListReader reader = new EdgeListReader(p_vertexPath)) {
+            while (reader.next()) {
+                if (count == ids.length) {
+                    ids = Arrays.copyOf(ids, ids.length * 2);
+                }
+                ids[count++] = reader.getSource();
+            }
+        }
+
+        return new VertexIndex(Arrays.copyOf(ids, count));
+    }
+
+    /**
+     * Get the total number of vertices.
+     *
+     * @return Vertex count
+     */
+    public int getVertexCount() {
+        return m_vertexCount;
+    }
+
+    /**
+     * Check if the index maps dense vertex ids.
+     *
+     * @return True if dense
+     */
+    public boolean isDense() {
+        return m_denseMinVertexId >= 0;
+    }
+
+    /**
+     * Get the index of a vertex.
+     *
+     * @param p_vertexId
+     *         Graphalytics vertex id
+     * @return Index in the vertex file or -1 if the vertex does not exist
+     */
+    public int getIndex(final long p_vertexId) {
+        if (m_denseMinVertexId >= 0) {
+            long index = p_vertexId - m_denseMinVertexId;
+            return index >= 0 && index < m_vertexCount ? (int) index : -1;
+        }
+
+        int pos = Arrays.binarySearch(m_sortedIds, p_vertexId);
+        if (pos < 0) {
+            return -1;
+        }
+
+        return m_indices == null ? pos : m_indices[pos];
+    }
+
+    /**
+     * Get the vertex id of an index.
+     *
+     * @param p_index
+     *         Index in the vertex file
+     * @return Graphalytics vertex id
+     */
+    public long getVertexId(final int p_index) {
+        if (m_denseMinVertexId >= 0) {
+            return m_denseMinVertexId + p_index;
+        }
+
+        return m_vertexIds[p_index];
+    }
+
+    /**
+     * Get all vertex ids in vertex file order.
+     *
+     * @return Array mapping index to Graphalytics vertex id (not a copy, created for dense ids)
+     */
+    public long[] getVertexIds() {
+        if (m_denseMinVertexId >= 0) {
+            long[] ids = new long[m_vertexCount];
+            for (int i = 0; i < ids.length; i++) {
+                ids[i] = m_denseMinVertexId + i;
+            }
+            return ids;
+        }
+
+        return m_vertexIds;
+    }
+}
@@ -17,13 +17,9 @@
 package science.atlarge.graphalytics.dxram.job;
 
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.function.Consumer;
-import java.util.stream.Stream;
 
 import org.apache.commons.lang.ArrayUtils;
 import org.apache.logging.log4j.LogManager;
@@ -34,6 +30,7 @@ import de.hhu.bsinfo.dxram.chunk.ChunkService;
 import science.atlarge.graphalytics.dxram.DxramConfiguration;
 import science.atlarge.graphalytics.dxram.graph.BFSVertex;
 import science.atlarge.graphalytics.dxram.graph.Graph;
+import science.atlarge.graphalytics.dxram.graph.load.oel.EdgeListReader;
 
 /**
  * @author Ruslan Curbanov, ruslan.curbanov@uni-duesseldorf.de, December 27, 2018
@@ -67,15 +64,10 @@ public class LoadGraphJob extends GraphalyticsAbstractJob {
 		LOGGER.info(String.format("Read the vertex file: %s", vertexPath));
 		// read vertex file
 		final List<Long> vertexList = new ArrayList<Long>();
-		try (Stream<String> stream = Files.lines(Paths.get(vertexPath), StandardCharsets.US_ASCII)) {
-			stream.forEach(new Consumer<String>() {
-				@Override
-				public void accept(String line) {
-					String[] tmp = line.split("\\s");
-					long vertexId = Long.parseLong(tmp[0]);
-					vertexList.add(vertexId);
-				}
-			});
+		try (EdgeListReader reader = new EdgeListReader(Paths.get(vertexPath))) {
+			while (reader.next()) {
+				vertexList.add(reader.getSource());
+			}
 		} catch (IOException e) {
 			e.printStackTrace();
 			LOGGER.error("IOException: " + e.getMessage());
@@ -83,36 +75,32 @@ public class LoadGraphJob extends GraphalyticsAbstractJob {
 
 		LOGGER.info(String.format("Read edge file [%s] and build the graph", edgePath));
 		// read edge file & build graph
-		try (Stream<String> stream = Files.lines(Paths.get(edgePath), StandardCharsets.US_ASCII)) {
+		try (EdgeListReader reader = new EdgeListReader(Paths.get(edgePath))) {
 			final List<Long> vertexAndNeighbors = new ArrayList<Long>();
-			stream.sequential().forEach(new Consumer<String>() {
-				@Override
-				public void accept(String line) {
-					String[] tmp = line.split("\\s");
-					long srcId = Long.parseLong(tmp[0]);
-					long dstId = Long.parseLong(tmp[1]);
+			while (reader.nextEdge()) {
+				long srcId = reader.getSource();
+				long dstId = reader.getTarget();
 
-					if (vertexAndNeighbors.isEmpty()) {
-						vertexAndNeighbors.add(srcId);
-						vertexAndNeighbors.add(dstId);
-					} else if (vertexAndNeighbors.contains(srcId)) {
-						vertexAndNeighbors.add(dstId);
-					} else {
-						final long vertexId = vertexAndNeighbors.remove(0);
-						vertexList.remove(vertexId);
-						BFSVertex bfsVertex = new BFSVertex(vertexId);
-						bfsVertex.setNeighbors(
-								ArrayUtils.toPrimitive(
-										vertexAndNeighbors.toArray(new Long[vertexAndNeighbors.size()])));
-						chunkLocalService.createLocal().create(bfsVertex);
-						chunkService.put().put(bfsVertex);
-						graph.putVertexCID(vertexId, bfsVertex.getID());
-						vertexAndNeighbors.clear();
-						vertexAndNeighbors.add(srcId);
-						vertexAndNeighbors.add(dstId);
-					}
+				if (vertexAndNeighbors.isEmpty()) {
+					vertexAndNeighbors.add(srcId);
+					vertexAndNeighbors.add(dstId);
+				} else if (vertexAndNeighbors.contains(srcId)) {
+					vertexAndNeighbors.add(dstId);
+				} else {
+					final long vertexId = vertexAndNeighbors.remove(0);
+					vertexList.remove(vertexId);
+					BFSVertex bfsVertex = new BFSVertex(vertexId);
+					bfsVertex.setNeighbors(
+							ArrayUtils.toPrimitive(
+									vertexAndNeighbors.toArray(new Long[vertexAndNeighbors.size()])));
+					chunkLocalService.createLocal().create(bfsVertex);
+					chunkService.put().put(bfsVertex);
+					graph.putVertexCID(vertexId, bfsVertex.getID());
+					vertexAndNeighbors.clear();
+					vertexAndNeighbors.add(srcId);
+					vertexAndNeighbors.add(dstId);
 				}
-			});
+			}
 		} catch (IOException e) {
 			e.printStackTrace();
 			LOGGER.error("IOException: " + e.getMessage());